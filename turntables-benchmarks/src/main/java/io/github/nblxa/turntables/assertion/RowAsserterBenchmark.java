@@ -0,0 +1,80 @@
+package io.github.nblxa.turntables.assertion;
+
+import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.Turntables;
+import io.github.nblxa.turntables.benchmarks.DataGenerator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Matches the rows of two equal tables with each of the row asserters.
+ *
+ * <p>The benchmark is in the package of the asserters, since they are not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowAsserterBenchmark {
+  @Param({"100", "10000"})
+  public int rows;
+
+  @Param({"5"})
+  public int cols;
+
+  @Param({"MIXED"})
+  public DataGenerator.Types types;
+
+  @Param({"0.0", "0.1"})
+  public double duplicateRatio;
+
+  @Param({"0.0", "0.1"})
+  public double predicateRatio;
+
+  private Tab expected;
+  private Tab actual;
+  private Tab shuffled;
+
+  @Setup
+  public void setUp() {
+    DataGenerator.Tables ordered = new DataGenerator()
+        .generate(rows, cols, types, duplicateRatio, predicateRatio, false);
+    expected = ordered.expected;
+    actual = ordered.actual;
+    shuffled = new DataGenerator()
+        .generate(rows, cols, types, duplicateRatio, predicateRatio, true)
+        .actual;
+  }
+
+  @Benchmark
+  public boolean ordered() {
+    return new OrderedRowAsserter(expected.rows(), actual.rows(), new OrderedValAsserter())
+        .match();
+  }
+
+  @Benchmark
+  public boolean unordered() {
+    return new UnorderedRowAsserter(expected.rows(), shuffled.rows(),
+        Turntables.ROW_PERMUTATION_LIMIT, new OrderedValAsserter())
+        .match();
+  }
+
+  @Benchmark
+  public boolean keyBased() {
+    return new KeyBasedRowAsserter(expected.rows(), shuffled.rows(), expected.cols(),
+        shuffled.cols(), Turntables.ROW_PERMUTATION_LIMIT, 0, new OrderedValAsserter())
+        .match();
+  }
+}
@@ -0,0 +1,181 @@
+package io.github.nblxa.turntables.benchmarks;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.TableUtils;
+import io.github.nblxa.turntables.Turntables;
+import io.github.nblxa.turntables.Typ;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Generates pairs of expected and actual tables that match. The same seed and parameters
+ * always produce the same tables, so that benchmark results are comparable across runs.
+ *
+ * <p>The first column is an integer key, which is unique unless the row is a duplicate
+ * of an earlier row. The other columns have the types given by {@link Types}.
+ */
+public final class DataGenerator {
+  public static final long DEFAULT_SEED = 0x7a7b1e5L;
+
+  private static final Typ[] MIXED_TYPS = {Typ.INTEGER, Typ.STRING, Typ.DECIMAL, Typ.DATETIME,
+      Typ.LONG, Typ.BOOLEAN, Typ.DATE, Typ.DOUBLE};
+
+  public enum Types {
+    INTEGER,
+    STRING,
+    MIXED
+  }
+
+  @NonNull
+  private final Random random;
+
+  public DataGenerator() {
+    this(DEFAULT_SEED);
+  }
+
+  public DataGenerator(long seed) {
+    this.random = new Random(seed);
+  }
+
+  /**
+   * @param rows the number of rows
+   * @param cols the number of columns including the key column
+   * @param types the types of the columns after the key column
+   * @param duplicateRatio the share of rows repeating an earlier row
+   * @param predicateRatio the share of expected rows with a predicate instead of a value
+   * @param shuffle whether the actual rows are in a different order than the expected ones
+   * @return the expected and the actual table
+   */
+  @NonNull
+  public Tables generate(int rows, int cols, @NonNull Types types, double duplicateRatio,
+                         double predicateRatio, boolean shuffle) {
+    if (rows < 0) {
+      throw new IllegalArgumentException("rows must be >= 0");
+    }
+    if (cols <= 0) {
+      throw new IllegalArgumentException("cols must be > 0");
+    }
+    Objects.requireNonNull(types, "types is null");
+    Typ[] typs = typs(cols, types);
+    List<Object[]> data = new ArrayList<>(rows);
+    for (int i = 0; i < rows; i++) {
+      if (i > 0 && random.nextDouble() < duplicateRatio) {
+        data.add(data.get(random.nextInt(i)).clone());
+      } else {
+        data.add(newRow(i, typs));
+      }
+    }
+
+    TableUtils.RowAdderTable expected = newTab(typs);
+    for (Object[] row: data) {
+      Object[] values = row.clone();
+      if (cols > 1 && random.nextDouble() < predicateRatio) {
+        int col = 1 + random.nextInt(cols - 1);
+        Object value = values[col];
+        values[col] = Turntables.test(o -> Objects.equals(o, value));
+      }
+      addRow(expected, values);
+    }
+
+    List<Object[]> actualData = new ArrayList<>(data);
+    if (shuffle) {
+      Collections.shuffle(actualData, random);
+    }
+    TableUtils.RowAdderTable actual = newTab(typs);
+    for (Object[] row: actualData) {
+      addRow(actual, row);
+    }
+    return new Tables(expected, actual);
+  }
+
+  @NonNull
+  private static Typ[] typs(int cols, @NonNull Types types) {
+    Typ[] typs = new Typ[cols];
+    typs[0] = Typ.INTEGER;
+    for (int i = 1; i < cols; i++) {
+      switch (types) {
+        case INTEGER:
+          typs[i] = Typ.INTEGER;
+          break;
+        case STRING:
+          typs[i] = Typ.STRING;
+          break;
+        case MIXED:
+          typs[i] = MIXED_TYPS[(i - 1) % MIXED_TYPS.length];
+          break;
+        default:
+          throw new UnsupportedOperationException("Types not supported: " + types);
+      }
+    }
+    return typs;
+  }
+
+  @NonNull
+  private static TableUtils.RowAdderTable newTab(@NonNull Typ[] typs) {
+    TableUtils.NamedColAdderTable tab = Turntables.tab().key("c0", typs[0]);
+    for (int i = 1; i < typs.length; i++) {
+      tab = tab.col("c" + i, typs[i]);
+    }
+    return tab.rowAdder();
+  }
+
+  private static void addRow(@NonNull TableUtils.RowAdderTable tab, @NonNull Object[] values) {
+    tab.row(values[0], Arrays.copyOfRange(values, 1, values.length));
+  }
+
+  @NonNull
+  private Object[] newRow(int key, @NonNull Typ[] typs) {
+    Object[] row = new Object[typs.length];
+    row[0] = key;
+    for (int i = 1; i < typs.length; i++) {
+      row[i] = newValue(typs[i]);
+    }
+    return row;
+  }
+
+  @NonNull
+  private Object newValue(@NonNull Typ typ) {
+    switch (typ) {
+      case INTEGER:
+        return random.nextInt();
+      case LONG:
+        return random.nextLong();
+      case STRING:
+        return "value" + random.nextInt(1_000_000);
+      case BOOLEAN:
+        return random.nextBoolean();
+      case DOUBLE:
+        return random.nextDouble();
+      case DECIMAL:
+        return BigDecimal.valueOf(random.nextInt(), 2);
+      case DATE:
+        return LocalDate.ofEpochDay(random.nextInt(30_000));
+      case DATETIME:
+        return LocalDateTime.ofEpochSecond(random.nextInt(Integer.MAX_VALUE), 0,
+            ZoneOffset.UTC);
+      default:
+        throw new UnsupportedOperationException("Data type not supported: " + typ);
+    }
+  }
+
+  public static final class Tables {
+    @NonNull
+    public final Tab expected;
+    @NonNull
+    public final Tab actual;
+
+    private Tables(@NonNull Tab expected, @NonNull Tab actual) {
+      this.expected = expected;
+      this.actual = actual;
+    }
+  }
+}
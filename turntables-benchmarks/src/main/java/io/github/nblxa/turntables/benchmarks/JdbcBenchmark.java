@@ -0,0 +1,142 @@
+package io.github.nblxa.turntables.benchmarks;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.Typ;
+import io.github.nblxa.turntables.io.feed.AbstractJdbcProtocol;
+import io.github.nblxa.turntables.io.feed.SchemaCache;
+import io.github.nblxa.turntables.io.feed.StatementCache;
+import io.github.nblxa.turntables.io.ingestion.ResultSetProtocol;
+import io.github.nblxa.turntables.io.rowstore.CleanUpAction;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Feeds a table into an embedded in-memory Derby database and ingests it back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JdbcBenchmark {
+  private static final String JDBC_URL = "jdbc:derby:memory:benchmarks";
+  private static final String FEED_TABLE = "feed_tab";
+  private static final String INGEST_TABLE = "ingest_tab";
+
+  @Param({"1000", "10000"})
+  public int rows;
+
+  @Param({"5"})
+  public int cols;
+
+  @Param({"INTEGER", "MIXED"})
+  public DataGenerator.Types types;
+
+  private Tab tab;
+  private Connection connection;
+  private DerbyFeedProtocol feedProtocol;
+  private SchemaCache schemaCache;
+  private StatementCache statementCache;
+  private ResultSetProtocol<ResultSet> ingestionProtocol;
+
+  @Setup
+  public void setUp() throws Exception {
+    tab = new DataGenerator().generate(rows, cols, types, 0.0d, 0.0d, false).actual;
+    connection = DriverManager.getConnection(JDBC_URL + ";create=true");
+    feedProtocol = new DerbyFeedProtocol();
+    schemaCache = new SchemaCache();
+    statementCache = new StatementCache(connection);
+    ingestionProtocol = new ResultSetProtocol<>();
+    feedProtocol.feed(INGEST_TABLE, tab).accept(connection);
+  }
+
+  @TearDown
+  public void tearDown() throws SQLException {
+    statementCache.close();
+    connection.close();
+    try {
+      DriverManager.getConnection(JDBC_URL + ";drop=true");
+    } catch (SQLException se) {
+      if (!se.getSQLState().equals("08006")) {
+        throw se;
+      }
+    }
+  }
+
+  /**
+   * Derby has no {@code DROP TABLE IF EXISTS}, so the table fed by the previous invocation
+   * is dropped before each invocation.
+   */
+  @Setup(Level.Invocation)
+  public void dropFeedTable() throws Exception {
+    feedProtocol.cleanUp(FEED_TABLE, CleanUpAction.DROP, schemaCache).accept(connection);
+  }
+
+  @Benchmark
+  public void feed() throws Exception {
+    feedProtocol.feed(FEED_TABLE, tab, schemaCache, statementCache).accept(connection);
+  }
+
+  @Benchmark
+  public Tab ingest() throws SQLException {
+    try (Statement stmt = connection.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT * FROM " + INGEST_TABLE)) {
+      return ingestionProtocol.ingest(rs);
+    }
+  }
+
+  static class DerbyFeedProtocol extends AbstractJdbcProtocol<Connection> {
+    private static final Map<Typ, String> SQL_TYPES;
+    static {
+      Map<Typ, String> m = new EnumMap<>(Typ.class);
+      m.put(Typ.BOOLEAN, "BOOLEAN");
+      m.put(Typ.DATE, "DATE");
+      m.put(Typ.DATETIME, "TIMESTAMP");
+      m.put(Typ.DECIMAL, "DECIMAL(31,10)");
+      m.put(Typ.DOUBLE, "DOUBLE");
+      m.put(Typ.INTEGER, "INTEGER");
+      m.put(Typ.LONG, "BIGINT");
+      m.put(Typ.STRING, "VARCHAR(255)");
+      SQL_TYPES = Collections.unmodifiableMap(m);
+    }
+
+    @NonNull
+    @Override
+    protected Map<Typ, String> getSqlTypes() {
+      return SQL_TYPES;
+    }
+
+    @Override
+    protected boolean tableExists(@NonNull Connection connection,
+                                  @NonNull String tableName) throws SQLException {
+      String name = tableName.toUpperCase(Locale.ENGLISH);
+      try (ResultSet rs = connection.getMetaData()
+          .getTables(null, null, name, new String[] {"TABLE"})) {
+        return rs.next();
+      }
+    }
+  }
+}
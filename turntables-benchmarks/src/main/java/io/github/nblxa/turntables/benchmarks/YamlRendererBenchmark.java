@@ -0,0 +1,63 @@
+package io.github.nblxa.turntables.benchmarks;
+
+import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.YamlRenderer;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Renders a table in the simple and in the extended format, as String and into
+ * a reused buffer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class YamlRendererBenchmark {
+  @Param({"100", "10000"})
+  public int rows;
+
+  @Param({"5", "20"})
+  public int cols;
+
+  @Param({"STRING", "MIXED"})
+  public DataGenerator.Types types;
+
+  private Tab tab;
+  private final StringBuilder out = new StringBuilder();
+
+  @Setup
+  public void setUp() {
+    tab = new DataGenerator().generate(rows, cols, types, 0.0d, 0.0d, false).actual;
+  }
+
+  @Benchmark
+  public String simple() {
+    return YamlRenderer.DEFAULT_SIMPLE.renderTab(tab, 0);
+  }
+
+  @Benchmark
+  public String extended() {
+    return YamlRenderer.DEFAULT_EXTENDED.renderTab(tab, 0);
+  }
+
+  @Benchmark
+  public int simpleToAppendable() throws IOException {
+    out.setLength(0);
+    YamlRenderer.DEFAULT_SIMPLE.renderTab(tab, 0, out);
+    return out.length();
+  }
+}
@@ -93,6 +93,14 @@ public abstract class AbstractTab implements Tab {
           new ArrayList<>(Objects.requireNonNull(cols, "cols")));
     }
 
+    /**
+     * For rows sharing the unmodifiable column list of their table.
+     */
+    AbstractRow(@NonNull List<Tab.Col> cols, boolean copy) {
+      this.cols = copy ? Collections.unmodifiableList(new ArrayList<>(cols))
+          : Objects.requireNonNull(cols, "cols");
+    }
+
     @Override
     @NonNull
     public List<Tab.Col> cols() {
@@ -192,6 +200,25 @@ public abstract class AbstractTab implements Tab {
       return obj;
     }
 
+    /**
+     * Hash code of an evaluated value, consistent with {@link #matchesActual}: values matching
+     * each other always have equal hash codes. Numbers are hashed by their {@code double} value
+     * so that {@link BigDecimal}s equal by {@code compareTo}, as well as numbers of different
+     * types converted in {@link Settings.DecimalMode#CONVERT}, fall into the same bucket.
+     *
+     * @param obj the evaluated value
+     * @return the hash code
+     */
+    public static int matchingHashCode(@Nullable Object obj) {
+      if (obj instanceof Integer || obj instanceof Long || obj instanceof Double
+          || obj instanceof BigDecimal) {
+        double d = ((Number) obj).doubleValue();
+        // BigDecimal has no negative zero
+        return Double.hashCode(d == 0.0d ? 0.0d : d);
+      }
+      return Objects.hashCode(obj);
+    }
+
     private static boolean valuesAreEqual(Object expected, Object actual) {
       if (expected instanceof BigDecimal && actual instanceof BigDecimal) {
         return ((BigDecimal) expected).compareTo(((BigDecimal) actual)) == 0;
@@ -0,0 +1,640 @@
+package io.github.nblxa.turntables;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.github.nblxa.turntables.exception.StructureException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Immutable {@link Tab} storing its values column by column: {@code int[]}, {@code long[]} and
+ * {@code double[]} arrays for numbers, bitsets for booleans, dictionary codes for strings,
+ * epoch days for dates and epoch microseconds for timestamps. Nulls are kept in a bitmap
+ * per column.
+ *
+ * <p>Rows and values are lightweight views over the columns and are created on access,
+ * so they are equal to the rows and values of a table with the same contents built
+ * by {@link Turntables#tab()}.
+ *
+ * <p>Use {@link #builder()} to create instances.
+ */
+public final class ColumnarTab extends AbstractTab {
+  private static final int INITIAL_CAPACITY = 16;
+  private static final long MICROS_PER_SECOND = 1_000_000L;
+  private static final int NANOS_PER_MICRO = 1_000;
+
+  private final int size;
+  @NonNull
+  private final Column[] columns;
+  @NonNull
+  private final List<Row> rows;
+
+  private ColumnarTab(@NonNull List<Col> cols, @NonNull Column[] columns, int size) {
+    super(cols);
+    this.columns = columns;
+    this.size = size;
+    this.rows = new RowList();
+  }
+
+  @NonNull
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  @NonNull
+  @Override
+  public List<Row> rows() {
+    return rows;
+  }
+
+  @Override
+  public boolean equals(Object that) {
+    return super.equals(that);
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode();
+  }
+
+  private final class RowList extends AbstractList<Row> implements RandomAccess {
+    @Override
+    public Row get(int index) {
+      if (index < 0 || index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+      }
+      return new ColumnarRow(index);
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+  private final class ColumnarRow extends AbstractRow {
+    private final int index;
+
+    private ColumnarRow(int index) {
+      super(ColumnarTab.this.cols(), false);
+      this.index = index;
+    }
+
+    @NonNull
+    @Override
+    public List<Val> vals() {
+      return new ValList(index);
+    }
+  }
+
+  private final class ValList extends AbstractList<Val> implements RandomAccess {
+    private final int row;
+
+    private ValList(int row) {
+      this.row = row;
+    }
+
+    @Override
+    public Val get(int index) {
+      return columns[index].val(row);
+    }
+
+    @Override
+    public int size() {
+      return columns.length;
+    }
+  }
+
+  /**
+   * Collects the values of a {@link ColumnarTab} row by row. Define the columns first,
+   * then append the values of each row in the order of the columns.
+   */
+  public static final class Builder {
+    @NonNull
+    private final List<Column> columns = new ArrayList<>();
+    private int position;
+    private int size;
+
+    private Builder() {
+    }
+
+    @NonNull
+    public Builder col(@NonNull String name, @NonNull Typ typ) {
+      return addColumn(name, typ, false);
+    }
+
+    @NonNull
+    public Builder key(@NonNull String name, @NonNull Typ typ) {
+      return addColumn(name, typ, true);
+    }
+
+    /**
+     * Appends a value to the current row. The row is complete once a value
+     * has been appended for each column.
+     *
+     * @param value the value or {@code null}
+     * @return this builder
+     * @throws StructureException if the value is not compatible with the column
+     */
+    @NonNull
+    public Builder value(@Nullable Object value) {
+      if (columns.isEmpty()) {
+        throw new IllegalStateException("No columns defined");
+      }
+      try {
+        columns.get(position).add(size, value);
+      } catch (Exception e) {
+        throw new StructureException("Error at position #" + (position + 1), e);
+      }
+      position++;
+      if (position == columns.size()) {
+        position = 0;
+        size++;
+      }
+      return this;
+    }
+
+    @NonNull
+    public Builder row(@NonNull Object... values) {
+      Objects.requireNonNull(values, "values");
+      if (values.length != columns.size()) {
+        throw new StructureException("Expected " + columns.size() + " values but got "
+            + values.length + ".");
+      }
+      for (Object value : values) {
+        value(value);
+      }
+      return this;
+    }
+
+    @NonNull
+    public ColumnarTab build() {
+      if (position != 0) {
+        throw new StructureException("Missing value at position #" + (position + 1));
+      }
+      List<Col> cols = new ArrayList<>(columns.size());
+      Column[] built = new Column[columns.size()];
+      for (int i = 0; i < built.length; i++) {
+        Column column = columns.get(i);
+        column.trim(size);
+        cols.add(new TableUtils.SimpleCol(column.name, column.typ, column.isKey));
+        built[i] = column;
+      }
+      columns.clear();
+      return new ColumnarTab(cols, built, size);
+    }
+
+    @NonNull
+    private Builder addColumn(@NonNull String name, @NonNull Typ typ, boolean isKey) {
+      Objects.requireNonNull(name, "name");
+      Objects.requireNonNull(typ, "typ");
+      if (size > 0 || position > 0) {
+        throw new IllegalStateException("Columns must be defined before the values");
+      }
+      columns.add(newColumn(name, typ, isKey));
+      return this;
+    }
+
+    @NonNull
+    private static Column newColumn(@NonNull String name, @NonNull Typ typ, boolean isKey) {
+      switch (typ) {
+        case BOOLEAN:
+          return new BooleanColumn(name, isKey);
+        case DATE:
+          return new DateColumn(name, isKey);
+        case DATETIME:
+          return new DateTimeColumn(name, isKey);
+        case DOUBLE:
+          return new DoubleColumn(name, isKey);
+        case INTEGER:
+          return new IntColumn(name, isKey);
+        case LONG:
+          return new LongColumn(name, isKey);
+        case STRING:
+          return new StringColumn(name, isKey);
+        default:
+          return new ValColumn(name, typ, isKey);
+      }
+    }
+  }
+
+  /**
+   * Values of one column. Subclasses decide how the values are stored and read them back
+   * as {@link Tab.Val}s.
+   */
+  private abstract static class Column {
+    @NonNull
+    final String name;
+    @NonNull
+    Typ typ;
+    final boolean isKey;
+    int capacity;
+
+    Column(@NonNull String name, @NonNull Typ typ, boolean isKey) {
+      this.name = name;
+      this.typ = typ;
+      this.isKey = isKey;
+    }
+
+    final void add(int row, @Nullable Object o) {
+      if (row == capacity) {
+        capacity = Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1));
+        resize(capacity);
+      }
+      set(row, o);
+    }
+
+    void trim(int size) {
+      capacity = size;
+      resize(size);
+    }
+
+    abstract void set(int row, @Nullable Object o);
+
+    @NonNull
+    abstract Val val(int row);
+
+    abstract void resize(int newCapacity);
+  }
+
+  /**
+   * Values of one column. Subclasses store values of their type's standard Java class
+   * in a primitive representation; any other values are kept as {@link Tab.Val}s.
+   */
+  private abstract static class PrimitiveColumn extends Column {
+    @Nullable
+    private long[] nulls;
+    @Nullable
+    private Map<Integer, Val> others;
+
+    PrimitiveColumn(@NonNull String name, @NonNull Typ typ, boolean isKey) {
+      super(name, typ, isKey);
+    }
+
+    @Override
+    final void set(int row, @Nullable Object o) {
+      if (o == null) {
+        nulls = setBit(nulls, row);
+      } else if (!store(row, o)) {
+        Val val = Utils.getVal(o, typ);
+        if (!(val instanceof TableUtils.SimpleVal) || !store(row, val.evaluate())) {
+          if (others == null) {
+            others = new HashMap<>();
+          }
+          others.put(row, val);
+        }
+      }
+    }
+
+    @NonNull
+    @Override
+    final Val val(int row) {
+      if (getBit(nulls, row)) {
+        return typ.nullVal();
+      }
+      if (others != null) {
+        Val val = others.get(row);
+        if (val != null) {
+          return val;
+        }
+      }
+      return new TableUtils.SimpleVal(typ, get(row));
+    }
+
+    @Override
+    void trim(int size) {
+      super.trim(size);
+      if (nulls != null) {
+        nulls = Arrays.copyOf(nulls, words(size));
+      }
+    }
+
+    /**
+     * @return false if the object cannot be stored in the primitive representation
+     */
+    abstract boolean store(int row, @NonNull Object o);
+
+    @NonNull
+    abstract Object get(int row);
+  }
+
+  private static final class IntColumn extends PrimitiveColumn {
+    @NonNull
+    private int[] values = new int[0];
+
+    IntColumn(@NonNull String name, boolean isKey) {
+      super(name, Typ.INTEGER, isKey);
+    }
+
+    @Override
+    boolean store(int row, @NonNull Object o) {
+      if (o instanceof Integer) {
+        values[row] = (Integer) o;
+        return true;
+      }
+      return false;
+    }
+
+    @NonNull
+    @Override
+    Object get(int row) {
+      return values[row];
+    }
+
+    @Override
+    void resize(int newCapacity) {
+      values = Arrays.copyOf(values, newCapacity);
+    }
+  }
+
+  private static final class LongColumn extends PrimitiveColumn {
+    @NonNull
+    private long[] values = new long[0];
+
+    LongColumn(@NonNull String name, boolean isKey) {
+      super(name, Typ.LONG, isKey);
+    }
+
+    @Override
+    boolean store(int row, @NonNull Object o) {
+      if (o instanceof Long) {
+        values[row] = (Long) o;
+        return true;
+      }
+      return false;
+    }
+
+    @NonNull
+    @Override
+    Object get(int row) {
+      return values[row];
+    }
+
+    @Override
+    void resize(int newCapacity) {
+      values = Arrays.copyOf(values, newCapacity);
+    }
+  }
+
+  private static final class DoubleColumn extends PrimitiveColumn {
+    @NonNull
+    private double[] values = new double[0];
+
+    DoubleColumn(@NonNull String name, boolean isKey) {
+      super(name, Typ.DOUBLE, isKey);
+    }
+
+    @Override
+    boolean store(int row, @NonNull Object o) {
+      if (o instanceof Double) {
+        values[row] = (Double) o;
+        return true;
+      }
+      return false;
+    }
+
+    @NonNull
+    @Override
+    Object get(int row) {
+      return values[row];
+    }
+
+    @Override
+    void resize(int newCapacity) {
+      values = Arrays.copyOf(values, newCapacity);
+    }
+  }
+
+  private static final class BooleanColumn extends PrimitiveColumn {
+    @Nullable
+    private long[] values;
+
+    BooleanColumn(@NonNull String name, boolean isKey) {
+      super(name, Typ.BOOLEAN, isKey);
+    }
+
+    @Override
+    boolean store(int row, @NonNull Object o) {
+      if (o instanceof Boolean) {
+        if ((Boolean) o) {
+          values = setBit(values, row);
+        }
+        return true;
+      }
+      return false;
+    }
+
+    @NonNull
+    @Override
+    Object get(int row) {
+      return getBit(values, row);
+    }
+
+    @Override
+    void resize(int newCapacity) {
+      if (values != null) {
+        values = Arrays.copyOf(values, words(newCapacity));
+      }
+    }
+  }
+
+  /**
+   * Strings encoded as indexes into a dictionary of distinct values.
+   */
+  private static final class StringColumn extends PrimitiveColumn {
+    @NonNull
+    private int[] codes = new int[0];
+    @NonNull
+    private final ArrayList<String> dictionary = new ArrayList<>();
+    @Nullable
+    private Map<String, Integer> codeOf = new HashMap<>();
+
+    StringColumn(@NonNull String name, boolean isKey) {
+      super(name, Typ.STRING, isKey);
+    }
+
+    @Override
+    boolean store(int row, @NonNull Object o) {
+      if (o instanceof String && codeOf != null) {
+        Integer code = codeOf.get(o);
+        if (code == null) {
+          code = dictionary.size();
+          dictionary.add((String) o);
+          codeOf.put((String) o, code);
+        }
+        codes[row] = code;
+        return true;
+      }
+      return false;
+    }
+
+    @NonNull
+    @Override
+    Object get(int row) {
+      return dictionary.get(codes[row]);
+    }
+
+    @Override
+    void resize(int newCapacity) {
+      codes = Arrays.copyOf(codes, newCapacity);
+    }
+
+    @Override
+    void trim(int size) {
+      super.trim(size);
+      dictionary.trimToSize();
+      codeOf = null;
+    }
+  }
+
+  private static final class DateColumn extends PrimitiveColumn {
+    @NonNull
+    private int[] epochDays = new int[0];
+
+    DateColumn(@NonNull String name, boolean isKey) {
+      super(name, Typ.DATE, isKey);
+    }
+
+    @Override
+    boolean store(int row, @NonNull Object o) {
+      if (o instanceof LocalDate) {
+        long epochDay = ((LocalDate) o).toEpochDay();
+        if (epochDay == (int) epochDay) {
+          epochDays[row] = (int) epochDay;
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @NonNull
+    @Override
+    Object get(int row) {
+      return LocalDate.ofEpochDay(epochDays[row]);
+    }
+
+    @Override
+    void resize(int newCapacity) {
+      epochDays = Arrays.copyOf(epochDays, newCapacity);
+    }
+  }
+
+  /**
+   * Timestamps as microseconds since the epoch in UTC. The rare nanosecond remainders
+   * are kept in a separate array, allocated on first use.
+   */
+  private static final class DateTimeColumn extends PrimitiveColumn {
+    private static final long MAX_SECONDS = Long.MAX_VALUE / MICROS_PER_SECOND - 1;
+
+    @NonNull
+    private long[] epochMicros = new long[0];
+    @Nullable
+    private int[] nanosOfMicro;
+
+    DateTimeColumn(@NonNull String name, boolean isKey) {
+      super(name, Typ.DATETIME, isKey);
+    }
+
+    @Override
+    boolean store(int row, @NonNull Object o) {
+      if (o instanceof LocalDateTime) {
+        LocalDateTime dateTime = (LocalDateTime) o;
+        long seconds = dateTime.toEpochSecond(ZoneOffset.UTC);
+        if (Math.abs(seconds) <= MAX_SECONDS) {
+          int nano = dateTime.getNano();
+          epochMicros[row] = seconds * MICROS_PER_SECOND + nano / NANOS_PER_MICRO;
+          if (nano % NANOS_PER_MICRO != 0) {
+            if (nanosOfMicro == null) {
+              nanosOfMicro = new int[epochMicros.length];
+            }
+            nanosOfMicro[row] = nano % NANOS_PER_MICRO;
+          }
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @NonNull
+    @Override
+    Object get(int row) {
+      long micros = epochMicros[row];
+      int nano = (int) Math.floorMod(micros, MICROS_PER_SECOND) * NANOS_PER_MICRO;
+      if (nanosOfMicro != null) {
+        nano += nanosOfMicro[row];
+      }
+      return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, MICROS_PER_SECOND), nano,
+          ZoneOffset.UTC);
+    }
+
+    @Override
+    void resize(int newCapacity) {
+      epochMicros = Arrays.copyOf(epochMicros, newCapacity);
+      if (nanosOfMicro != null) {
+        nanosOfMicro = Arrays.copyOf(nanosOfMicro, newCapacity);
+      }
+    }
+  }
+
+  /**
+   * Values without a primitive representation, such as decimals. A column of
+   * {@link Typ#ANY} takes the type of its first non-null value.
+   */
+  private static final class ValColumn extends Column {
+    @NonNull
+    private Val[] vals = new Val[0];
+
+    ValColumn(@NonNull String name, @NonNull Typ typ, boolean isKey) {
+      super(name, typ, isKey);
+    }
+
+    @Override
+    void set(int row, @Nullable Object o) {
+      Val val = o != null ? Utils.getVal(o, typ) : typ.nullVal();
+      if (typ == Typ.ANY && val.typ() != Typ.ANY) {
+        typ = val.typ();
+      }
+      vals[row] = val;
+    }
+
+    @NonNull
+    @Override
+    Val val(int row) {
+      return vals[row];
+    }
+
+    @Override
+    void resize(int newCapacity) {
+      vals = Arrays.copyOf(vals, newCapacity);
+    }
+  }
+
+  private static int words(int bits) {
+    return (bits + Long.SIZE - 1) / Long.SIZE;
+  }
+
+  @NonNull
+  private static long[] setBit(@Nullable long[] bits, int i) {
+    int word = i / Long.SIZE;
+    long[] result = bits == null ? new long[word + 1] : bits;
+    if (word >= result.length) {
+      result = Arrays.copyOf(result, Math.max(word + 1, result.length * 2));
+    }
+    result[word] |= 1L << i;
+    return result;
+  }
+
+  private static boolean getBit(@Nullable long[] bits, int i) {
+    int word = i / Long.SIZE;
+    return bits != null && word < bits.length && (bits[word] & (1L << i)) != 0;
+  }
+}
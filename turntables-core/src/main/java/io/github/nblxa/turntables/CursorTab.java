@@ -0,0 +1,207 @@
+package io.github.nblxa.turntables;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.github.nblxa.turntables.exception.StructureException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * {@link Tab} reading its rows lazily from an open cursor, such as a {@link java.sql.ResultSet}.
+ *
+ * <p>The rows can be consumed only once, either one by one with {@link #rowIterator()},
+ * which keeps no rows in memory, or all at once with {@link #rows()}. Assertions matching
+ * rows in the given order or by key use {@link #rowIterator()}, so the memory they need
+ * is proportional to the expected table and the mismatching rows rather than to the whole
+ * actual table.
+ *
+ * <p>The cursor is closed when it is exhausted or when {@link #close()} is called.
+ */
+public final class CursorTab extends AbstractTab implements AutoCloseable {
+  @NonNull
+  private final Cursor cursor;
+  private boolean consumed;
+  @Nullable
+  private List<Row> rows;
+
+  private CursorTab(@NonNull List<Col> cols, @NonNull Cursor cursor) {
+    super(cols);
+    this.cursor = cursor;
+  }
+
+  @NonNull
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Reads all remaining rows from the cursor and keeps them in memory.
+   *
+   * @throws IllegalStateException if the rows have already been consumed
+   *     with {@link #rowIterator()}
+   */
+  @NonNull
+  @Override
+  public List<Row> rows() {
+    if (rows == null) {
+      List<Row> list = new ArrayList<>();
+      rowIterator().forEachRemaining(list::add);
+      rows = Collections.unmodifiableList(list);
+    }
+    return rows;
+  }
+
+  /**
+   * Iterates the rows without keeping them in memory.
+   *
+   * @throws IllegalStateException if the rows have already been consumed
+   */
+  @NonNull
+  public Iterator<Row> rowIterator() {
+    if (rows != null) {
+      return rows.iterator();
+    }
+    if (consumed) {
+      throw new IllegalStateException("The rows of the cursor have already been consumed");
+    }
+    consumed = true;
+    return new RowIterator();
+  }
+
+  @Override
+  public void close() {
+    cursor.close();
+  }
+
+  @Override
+  public boolean equals(Object that) {
+    return super.equals(that);
+  }
+
+  @Override
+  public int hashCode() {
+    return super.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    if (rows != null) {
+      return super.toString();
+    }
+    return String.format("CursorTab[cols=%s]", cols());
+  }
+
+  private final class RowIterator implements Iterator<Row> {
+    @NonNull
+    private final Object[] values = new Object[cols().size()];
+    @Nullable
+    private Row next;
+    private boolean exhausted;
+
+    @Override
+    public boolean hasNext() {
+      if (next == null && !exhausted) {
+        if (cursor.next(values)) {
+          next = newRow();
+        } else {
+          exhausted = true;
+          cursor.close();
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public Row next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Row row = next;
+      next = null;
+      return row;
+    }
+
+    @NonNull
+    private Row newRow() {
+      List<Col> cols = cols();
+      Val[] vals = new Val[values.length];
+      for (int i = 0; i < vals.length; i++) {
+        Object o = values[i];
+        Typ typ = cols.get(i).typ();
+        try {
+          vals[i] = o != null ? Utils.getVal(o, typ) : typ.nullVal();
+        } catch (Exception e) {
+          throw new StructureException("Error at position #" + (i + 1), e);
+        }
+        values[i] = null;
+      }
+      return new CursorRow(cols, Collections.unmodifiableList(Arrays.asList(vals)));
+    }
+  }
+
+  private static final class CursorRow extends AbstractRow {
+    @NonNull
+    private final List<Val> vals;
+
+    private CursorRow(@NonNull List<Col> cols, @NonNull List<Val> vals) {
+      super(cols, false);
+      this.vals = vals;
+    }
+
+    @NonNull
+    @Override
+    public List<Val> vals() {
+      return vals;
+    }
+  }
+
+  /**
+   * Forward-only source of the rows of a {@link CursorTab}.
+   */
+  public interface Cursor extends AutoCloseable {
+    /**
+     * Advances to the next row and reads its values.
+     *
+     * @param values the array to fill with the values of the row, one per column
+     * @return false if there are no more rows
+     */
+    boolean next(@NonNull Object[] values);
+
+    @Override
+    void close();
+  }
+
+  public static final class Builder {
+    @NonNull
+    private final List<Col> cols = new ArrayList<>();
+
+    private Builder() {
+    }
+
+    @NonNull
+    public Builder col(@NonNull String name, @NonNull Typ typ) {
+      Objects.requireNonNull(name, "name");
+      Objects.requireNonNull(typ, "typ");
+      cols.add(new TableUtils.SimpleCol(name, typ, false));
+      return this;
+    }
+
+    @NonNull
+    public Builder key(@NonNull String name, @NonNull Typ typ) {
+      Objects.requireNonNull(name, "name");
+      Objects.requireNonNull(typ, "typ");
+      cols.add(new TableUtils.SimpleCol(name, typ, true));
+      return this;
+    }
+
+    @NonNull
+    public CursorTab build(@NonNull Cursor cursor) {
+      return new CursorTab(cols, Objects.requireNonNull(cursor, "cursor"));
+    }
+  }
+}
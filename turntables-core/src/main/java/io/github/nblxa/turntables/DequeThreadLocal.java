@@ -16,6 +16,15 @@ public abstract class DequeThreadLocal<T> extends InheritableThreadLocal<Deque<T
     return s;
   }
 
+  /**
+   * Gives a child thread its own copy of the parent's deque, so that the values the threads
+   * put and roll back do not interfere.
+   */
+  @Override
+  protected Deque<T> childValue(Deque<T> parentValue) {
+    return new ArrayDeque<>(parentValue);
+  }
+
   public Transaction putValue(@NonNull T settings) {
     get().push(settings);
     return this::rollbackValue;
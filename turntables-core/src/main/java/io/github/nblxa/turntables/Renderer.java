@@ -1,5 +1,8 @@
 package io.github.nblxa.turntables;
 
+import java.io.IOException;
+import java.util.function.IntFunction;
+
 /**
  * Creates a textual representation of a {@link Tab} by rendering it as {@link String}.
  */
@@ -17,6 +20,38 @@ public interface Renderer {
    */
   String renderTab(Tab tab, int indent);
 
+  /**
+   * Render a {@link Tab} into an {@link Appendable} such as a {@link java.io.Writer}.
+   *
+   * <p>By default, the table is rendered as {@link String} first. Implementations can write
+   * the text incrementally instead, so that it does not have to be held in memory.
+   *
+   * @param tab table
+   * @param indent the initial level of indentation
+   * @param out the destination of the rendered text
+   * @throws IOException if writing to {@code out} fails
+   */
+  default void renderTab(Tab tab, int indent, Appendable out) throws IOException {
+    out.append(renderTab(tab, indent));
+  }
+
+  /**
+   * Render a {@link Tab} as {@link String} with comments between the rows, stopping
+   * before the first row that would begin after {@code maxLength} characters.
+   *
+   * <p>By default, the comments and the length are ignored.
+   *
+   * @param tab table
+   * @param indent the initial level of indentation
+   * @param comments the comment before the row with the given index or {@code null};
+   *     the index equal to the number of rows stands for the end of the table
+   * @param maxLength the length of the text after which no more rows are rendered
+   * @return the rendered table as String
+   */
+  default String renderTab(Tab tab, int indent, IntFunction<String> comments, int maxLength) {
+    return renderTab(tab, indent);
+  }
+
   /**
    * Render a {@link Tab.Row} as {@link String}.
    *
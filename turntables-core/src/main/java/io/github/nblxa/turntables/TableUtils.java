@@ -25,7 +25,7 @@ public final class TableUtils {
     }
   }
 
-  static final class SimpleVal extends AbstractTab.AbstractVal {
+  public static final class SimpleVal extends AbstractTab.AbstractVal {
     @NonNull
     private final Typ typ;
     @NonNull
@@ -37,9 +37,18 @@ import java.util.function.Predicate;
 public final class Turntables {
   /**
    * Maximum number of list permutations for matching actual and expected rows in any order,
-   * if expected rows contain Matchers.
+   * if expected rows contain Matchers. Each augmenting phase of the row matching counts as
+   * one permutation.
    */
   public static final long ROW_PERMUTATION_LIMIT = 10_000L;
+  /**
+   * Maximum number of row pairs to show in a diff of a failed assertion.
+   */
+  public static final int DIFF_MAX_ROWS = 1_000;
+  /**
+   * Maximum number of characters of each table's representation in a diff of a failed assertion.
+   */
+  public static final int DIFF_MAX_CHARS = 1_000_000;
   private static final Object[] ARRAY_WITH_NULL = new Object[]{null};
   private static final SettingsThreadLocal SETTINGS_THREAD_LOCAL = new SettingsThreadLocal();
 
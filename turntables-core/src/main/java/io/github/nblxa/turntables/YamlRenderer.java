@@ -1,20 +1,30 @@
 package io.github.nblxa.turntables;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
-import java.util.ArrayList;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.function.IntFunction;
 
+/**
+ * Renders tables as YAML.
+ *
+ * <p>The text is written incrementally, so a table can be rendered into a file or a stream
+ * with {@link #renderTab(Tab, int, Appendable)} without holding the whole text in memory.
+ * The column names of a row are padded and escaped once for all rows with the same columns.
+ */
 public final class YamlRenderer implements Renderer {
   @NonNull
   public static final Renderer DEFAULT_SIMPLE = new YamlRenderer(false, "Table");
   @NonNull
   public static final Renderer DEFAULT_EXTENDED = new YamlRenderer(true, "Table");
   @NonNull
-  private static final YamlRenderer COLS_DETAIL = new YamlRenderer(false, "cols");
-  @NonNull
   private static final String LS = System.lineSeparator();
+  private static final String COLS_TITLE = "cols:";
+  private static final String[] COLS_DETAIL_NAMES = {"name", "type", "key"};
+  private static final IntFunction<String> NO_COMMENTS = i -> null;
 
   private final boolean extended;
   @NonNull
@@ -30,46 +40,96 @@ public final class YamlRenderer implements Renderer {
   public String renderTab(@NonNull Tab tab, int indent) {
     Objects.requireNonNull(tab, "tab");
     StringBuilder sb = new StringBuilder();
-    renderTab(sb, tab, indent);
+    try {
+      renderTab(new CountingAppendable(sb), tab, indent, NO_COMMENTS, Long.MAX_VALUE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
     return sb.toString();
   }
 
-  private void renderTab(@NonNull StringBuilder sb, @NonNull Tab tab, int indent) {
-    sb.append(title);
-    sb.append(":");
-    renderCols(sb, tab.cols(), indent);
-    renderRows(sb, tab.rows(), indent);
+  /**
+   * Renders the comments as YAML comments indented like the rows. A comment can span
+   * several lines separated by {@code '\n'}.
+   */
+  @Override
+  @NonNull
+  public String renderTab(@NonNull Tab tab, int indent, @NonNull IntFunction<String> comments,
+                          int maxLength) {
+    Objects.requireNonNull(tab, "tab");
+    Objects.requireNonNull(comments, "comments");
+    StringBuilder sb = new StringBuilder();
+    try {
+      renderTab(new CountingAppendable(sb), tab, indent, comments, maxLength);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return sb.toString();
   }
 
-  void renderCols(@NonNull StringBuilder sb, @NonNull List<Tab.Col> cols, int indent) {
-    if (extended) {
-      TableUtils.RowAdderTable colsTab = new TableUtils.ColAdderTable()
-          .col("name", Typ.STRING)
-          .col("type", Typ.STRING)
-          .col("key", Typ.BOOLEAN)
-          .rowAdder();
-      for (Tab.Col col: cols) {
-        colsTab.row(col.name(), col.typ().toString(), col.isKey());
-      }
-      sb.append(LS);
-      spaces(sb, indent + 2);
-      COLS_DETAIL.renderTab(sb, colsTab, indent + 2);
-    }
+  @Override
+  public void renderTab(@NonNull Tab tab, int indent, @NonNull Appendable out)
+      throws IOException {
+    Objects.requireNonNull(tab, "tab");
+    Objects.requireNonNull(out, "out");
+    renderTab(new CountingAppendable(out), tab, indent, NO_COMMENTS, Long.MAX_VALUE);
   }
 
-  void renderRows(@NonNull StringBuilder sb, @NonNull List<Tab.Row> rows, int indent) {
-    int rowIndent = 4;
+  private void renderTab(@NonNull CountingAppendable out, @NonNull Tab tab, int indent,
+                         @NonNull IntFunction<String> comments, long maxLength)
+      throws IOException {
+    out.append(title);
+    out.append(':');
+    if (extended) {
+      renderCols(out, tab.cols(), indent);
+    }
+    List<Tab.Row> rows = tab.rows();
+    int rowIndent = indent + 4;
     if (extended) {
-      sb.append(LS);
-      spaces(sb, indent + 2);
-      sb.append("rows:");
+      out.append(LS);
+      spaces(out, indent + 2);
+      out.append("rows:");
       rowIndent += 2;
     }
     if (rows.isEmpty()) {
-      sb.append(" null");
+      out.append(" null");
     }
-    for (Tab.Row row: rows) {
-      renderRow(sb, row, indent + rowIndent);
+    RowFormat format = null;
+    int i = 0;
+    for (; i < rows.size() && out.length < maxLength; i++) {
+      Tab.Row row = rows.get(i);
+      if (format == null || !format.appliesTo(row.cols())) {
+        format = new RowFormat(row.cols(), rowIndent);
+      }
+      renderComment(out, comments.apply(i), rowIndent);
+      format.render(out, row.vals());
+    }
+    if (i < rows.size()) {
+      int more = rows.size() - i;
+      renderComment(out, more + (more == 1 ? " more row" : " more rows") + " not shown",
+          rowIndent);
+    } else {
+      renderComment(out, comments.apply(i), rowIndent);
+    }
+  }
+
+  /**
+   * Renders the name, type and key flag of each column like the rows of a table titled "cols".
+   */
+  private static void renderCols(@NonNull Appendable out, @NonNull List<Tab.Col> cols,
+                                 int indent) throws IOException {
+    out.append(LS);
+    spaces(out, indent + 2);
+    out.append(COLS_TITLE);
+    if (cols.isEmpty()) {
+      out.append(" null");
+      return;
+    }
+    String[] prefixes = prefixes(COLS_DETAIL_NAMES, indent + 6);
+    for (Tab.Col col : cols) {
+      out.append(prefixes[0]).append(StringUtils.escape(col.name()));
+      out.append(prefixes[1]).append(StringUtils.escape(col.typ().toString()));
+      out.append(prefixes[2]).append(String.valueOf(col.isKey()));
     }
   }
 
@@ -79,31 +139,12 @@ public final class YamlRenderer implements Renderer {
     Objects.requireNonNull(row, "row");
     StringBuilder sb = new StringBuilder();
     sb.append("Row:");
-    renderRow(sb, row, indent + 4);
-    return sb.toString();
-  }
-
-  private void renderRow(@NonNull StringBuilder sb, @NonNull Tab.Row row, int indent) {
-    List<Tab.Val> vals = row.vals();
-    List<String> paddedColNames = rightPaddedColNames(row.cols());
-    if (vals.size() != paddedColNames.size()) {
-      throw new IllegalStateException();
-    }
-    if (!vals.isEmpty()) {
-      String itemSpaces = spaces(indent + 2);
-      for (int i = 0; i < vals.size(); i++) {
-        sb.append(LS);
-        if (i == 0) {
-          sb.append(spaces(indent));
-          sb.append("- ");
-        } else {
-          sb.append(itemSpaces);
-        }
-        sb.append(paddedColNames.get(i));
-        sb.append(": ");
-        sb.append(vals.get(i).toString());
-      }
+    try {
+      new RowFormat(row.cols(), indent + 4).render(sb, row.vals());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
     }
+    return sb.toString();
   }
 
   @Override
@@ -116,22 +157,50 @@ public final class YamlRenderer implements Renderer {
     }
   }
 
+  private static void renderComment(@NonNull Appendable out, @Nullable String comment,
+                                    int indent) throws IOException {
+    if (comment == null) {
+      return;
+    }
+    for (String line : comment.split("\\n", -1)) {
+      out.append(LS);
+      spaces(out, indent);
+      out.append("# ");
+      out.append(line);
+    }
+  }
+
+  /**
+   * @return for each name, the line break, the indentation, the right-padded name
+   *     and the separator preceding the value, the first one starting a list item
+   */
   @NonNull
-  private List<String> rightPaddedColNames(@NonNull List<Tab.Col> cols) {
+  private static String[] prefixes(@NonNull String[] names, int indent) {
     int maxLength = 0;
-    List<String> colNames = new ArrayList<>();
-    for (Tab.Col col : cols) {
-      String colName = col.name();
-      String colEscaped = StringUtils.escape(colName);
-      if (colEscaped.length() > maxLength) {
-        maxLength = colEscaped.length();
+    for (String name : names) {
+      maxLength = Math.max(maxLength, name.length());
+    }
+    String[] prefixes = new String[names.length];
+    for (int i = 0; i < names.length; i++) {
+      StringBuilder sb = new StringBuilder(LS);
+      if (i == 0) {
+        spaces(sb, indent);
+        sb.append("- ");
+      } else {
+        spaces(sb, indent + 2);
       }
-      colNames.add(colEscaped);
+      sb.append(names[i]);
+      spaces(sb, maxLength + 1 - names[i].length());
+      sb.append(": ");
+      prefixes[i] = sb.toString();
+    }
+    return prefixes;
+  }
+
+  private static void spaces(@NonNull Appendable out, int indent) throws IOException {
+    for (int i = 0; i < indent; i++) {
+      out.append(' ');
     }
-    final int finalMaxLength = maxLength;
-    return colNames.stream()
-        .map(c -> c + spaces(finalMaxLength + 1 - c.length()))
-        .collect(Collectors.toList());
   }
 
   private static void spaces(@NonNull StringBuilder sb, int indent) {
@@ -140,15 +209,73 @@ public final class YamlRenderer implements Renderer {
     }
   }
 
-  @NonNull
-  private static String spaces(int indent) {
-    if (indent == 0) {
-      return "";
+  /**
+   * Renders the values of rows with the given columns, reused for consecutive rows
+   * with the same columns.
+   */
+  private static final class RowFormat {
+    @NonNull
+    private final List<Tab.Col> cols;
+    @NonNull
+    private final String[] prefixes;
+
+    private RowFormat(@NonNull List<Tab.Col> cols, int indent) {
+      this.cols = cols;
+      String[] names = new String[cols.size()];
+      for (int i = 0; i < names.length; i++) {
+        names[i] = StringUtils.escape(cols.get(i).name());
+      }
+      this.prefixes = prefixes(names, indent);
     }
-    StringBuilder sb = new StringBuilder();
-    for (int i = 0; i < indent; i++) {
-      sb.append(' ');
+
+    private boolean appliesTo(@NonNull List<Tab.Col> rowCols) {
+      return rowCols == cols || rowCols.equals(cols);
+    }
+
+    private void render(@NonNull Appendable out, @NonNull List<Tab.Val> vals)
+        throws IOException {
+      if (vals.size() != prefixes.length) {
+        throw new IllegalStateException();
+      }
+      for (int i = 0; i < prefixes.length; i++) {
+        out.append(prefixes[i]);
+        out.append(vals.get(i).toString());
+      }
+    }
+  }
+
+  /**
+   * Counts the characters appended so far.
+   */
+  private static final class CountingAppendable implements Appendable {
+    @NonNull
+    private final Appendable out;
+    private long length;
+
+    private CountingAppendable(@NonNull Appendable out) {
+      this.out = out;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq) throws IOException {
+      CharSequence s = String.valueOf(csq);
+      out.append(s);
+      length += s.length();
+      return this;
+    }
+
+    @Override
+    public Appendable append(CharSequence csq, int start, int end) throws IOException {
+      out.append(String.valueOf(csq), start, end);
+      length += end - start;
+      return this;
+    }
+
+    @Override
+    public Appendable append(char c) throws IOException {
+      out.append(c);
+      length++;
+      return this;
     }
-    return sb.toString();
   }
 }
@@ -1,5 +1,6 @@
 package io.github.nblxa.turntables.assertion;
 
+import io.github.nblxa.turntables.AbstractTab;
 import io.github.nblxa.turntables.Tab;
 import edu.umd.cs.findbugs.annotations.NonNull;
 
@@ -8,4 +9,8 @@ public abstract class AbstractMatchingValAsserter implements ValAsserter {
   public boolean matchVals(@NonNull Tab.Val expected, @NonNull Tab.Val actual) {
     return expected.matchesActual(actual);
   }
+
+  static int hashVal(@NonNull Tab.Val val) {
+    return AbstractTab.AbstractVal.matchingHashCode(val.evaluate());
+  }
 }
@@ -1,6 +1,8 @@
 package io.github.nblxa.turntables.assertion;
 
+import io.github.nblxa.turntables.CursorTab;
 import io.github.nblxa.turntables.Settings;
+import io.github.nblxa.turntables.Tab;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import java.util.Objects;
 
@@ -12,14 +14,18 @@ class Asserter {
   @NonNull
   private final ColAsserter colAsserter;
   @NonNull
+  private final ValAsserter valAsserter;
+  @NonNull
   private AssertionResult assertionResult;
+  private RowDiff rowDiff;
 
 
   private Asserter(@NonNull AssertionProxy.Conf conf, @NonNull RowAsserter rowAsserter,
-                   @NonNull ColAsserter colAsserter) {
+                   @NonNull ColAsserter colAsserter, @NonNull ValAsserter valAsserter) {
     this.conf = conf;
     this.rowAsserter = rowAsserter;
     this.colAsserter = colAsserter;
+    this.valAsserter = valAsserter;
     this.assertionResult = AssertionResult.NOT_YET_ASSERTED;
   }
 
@@ -28,7 +34,7 @@ class Asserter {
     ColAsserter colAsserter = createColAsserter(conf);
     ValAsserter valAsserter = createValAsserter(conf);
     RowAsserter rowAsserter = createRowAsserter(conf, valAsserter);
-    return new Asserter(conf, rowAsserter, colAsserter);
+    return new Asserter(conf, rowAsserter, colAsserter, valAsserter);
   }
 
   private static RowAsserter createRowAsserter(@NonNull AssertionProxy.Conf conf,
@@ -36,20 +42,31 @@ class Asserter {
     switch (conf.settings.rowMode) {
       case AUTO:
       case MATCH_IN_GIVEN_ORDER:
-        return new OrderedRowAsserter(conf.expected.rows(), conf.actual.rows(),
+        return new OrderedRowAsserter(conf.expected.rows(), streamRows(conf.actual),
             valAsserter);
       case MATCH_IN_ANY_ORDER:
         return new UnorderedRowAsserter(conf.expected.rows(), conf.actual.rows(),
-            conf.rowPermutationLimit, valAsserter);
+            conf.rowPermutationLimit, valAsserter, conf.executor);
       case MATCH_BY_KEY:
-        return new KeyBasedRowAsserter(conf.expected.rows(), conf.actual.rows(),
+        return new KeyBasedRowAsserter(conf.expected.rows(), streamRows(conf.actual),
             conf.expected.cols(), conf.actual.cols(), conf.rowPermutationLimit,
-            valAsserter);
+            conf.mismatchingKeyLimit, valAsserter, conf.executor);
       default:
         throw new UnsupportedOperationException();
     }
   }
 
+  /**
+   * The rows of a {@link CursorTab} are consumed one by one without reading them all first.
+   */
+  @NonNull
+  private static Iterable<Tab.Row> streamRows(@NonNull Tab tab) {
+    if (tab instanceof CursorTab) {
+      return ((CursorTab) tab)::rowIterator;
+    }
+    return tab.rows();
+  }
+
   private static ColAsserter createColAsserter(@NonNull AssertionProxy.Conf conf) {
     final ColAsserter colAsserter;
     switch (conf.settings.colMode) {
@@ -102,6 +119,20 @@ class Asserter {
     return assertionResult;
   }
 
+  /**
+   * Rows are only compared if the columns match, otherwise all row pairs are in the diff.
+   */
+  @NonNull
+  RowDiff getOrCalculateRowDiff() {
+    if (rowDiff == null) {
+      boolean colsMatch = getOrCalculateResult().colsMatched() == AssertionResult.MatchResult.MATCH;
+      rowDiff = RowDiff.of(rowAsserter.getRowPairs(),
+          (e, a) -> colsMatch && valAsserter.match(e.vals(), a.vals()),
+          conf.diffContextRows, conf.diffMaxRows);
+    }
+    return rowDiff;
+  }
+
   @NonNull
   RowAsserter getRowAsserter() {
     return rowAsserter;
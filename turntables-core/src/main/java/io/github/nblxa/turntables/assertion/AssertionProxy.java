@@ -8,8 +8,12 @@ import io.github.nblxa.turntables.Settings;
 import io.github.nblxa.turntables.Turntables;
 import io.github.nblxa.turntables.Tab;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 public abstract class AssertionProxy extends AbstractTab {
 
@@ -29,6 +33,14 @@ public abstract class AssertionProxy extends AbstractTab {
   @NonNull
   public abstract String representation();
 
+  /**
+   * Write the representation of all rows of the {@link Tab}, even if the assertion
+   * is represented by a diff, without holding the whole text in memory.
+   * @param out the destination of the representation
+   * @throws IOException if writing to {@code out} fails
+   */
+  public abstract void writeRepresentation(@NonNull Appendable out) throws IOException;
+
   @Override
   @NonNull
   public List<Row> rows() {
@@ -56,6 +68,9 @@ public abstract class AssertionProxy extends AbstractTab {
     /**
      * Specify the maximum number of row sequence permutations to check for
      * when matching rows in any order.
+     * <p>Rows containing assertions are paired by a maximum bipartite matching, each augmenting
+     * phase of which counts as one permutation. The number of phases grows with the square root
+     * of the number of rows, so the limit is only a safeguard.
      * <p>Default is 10,000.
      * @param rowPermutationLimit maximum number of row permutations to try to match
      * @return the assertion object
@@ -63,6 +78,66 @@ public abstract class AssertionProxy extends AbstractTab {
     @NonNull
     S rowPermutationLimit(long rowPermutationLimit);
 
+    /**
+     * Specify the maximum number of mismatching keys to report when matching rows by key.
+     * <p>If set, only the rows with mismatching keys are reported, and the actual rows
+     * with matching keys are not retained, so that a large actual table can be checked
+     * against a small expected table.
+     * <p>Default is 0, which means that all rows are reported.
+     * @param mismatchingKeyLimit maximum number of mismatching keys to report
+     * @return the assertion object
+     */
+    @NonNull
+    S mismatchingKeyLimit(int mismatchingKeyLimit);
+
+    /**
+     * Match the rows on the threads of the common {@link ForkJoinPool}.
+     * @return the assertion object
+     * @see #parallel(Executor)
+     */
+    @NonNull
+    S parallel();
+
+    /**
+     * Match the rows on the threads of the given executor.
+     * <p>When matching in any order, the rows are split into shards by their hashes,
+     * and the shards are matched independently. When matching by key, the keys are matched
+     * independently, and all threads stop at the first mismatching key. The rows are paired
+     * in the same way as when matching on a single thread, so the assertion result
+     * and the reported differences do not change.
+     * <p>By default, the rows are matched on the calling thread.
+     * @param executor the executor running the shards
+     * @return the assertion object
+     */
+    @NonNull
+    S parallel(@NonNull Executor executor);
+
+    /**
+     * Represent a failed assertion by a diff: only the mismatching rows are shown
+     * with the given number of matching rows before and after each of them.
+     * <p>The representations start with a comment counting the matching, differing, missing
+     * and unexpected rows, and comments in place of the matching rows left out. The diff
+     * is also limited in size, see {@link #diffLimits(int, int)}.
+     * <p>By default, all rows are shown.
+     * @param contextRows number of matching rows to show around each mismatching row
+     * @return the assertion object
+     */
+    @NonNull
+    S diff(int contextRows);
+
+    /**
+     * Specify the maximum size of a diff of a failed assertion.
+     * <p>The rows beyond the limits are replaced by a comment saying how many were left out.
+     * <p>Defaults are {@link Turntables#DIFF_MAX_ROWS} and {@link Turntables#DIFF_MAX_CHARS}.
+     * @param maxRows maximum number of row pairs to show
+     * @param maxChars maximum number of characters of each table's representation,
+     *     after which no more rows are shown
+     * @return the assertion object
+     * @see #diff(int)
+     */
+    @NonNull
+    S diffLimits(int maxRows, int maxChars);
+
     /**
      * Specify a non-default {@link Settings} to use for the assertion.
      *
@@ -84,6 +159,12 @@ public abstract class AssertionProxy extends AbstractTab {
     private Tab expected;
     private Tab actual;
     private long rowPermutationLimit = Turntables.ROW_PERMUTATION_LIMIT;
+    private int mismatchingKeyLimit = 0;
+    @Nullable
+    private Executor executor;
+    private int diffContextRows = Conf.NO_DIFF;
+    private int diffMaxRows = Turntables.DIFF_MAX_ROWS;
+    private int diffMaxChars = Turntables.DIFF_MAX_CHARS;
     private Settings settings = Turntables.getSettings();
 
     // built state
@@ -115,6 +196,53 @@ public abstract class AssertionProxy extends AbstractTab {
       return this;
     }
 
+    @Override
+    @NonNull
+    public Builder mismatchingKeyLimit(int mismatchingKeyLimit) {
+      if (mismatchingKeyLimit < 0) {
+        throw new IllegalArgumentException("mismatchingKeyLimit must be >= 0");
+      }
+      this.mismatchingKeyLimit = mismatchingKeyLimit;
+      return this;
+    }
+
+    @Override
+    @NonNull
+    public Builder parallel() {
+      return parallel(ForkJoinPool.commonPool());
+    }
+
+    @Override
+    @NonNull
+    public Builder parallel(@NonNull Executor executor) {
+      this.executor = Objects.requireNonNull(executor, "executor");
+      return this;
+    }
+
+    @Override
+    @NonNull
+    public Builder diff(int contextRows) {
+      if (contextRows < 0) {
+        throw new IllegalArgumentException("contextRows must be >= 0");
+      }
+      this.diffContextRows = contextRows;
+      return this;
+    }
+
+    @Override
+    @NonNull
+    public Builder diffLimits(int maxRows, int maxChars) {
+      if (maxRows <= 0) {
+        throw new IllegalArgumentException("maxRows must be > 0");
+      }
+      if (maxChars <= 0) {
+        throw new IllegalArgumentException("maxChars must be > 0");
+      }
+      this.diffMaxRows = maxRows;
+      this.diffMaxChars = maxChars;
+      return this;
+    }
+
     @NonNull
     @Override
     public Builder settings(@Nullable Settings settings) {
@@ -183,6 +311,11 @@ public abstract class AssertionProxy extends AbstractTab {
       builder.actual = actual;
       builder.expected = expected;
       builder.rowPermutationLimit = rowPermutationLimit;
+      builder.mismatchingKeyLimit = mismatchingKeyLimit;
+      builder.executor = executor;
+      builder.diffContextRows = diffContextRows;
+      builder.diffMaxRows = diffMaxRows;
+      builder.diffMaxChars = diffMaxChars;
       builder.settings = settings;
       return builder;
     }
@@ -192,8 +325,17 @@ public abstract class AssertionProxy extends AbstractTab {
       return settings;
     }
 
+    /**
+     * @return whether a failed assertion is represented by a diff
+     * @see #diff(int)
+     */
+    public boolean isDiff() {
+      return diffContextRows != Conf.NO_DIFF;
+    }
+
     private void buildProxies() {
-      Conf conf = new Conf(expected, actual, rowPermutationLimit, settings);
+      Conf conf = new Conf(expected, actual, rowPermutationLimit, mismatchingKeyLimit, executor,
+          diffContextRows, diffMaxRows, diffMaxChars, settings);
       Asserter asserter = Asserter.createAsserter(conf);
       this.expectedProxy = new Expected(expected, asserter);
       this.actualProxy = new Actual(actual, asserter);
@@ -201,23 +343,49 @@ public abstract class AssertionProxy extends AbstractTab {
   }
 
   public static class Conf {
+    static final int NO_DIFF = -1;
+
     public final Tab expected;
     public final Tab actual;
     final long rowPermutationLimit;
+    final int mismatchingKeyLimit;
+    /**
+     * The executor matching the rows in parallel or {@code null} to match them sequentially.
+     */
+    @Nullable
+    final Executor executor;
+    /**
+     * The number of matching rows to show around each mismatching row of a diff,
+     * or {@link #NO_DIFF} to show all rows.
+     */
+    final int diffContextRows;
+    final int diffMaxRows;
+    final int diffMaxChars;
     final Settings settings;
 
-    Conf(Tab expected, Tab actual, long rowPermutationLimit, Settings settings) {
+    Conf(Tab expected, Tab actual, long rowPermutationLimit, int mismatchingKeyLimit,
+         @Nullable Executor executor, int diffContextRows, int diffMaxRows, int diffMaxChars,
+         Settings settings) {
       this.expected = Objects.requireNonNull(expected, "expected");
       this.actual = Objects.requireNonNull(actual, "actual");
       this.rowPermutationLimit = rowPermutationLimit;
+      this.mismatchingKeyLimit = mismatchingKeyLimit;
+      this.executor = executor;
+      this.diffContextRows = diffContextRows;
+      this.diffMaxRows = diffMaxRows;
+      this.diffMaxChars = diffMaxChars;
       this.settings = Objects.requireNonNull(settings, "settings");
     }
 
+    boolean isDiff() {
+      return diffContextRows != NO_DIFF;
+    }
+
     @NonNull
     @Override
     public String toString() {
-      return String.format("Conf[rowPermutationLimit=%s, settings=%s]",
-          rowPermutationLimit, settings);
+      return String.format("Conf[rowPermutationLimit=%s, mismatchingKeyLimit=%s, settings=%s]",
+          rowPermutationLimit, mismatchingKeyLimit, settings);
     }
   }
 
@@ -229,12 +397,22 @@ public abstract class AssertionProxy extends AbstractTab {
     @NonNull
     @Override
     public String representation() {
-      Prism rowOrderExp = RowPrismFactory.createFromExpected(asserter, tab);
-      Prism rowOrderAct = RowPrismFactory.createFromActual(asserter, asserter.getConf().actual);
+      return render(asserter.getConf().isDiff()).representation();
+    }
+
+    @Override
+    public void writeRepresentation(@NonNull Appendable out) throws IOException {
+      render(false).writeTo(Objects.requireNonNull(out, "out"));
+    }
+
+    @NonNull
+    private RenderPrism render(boolean diff) {
+      Prism rowOrderExp = RowPrismFactory.createFromExpected(asserter, tab, diff);
+      Prism rowOrderAct = RowPrismFactory.createFromActual(asserter, asserter.getConf().actual,
+          diff);
       Prism colNameRowOrdExp = ColPrismFactory.createFromExpected(asserter, rowOrderExp, rowOrderAct);
       Prism assertValExp = AssertionValPrism.createFromExpected(colNameRowOrdExp, rowOrderAct);
-      Prism render = RenderPrism.createFrom(assertValExp, asserter);
-      return render.representation();
+      return RenderPrism.createFrom(assertValExp, asserter, Map.Entry::getKey);
     }
   }
 
@@ -250,11 +428,21 @@ public abstract class AssertionProxy extends AbstractTab {
     @NonNull
     @Override
     public String representation() {
-      Prism rowOrderExp = RowPrismFactory.createFromExpected(asserter, asserter.getConf().expected);
-      Prism rowOrderAct = RowPrismFactory.createFromActual(asserter, tab);
+      return render(asserter.getConf().isDiff()).representation();
+    }
+
+    @Override
+    public void writeRepresentation(@NonNull Appendable out) throws IOException {
+      render(false).writeTo(Objects.requireNonNull(out, "out"));
+    }
+
+    @NonNull
+    private RenderPrism render(boolean diff) {
+      Prism rowOrderExp = RowPrismFactory.createFromExpected(asserter, asserter.getConf().expected,
+          diff);
+      Prism rowOrderAct = RowPrismFactory.createFromActual(asserter, tab, diff);
       Prism colOrderAct = ColPrismFactory.createFromActual(asserter, rowOrderExp, rowOrderAct);
-      Prism render = RenderPrism.createFrom(colOrderAct, asserter);
-      return render.representation();
+      return RenderPrism.createFrom(colOrderAct, asserter, Map.Entry::getValue);
     }
   }
 
@@ -0,0 +1,190 @@
+package io.github.nblxa.turntables.assertion;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Maximum bipartite matching of expected rows to actual rows by the Hopcroft-Karp algorithm.
+ *
+ * <p>Expected row {@code i} may be paired with actual row {@code j} if bit {@code (i, j)}
+ * is set in the match matrix. The matching is grown along the shortest augmenting paths, all
+ * paths of the same length being found in a single phase, which bounds the number of phases
+ * by {@code O(sqrt(V))} and the total running time by {@code O(E * sqrt(V))}.
+ */
+final class BipartiteMatcher {
+  private static final int FREE = -1;
+  private static final int INFINITY = Integer.MAX_VALUE;
+
+  @NonNull
+  private final BitMatrix matchMatrix;
+  private final int numExpected;
+  @NonNull
+  private final Runnable onPhase;
+
+  @NonNull
+  private final int[] actualOfExpected;
+  @NonNull
+  private final int[] expectedOfActual;
+  @NonNull
+  private final int[] layer;
+  @NonNull
+  private final int[] nextCandidate;
+  @NonNull
+  private final int[] queue;
+  @NonNull
+  private final int[] pathExpected;
+  @NonNull
+  private final int[] pathActual;
+  private int freeLayer;
+
+  /**
+   * @param matchMatrix expected rows by actual rows, with the bits set where the rows match
+   * @param onPhase called before each phase of augmentation, may throw to abort the matching
+   */
+  BipartiteMatcher(@NonNull BitMatrix matchMatrix, @NonNull Runnable onPhase) {
+    this.matchMatrix = Objects.requireNonNull(matchMatrix, "matchMatrix");
+    this.onPhase = Objects.requireNonNull(onPhase, "onPhase");
+    this.numExpected = matchMatrix.rows();
+    int numActual = matchMatrix.cols();
+    this.actualOfExpected = new int[numExpected];
+    this.expectedOfActual = new int[numActual];
+    this.layer = new int[numExpected];
+    this.nextCandidate = new int[numExpected];
+    this.queue = new int[numExpected];
+    this.pathExpected = new int[numExpected];
+    this.pathActual = new int[numExpected];
+    Arrays.fill(actualOfExpected, FREE);
+    Arrays.fill(expectedOfActual, FREE);
+  }
+
+  /**
+   * @return for each expected row, the index of the paired actual row or {@code -1}
+   */
+  @NonNull
+  int[] match() {
+    matchGreedily();
+    while (buildLayers()) {
+      onPhase.run();
+      for (int exp = 0; exp < numExpected; exp++) {
+        if (actualOfExpected[exp] == FREE) {
+          augment(exp);
+        }
+      }
+    }
+    return actualOfExpected.clone();
+  }
+
+  /**
+   * Pair up the expected rows with the fewest candidates first, each to the free candidate
+   * matching the fewest expected rows, which often leaves nothing to augment.
+   */
+  private void matchGreedily() {
+    for (int exp : byRowCardinality()) {
+      int best = FREE;
+      for (int act = matchMatrix.nextSetBit(exp, 0); act >= 0;
+           act = matchMatrix.nextSetBit(exp, act + 1)) {
+        if (expectedOfActual[act] == FREE && (best == FREE
+            || matchMatrix.colCardinality(act) < matchMatrix.colCardinality(best))) {
+          best = act;
+        }
+      }
+      if (best != FREE) {
+        actualOfExpected[exp] = best;
+        expectedOfActual[best] = exp;
+      }
+    }
+  }
+
+  /**
+   * Counting sort of the expected rows by the number of matching actual rows, stable.
+   */
+  @NonNull
+  private int[] byRowCardinality() {
+    int[] offsets = new int[matchMatrix.cols() + 2];
+    for (int exp = 0; exp < numExpected; exp++) {
+      offsets[matchMatrix.rowCardinality(exp) + 1]++;
+    }
+    for (int i = 1; i < offsets.length; i++) {
+      offsets[i] += offsets[i - 1];
+    }
+    int[] sorted = new int[numExpected];
+    for (int exp = 0; exp < numExpected; exp++) {
+      sorted[offsets[matchMatrix.rowCardinality(exp)]++] = exp;
+    }
+    return sorted;
+  }
+
+  /**
+   * Breadth-first search from the unpaired expected rows along alternating paths.
+   *
+   * @return true if an augmenting path exists
+   */
+  private boolean buildLayers() {
+    int head = 0;
+    int tail = 0;
+    for (int exp = 0; exp < numExpected; exp++) {
+      if (actualOfExpected[exp] == FREE) {
+        layer[exp] = 0;
+        queue[tail++] = exp;
+      } else {
+        layer[exp] = INFINITY;
+      }
+    }
+    freeLayer = INFINITY;
+    while (head < tail) {
+      int exp = queue[head++];
+      if (layer[exp] >= freeLayer) {
+        continue;
+      }
+      for (int act = matchMatrix.nextSetBit(exp, 0); act >= 0;
+           act = matchMatrix.nextSetBit(exp, act + 1)) {
+        int pairedExp = expectedOfActual[act];
+        if (pairedExp == FREE) {
+          if (freeLayer == INFINITY) {
+            freeLayer = layer[exp] + 1;
+          }
+        } else if (layer[pairedExp] == INFINITY) {
+          layer[pairedExp] = layer[exp] + 1;
+          queue[tail++] = pairedExp;
+        }
+      }
+    }
+    Arrays.fill(nextCandidate, 0);
+    return freeLayer != INFINITY;
+  }
+
+  /**
+   * Depth-first search for a shortest augmenting path from the given unpaired expected row,
+   * flipping the pairs along the path if one is found. Rows proven to be dead ends are removed
+   * from the layering for the rest of the phase.
+   */
+  private void augment(final int root) {
+    int depth = 0;
+    pathExpected[0] = root;
+    while (depth >= 0) {
+      int exp = pathExpected[depth];
+      int act = matchMatrix.nextSetBit(exp, nextCandidate[exp]);
+      if (act < 0) {
+        layer[exp] = INFINITY;
+        depth--;
+        continue;
+      }
+      nextCandidate[exp] = act + 1;
+      int pairedExp = expectedOfActual[act];
+      if (pairedExp == FREE) {
+        if (layer[exp] + 1 == freeLayer) {
+          pathActual[depth] = act;
+          for (int i = 0; i <= depth; i++) {
+            actualOfExpected[pathExpected[i]] = pathActual[i];
+            expectedOfActual[pathActual[i]] = pathExpected[i];
+          }
+          return;
+        }
+      } else if (layer[pairedExp] == layer[exp] + 1) {
+        pathActual[depth] = act;
+        pathExpected[++depth] = pairedExp;
+      }
+    }
+  }
+}
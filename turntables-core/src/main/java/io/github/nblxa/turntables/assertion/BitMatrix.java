@@ -0,0 +1,151 @@
+package io.github.nblxa.turntables.assertion;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Dense mutable bit matrix backed by a single {@code long[]}, each row taking a whole number
+ * of 64-bit words. The number of set bits in every row and column is kept up to date
+ * by {@link #set} and {@link #clear}.
+ */
+final class BitMatrix {
+  private static final int ADDRESS_BITS_PER_WORD = 6;
+  private static final long WORD_MASK = 0xFFFFFFFFFFFFFFFFL;
+
+  private final int rows;
+  private final int cols;
+  private final int wordsPerRow;
+  @NonNull
+  private final long[] words;
+  @NonNull
+  private final int[] rowCardinality;
+  @NonNull
+  private final int[] colCardinality;
+
+  BitMatrix(final int rows, final int cols) {
+    if (rows < 0) {
+      throw new IllegalArgumentException("rows < 0: " + rows);
+    }
+    if (cols < 0) {
+      throw new IllegalArgumentException("cols < 0: " + cols);
+    }
+    this.rows = rows;
+    this.cols = cols;
+    this.wordsPerRow = (cols + Long.SIZE - 1) >>> ADDRESS_BITS_PER_WORD;
+    this.words = new long[Math.multiplyExact(rows, wordsPerRow)];
+    this.rowCardinality = new int[rows];
+    this.colCardinality = new int[cols];
+  }
+
+  int rows() {
+    return rows;
+  }
+
+  int cols() {
+    return cols;
+  }
+
+  boolean get(final int row, final int col) {
+    checkIndexes(row, col);
+    return (words[wordIndex(row, col)] & (1L << col)) != 0L;
+  }
+
+  /**
+   * @return true if the bit was not set before
+   */
+  boolean set(final int row, final int col) {
+    checkIndexes(row, col);
+    int i = wordIndex(row, col);
+    long mask = 1L << col;
+    if ((words[i] & mask) != 0L) {
+      return false;
+    }
+    words[i] |= mask;
+    rowCardinality[row]++;
+    colCardinality[col]++;
+    return true;
+  }
+
+  /**
+   * @return true if the bit was set before
+   */
+  boolean clear(final int row, final int col) {
+    checkIndexes(row, col);
+    int i = wordIndex(row, col);
+    long mask = 1L << col;
+    if ((words[i] & mask) == 0L) {
+      return false;
+    }
+    words[i] &= ~mask;
+    rowCardinality[row]--;
+    colCardinality[col]--;
+    return true;
+  }
+
+  /**
+   * @return index of the first set bit in the row at or after {@code fromCol},
+   *     or {@code -1} if there is none
+   */
+  int nextSetBit(final int row, final int fromCol) {
+    if (row < 0 || row >= rows) {
+      throw new IndexOutOfBoundsException("row: " + row);
+    }
+    if (fromCol < 0) {
+      throw new IndexOutOfBoundsException("fromCol < 0: " + fromCol);
+    }
+    if (fromCol >= cols) {
+      return -1;
+    }
+    int rowStart = row * wordsPerRow;
+    int u = fromCol >>> ADDRESS_BITS_PER_WORD;
+    long word = words[rowStart + u] & (WORD_MASK << fromCol);
+    while (true) {
+      if (word != 0L) {
+        return (u << ADDRESS_BITS_PER_WORD) + Long.numberOfTrailingZeros(word);
+      }
+      if (++u == wordsPerRow) {
+        return -1;
+      }
+      word = words[rowStart + u];
+    }
+  }
+
+  int rowCardinality(final int row) {
+    return rowCardinality[row];
+  }
+
+  int colCardinality(final int col) {
+    return colCardinality[col];
+  }
+
+  private int wordIndex(final int row, final int col) {
+    return row * wordsPerRow + (col >>> ADDRESS_BITS_PER_WORD);
+  }
+
+  private void checkIndexes(final int row, final int col) {
+    if (row < 0 || row >= rows) {
+      throw new IndexOutOfBoundsException("row: " + row);
+    }
+    if (col < 0 || col >= cols) {
+      throw new IndexOutOfBoundsException("col: " + col);
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("{");
+    for (int row = 0; row < rows; row++) {
+      if (row > 0) {
+        sb.append(", ");
+      }
+      sb.append(row).append("=[");
+      for (int col = nextSetBit(row, 0); col >= 0; col = nextSetBit(row, col + 1)) {
+        if (sb.charAt(sb.length() - 1) != '[') {
+          sb.append(", ");
+        }
+        sb.append(col);
+      }
+      sb.append(']');
+    }
+    return sb.append('}').toString();
+  }
+}
@@ -0,0 +1,41 @@
+package io.github.nblxa.turntables.assertion;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.github.nblxa.turntables.Tab;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Like {@link RowOrderPrism}, but only with the rows of the {@link RowDiff}.
+ */
+class DiffRowPrism extends Prism {
+  @NonNull
+  private final Asserter asserter;
+  @NonNull
+  private final Function<? super Map.Entry<Optional<Row>, Optional<Row>>,
+      ? extends Optional<Row>> rowFunction;
+
+  DiffRowPrism(@NonNull Asserter asserter, @NonNull Tab tab,
+               @NonNull Function<? super Map.Entry<Optional<Row>, Optional<Row>>,
+                                 ? extends Optional<Row>> rowFunction) {
+    super(tab.cols());
+    this.asserter = Objects.requireNonNull(asserter, "asserter is null");
+    this.rowFunction = Objects.requireNonNull(rowFunction, "rowFunction is null");
+  }
+
+  @NonNull
+  @Override
+  public List<Row> rows() {
+    return asserter.getOrCalculateRowDiff()
+        .getPairs()
+        .stream()
+        .map(rowFunction)
+        .filter(Optional::isPresent)
+        .map(Optional::get)
+        .collect(Collectors.toList());
+  }
+}
@@ -2,87 +2,83 @@ package io.github.nblxa.turntables.assertion;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
 import io.github.nblxa.turntables.Utils;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
-import java.util.stream.Collectors;
-
+import java.util.NoSuchElementException;
+
+/**
+ * Pairs of expected and actual row indexes, each index occurring at most once on either side.
+ * The pairs are iterated starting from the most recently added one.
+ *
+ * <p>Both sides are indexed by {@code int[]} arrays, so lookups take constant time.
+ * Use {@link Builder} to collect many pairs in linear time.
+ */
 final class ImmutableMatchList implements Iterable<Map.Entry<Integer, Integer>> {
-  static final ImmutableMatchList EMPTY = new ImmutableMatchList(Collections.emptyList());
+  static final int NONE = -1;
 
-  @NonNull
-  private final List<Map.Entry<Integer, Integer>> list;
+  static final ImmutableMatchList EMPTY = new Builder(0, 0).build();
 
-  private ImmutableMatchList(List<Map.Entry<Integer, Integer>> list) {
-    this.list = list;
+  private final int size;
+  @NonNull
+  private final int[] expecteds;
+  @NonNull
+  private final int[] actuals;
+  @NonNull
+  private final int[] actualOfExpected;
+  @NonNull
+  private final int[] expectedOfActual;
+
+  private ImmutableMatchList(@NonNull Builder builder) {
+    this.size = builder.size;
+    this.expecteds = Arrays.copyOf(builder.expecteds, size);
+    this.actuals = Arrays.copyOf(builder.actuals, size);
+    this.actualOfExpected = builder.actualOfExpected.clone();
+    this.expectedOfActual = builder.expectedOfActual.clone();
   }
 
   public static ImmutableMatchList of(int expected, int actual) {
-    return new ImmutableMatchList(Collections.singletonList(Utils.entry(expected, actual)));
+    return EMPTY.add(expected, actual);
   }
 
   @NonNull
   ImmutableMatchList add(int expected, int actual) {
-    if (containsAny(expected, actual)) {
-      throw new UnsupportedOperationException();
-    }
-    List<Map.Entry<Integer, Integer>> newList = new ArrayList<>(list.size() + 1);
-    newList.add(Utils.entry(expected, actual));
-    ListIterator<Map.Entry<Integer, Integer>> li = list.listIterator(list.size());
-    while (li.hasPrevious()) {
-      newList.add(li.previous());
-    }
-    return new ImmutableMatchList(newList);
-  }
-
-  private boolean containsAny(int expected, int actual) {
-    return list.stream()
-        .anyMatch(e -> e.getKey().equals(expected) || e.getValue().equals(actual));
+    return new Builder(this).add(expected, actual).build();
   }
 
   @NonNull
   ImmutableMatchList concat(ImmutableMatchList other) {
-    List<Map.Entry<Integer, Integer>> newList = new ArrayList<>(list.size() + other.size());
-    ListIterator<Map.Entry<Integer, Integer>> li = other.list.listIterator(other.size());
-    while (li.hasPrevious()) {
-      newList.add(li.previous());
-    }
-    li = list.listIterator(list.size());
-    while (li.hasPrevious()) {
-      newList.add(li.previous());
+    Builder builder = new Builder(this);
+    for (int i = 0; i < other.size; i++) {
+      builder.add(other.expecteds[i], other.actuals[i]);
     }
-    return new ImmutableMatchList(newList);
+    return builder.build();
   }
 
-  Optional<Integer> getExpected(int actual) {
-    return list.stream()
-        .filter(e -> e.getValue().equals(actual))
-        .map(Map.Entry::getKey)
-        .findAny();
+  /**
+   * @return the expected index paired with the actual index or {@link #NONE}
+   */
+  int getExpected(int actual) {
+    return lookup(expectedOfActual, actual);
+  }
+
+  /**
+   * @return the actual index paired with the expected index or {@link #NONE}
+   */
+  int getActual(int expected) {
+    return lookup(actualOfExpected, expected);
   }
 
-  Optional<Integer> getActual(int expected) {
-    return list.stream()
-        .filter(e -> e.getKey().equals(expected))
-        .map(Map.Entry::getValue)
-        .findAny();
+  boolean containsActual(int actual) {
+    return getExpected(actual) != NONE;
   }
 
-  LinkedHashSet<Integer> actual() {
-    return list.stream()
-        .map(Map.Entry::getValue)
-        .collect(LinkedHashSet::new, HashSet::add, (s1, s2) -> new LinkedHashSet<>(s1).addAll(s2));
+  private static int lookup(@NonNull int[] index, int i) {
+    return i >= 0 && i < index.length ? index[i] : NONE;
   }
 
   int size() {
-    return list.size();
+    return size;
   }
 
   /**
@@ -91,16 +87,34 @@ final class ImmutableMatchList implements Iterable<Map.Entry<Integer, Integer>>
    */
   @NonNull
   ImmutableMatchList swapped() {
-    List<Map.Entry<Integer, Integer>> newList = list.stream()
-        .map(e -> Utils.entry(e.getValue(), e.getKey()))
-        .collect(Collectors.toList());
-    return new ImmutableMatchList(newList);
+    Builder builder = new Builder(expectedOfActual.length, actualOfExpected.length);
+    for (int i = 0; i < size; i++) {
+      builder.add(actuals[i], expecteds[i]);
+    }
+    return builder.build();
   }
 
   @NonNull
   @Override
   public Iterator<Map.Entry<Integer, Integer>> iterator() {
-    return list.iterator();
+    return new Iterator<Map.Entry<Integer, Integer>>() {
+      private int next = size - 1;
+
+      @Override
+      public boolean hasNext() {
+        return next >= 0;
+      }
+
+      @Override
+      public Map.Entry<Integer, Integer> next() {
+        if (next < 0) {
+          throw new NoSuchElementException();
+        }
+        Map.Entry<Integer, Integer> entry = Utils.entry(expecteds[next], actuals[next]);
+        next--;
+        return entry;
+      }
+    };
   }
 
   @Override
@@ -111,29 +125,107 @@ final class ImmutableMatchList implements Iterable<Map.Entry<Integer, Integer>>
     if (!(o instanceof ImmutableMatchList)) {
       return false;
     }
-    ImmutableMatchList entries = (ImmutableMatchList) o;
-    return list.equals(entries.list);
+    ImmutableMatchList that = (ImmutableMatchList) o;
+    return Arrays.equals(expecteds, that.expecteds) && Arrays.equals(actuals, that.actuals);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(list);
+    return 31 * Arrays.hashCode(expecteds) + Arrays.hashCode(actuals);
   }
 
   @Override
   public String toString() {
     StringBuilder stringBuilder = new StringBuilder().append('{');
-    boolean first = true;
-    for (Map.Entry<Integer, Integer> e : list) {
-      if (first) {
-        first = false;
-      } else {
+    for (int i = size - 1; i >= 0; i--) {
+      if (i < size - 1) {
         stringBuilder.append(", ");
       }
-      stringBuilder.append(e.getKey())
+      stringBuilder.append(expecteds[i])
           .append('=')
-          .append(e.getValue());
+          .append(actuals[i]);
     }
     return stringBuilder.append('}').toString();
   }
+
+  /**
+   * Mutable collector of pairs. The indexes grow as needed, but sizing them upfront
+   * by the numbers of expected and actual rows avoids copying.
+   */
+  static final class Builder {
+    private int size;
+    @NonNull
+    private int[] expecteds;
+    @NonNull
+    private int[] actuals;
+    @NonNull
+    private int[] actualOfExpected;
+    @NonNull
+    private int[] expectedOfActual;
+
+    Builder(int numExpected, int numActual) {
+      this.size = 0;
+      int capacity = Math.min(numExpected, numActual);
+      this.expecteds = new int[capacity];
+      this.actuals = new int[capacity];
+      this.actualOfExpected = newIndex(numExpected);
+      this.expectedOfActual = newIndex(numActual);
+    }
+
+    private Builder(@NonNull ImmutableMatchList list) {
+      this.size = list.size;
+      this.expecteds = Arrays.copyOf(list.expecteds, size + 1);
+      this.actuals = Arrays.copyOf(list.actuals, size + 1);
+      this.actualOfExpected = list.actualOfExpected.clone();
+      this.expectedOfActual = list.expectedOfActual.clone();
+    }
+
+    /**
+     * @throws UnsupportedOperationException if either index is already paired
+     */
+    @NonNull
+    Builder add(int expected, int actual) {
+      if (expected < 0 || actual < 0) {
+        throw new IndexOutOfBoundsException("expected: " + expected + ", actual: " + actual);
+      }
+      actualOfExpected = ensureIndex(actualOfExpected, expected);
+      expectedOfActual = ensureIndex(expectedOfActual, actual);
+      if (actualOfExpected[expected] != NONE || expectedOfActual[actual] != NONE) {
+        throw new UnsupportedOperationException();
+      }
+      if (size == expecteds.length) {
+        int capacity = Math.max(size * 2, 4);
+        expecteds = Arrays.copyOf(expecteds, capacity);
+        actuals = Arrays.copyOf(actuals, capacity);
+      }
+      expecteds[size] = expected;
+      actuals[size] = actual;
+      size++;
+      actualOfExpected[expected] = actual;
+      expectedOfActual[actual] = expected;
+      return this;
+    }
+
+    @NonNull
+    ImmutableMatchList build() {
+      return new ImmutableMatchList(this);
+    }
+
+    @NonNull
+    private static int[] newIndex(int length) {
+      int[] index = new int[length];
+      Arrays.fill(index, NONE);
+      return index;
+    }
+
+    @NonNull
+    private static int[] ensureIndex(@NonNull int[] index, int i) {
+      if (i < index.length) {
+        return index;
+      }
+      int[] grown = Arrays.copyOf(index, Math.max(i + 1, index.length * 2));
+      Arrays.fill(grown, index.length, grown.length, NONE);
+      return grown;
+    }
+  }
 }
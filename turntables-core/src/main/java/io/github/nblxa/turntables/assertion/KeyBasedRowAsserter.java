@@ -2,102 +2,299 @@ package io.github.nblxa.turntables.assertion;
 
 import io.github.nblxa.turntables.Tab;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import io.github.nblxa.turntables.Utils;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
 
+/**
+ * Matches rows with the same key.
+ *
+ * <p>The expected rows are indexed by key upfront, while the actual rows are consumed
+ * one by one, each probing the index: {@link #match()} stops at the first mismatching key.
+ * The remaining actual rows are only consumed if the row pairs are requested.
+ *
+ * <p>With a positive {@code mismatchingKeyLimit}, only rows with mismatching keys are paired,
+ * and no more actual rows are retained than needed to show this many keys. The number
+ * of retained actual rows is then bounded by the number of expected rows and the limit.
+ *
+ * <p>With an executor, the keys are matched and paired in parallel once all actual rows
+ * are consumed, each task taking a range of keys. Keys with single rows are then matched
+ * by the tasks as well instead of while the actual rows are consumed. The row pairs are
+ * still in the order of the keys.
+ */
 class KeyBasedRowAsserter extends AbstractRowAsserter {
+  /**
+   * Fewer keys are matched on the calling thread even if an executor is given.
+   */
+  static final int MIN_PARALLEL_KEYS = 4096;
+
+  @NonNull
+  private final RowsPerKey rowsPerKey;
+  @NonNull
+  private final int[] actKeyIndexes;
   @NonNull
-  private final Map<List<Tab.Val>, Map.Entry<List<Tab.Row>, List<Tab.Row>>> rowsPerKey;
-  private long rowPermutationLimit;
+  private final Iterable<Tab.Row> actual;
+  private final long rowPermutationLimit;
+  private final int mismatchingKeyLimit;
+  @Nullable
+  private final Executor executor;
+  /**
+   * Whether there are enough expected keys to match them in parallel.
+   */
+  private final boolean parallel;
 
-  KeyBasedRowAsserter(@NonNull List<Tab.Row> expected, @NonNull List<Tab.Row> actual,
+  private Iterator<Tab.Row> actualIterator;
+  private int unexpectedKeyCount = 0;
+  private Boolean matched;
+  private List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> rowPairs;
+
+  KeyBasedRowAsserter(@NonNull List<Tab.Row> expected, @NonNull Iterable<Tab.Row> actual,
                       @NonNull List<Tab.Col> expCols, @NonNull List<Tab.Col> actCols,
-                      long rowPermutationLimit, ValAsserter valAsserter) {
+                      long rowPermutationLimit, int mismatchingKeyLimit,
+                      ValAsserter valAsserter) {
+    this(expected, actual, expCols, actCols, rowPermutationLimit, mismatchingKeyLimit,
+        valAsserter, null);
+  }
+
+  /**
+   * @param executor matches the keys in parallel if there are at least
+   *     {@link #MIN_PARALLEL_KEYS} of them, or {@code null} to match them on the calling thread
+   */
+  KeyBasedRowAsserter(@NonNull List<Tab.Row> expected, @NonNull Iterable<Tab.Row> actual,
+                      @NonNull List<Tab.Col> expCols, @NonNull List<Tab.Col> actCols,
+                      long rowPermutationLimit, int mismatchingKeyLimit,
+                      ValAsserter valAsserter, @Nullable Executor executor) {
     super(valAsserter);
     this.rowPermutationLimit = rowPermutationLimit;
-    this.rowsPerKey = new LinkedHashMap<>();
-    List<Integer> expKeyIndexes = keyColIndexes(expCols);
+    this.mismatchingKeyLimit = mismatchingKeyLimit;
+    this.executor = executor;
+    this.rowsPerKey = new RowsPerKey();
+    int[] expKeyIndexes = RowsPerKey.keyColIndexes(expCols);
     for (Tab.Row row : expected) {
-      List<Tab.Val> kv = sublist(row.vals(), expKeyIndexes);
-      rowsPerKey.compute(kv, (k, e) -> {
-        if (e == null) {
-          List<Tab.Row> el = new ArrayList<>();
-          el.add(row);
-          List<Tab.Row> al = new ArrayList<>();
-          return Utils.entry(el, al);
-        } else {
-          e.getKey().add(row);
-          return e;
-        }
-      });
-    }
-    List<Integer> actKeyIndexes = keyColIndexes(actCols);
-    for (Tab.Row row : actual) {
-      List<Tab.Val> kv = sublist(row.vals(), actKeyIndexes);
-      rowsPerKey.compute(kv, (k, e) -> {
-        if (e == null) {
-          List<Tab.Row> el = new ArrayList<>();
-          List<Tab.Row> al = new ArrayList<>();
-          al.add(row);
-          return Utils.entry(el, al);
-        } else {
-          e.getValue().add(row);
-          return e;
-        }
-      });
+      rowsPerKey.addExpected(row, expKeyIndexes);
     }
+    this.actKeyIndexes = RowsPerKey.keyColIndexes(actCols);
+    this.actual = actual;
+    this.parallel = executor != null && rowsPerKey.size() >= MIN_PARALLEL_KEYS;
   }
 
-  @NonNull
-  private static List<Integer> keyColIndexes(@NonNull List<Tab.Col> cols) {
-    return IntStream.range(0, cols.size())
-        .filter(i -> cols.get(i).isKey())
-        .boxed()
-        .collect(Collectors.toList());
+  @Override
+  public boolean match() {
+    if (matched == null) {
+      matched = consumeActual(true) && allGroupsMatch();
+    }
+    return matched;
   }
 
   @NonNull
-  private static List<Tab.Val> sublist(@NonNull List<Tab.Val> vals,
-                                       @NonNull Collection<Integer> indexes) {
-    return indexes.stream()
-        .sorted()
-        .map(vals::get)
-        .collect(Collectors.toList());
+  @Override
+  public List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> getRowPairs() {
+    if (rowPairs == null) {
+      consumeActual(false);
+      if (parallel) {
+        rowPairs = isLimited() ? parallelMismatchingRowPairs(executor) : parallelRowPairs(executor);
+        return rowPairs;
+      }
+      int initSize = rowsPerKey.size();
+      List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> pairs = new ArrayList<>(initSize);
+      int mismatchingKeyCount = 0;
+      for (RowsPerKey.Group group : rowsPerKey.groups()) {
+        if (!isLimited()) {
+          addRowPairs(pairs, group.expected(), group.actual());
+        } else if (mismatchingKeyCount < mismatchingKeyLimit
+            && !matchRowLists(group.expected(), group.actual())) {
+          addRowPairs(pairs, group.expected(), group.actual());
+          mismatchingKeyCount++;
+        }
+      }
+      rowPairs = pairs;
+    }
+    return rowPairs;
   }
 
-  @Override
-  public boolean match() {
-    return rowsPerKey.values()
-        .stream()
-        .allMatch(e -> matchRowLists(e.getKey(), e.getValue()));
+  @NonNull
+  private List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> parallelRowPairs(
+      @NonNull Executor executor) {
+    List<RowsPerKey.Group> groups = rowsPerKey.groups();
+    int numTasks = ParallelTasks.numTasks(executor);
+    List<List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>>> pairsPerTask =
+        new ArrayList<>(Collections.nCopies(numTasks, null));
+    ParallelTasks.inParallel(executor, numTasks, task -> {
+      int start = ParallelTasks.rangeStart(groups.size(), numTasks, task);
+      int end = ParallelTasks.rangeStart(groups.size(), numTasks, task + 1);
+      List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> pairs = new ArrayList<>(end - start);
+      for (int i = start; i < end; i++) {
+        addRowPairs(pairs, groups.get(i).expected(), groups.get(i).actual());
+      }
+      pairsPerTask.set(task, pairs);
+    });
+    List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> pairs = new ArrayList<>(groups.size());
+    for (List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> taskPairs : pairsPerTask) {
+      pairs.addAll(taskPairs);
+    }
+    return pairs;
   }
 
+  /**
+   * Finds the first mismatching keys in parallel: a task stops as soon as the tasks
+   * before it have found enough of them.
+   */
   @NonNull
-  @Override
-  public List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> getRowPairs() {
-    int initSize = rowsPerKey.size();
-    List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> pairs = new ArrayList<>(initSize);
-    rowsPerKey.values().forEach(ea -> {
-      final List<Tab.Row> e = ea.getKey();
-      final List<Tab.Row> a = ea.getValue();
-      if (e.size() <= 1 && a.size() <= 1) {
-        Optional<Tab.Row> oe = e.isEmpty() ? Optional.empty() : Optional.of(e.get(0));
-        Optional<Tab.Row> oa = a.isEmpty() ? Optional.empty() : Optional.of(a.get(0));
-        pairs.add(Utils.entry(oe, oa));
-      } else {
-        pairs.addAll(new UnorderedRowAsserter(e, a, rowPermutationLimit, valAsserter).getRowPairs());
+  private List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> parallelMismatchingRowPairs(
+      @NonNull Executor executor) {
+    List<RowsPerKey.Group> groups = rowsPerKey.groups();
+    int numTasks = ParallelTasks.numTasks(executor);
+    boolean[] mismatching = new boolean[groups.size()];
+    AtomicIntegerArray mismatchCounts = new AtomicIntegerArray(numTasks);
+    ParallelTasks.inParallel(executor, numTasks, task -> {
+      int end = ParallelTasks.rangeStart(groups.size(), numTasks, task + 1);
+      for (int i = ParallelTasks.rangeStart(groups.size(), numTasks, task); i < end; i++) {
+        if (mismatchCounts.get(task) >= mismatchingKeyLimit
+            || countBefore(mismatchCounts, task) >= mismatchingKeyLimit) {
+          break;
+        }
+        RowsPerKey.Group group = groups.get(i);
+        if (!matchRowLists(group.expected(), group.actual())) {
+          mismatching[i] = true;
+          mismatchCounts.incrementAndGet(task);
+        }
       }
     });
+    List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> pairs = new ArrayList<>();
+    int mismatchingKeyCount = 0;
+    for (int i = 0; i < mismatching.length && mismatchingKeyCount < mismatchingKeyLimit; i++) {
+      if (mismatching[i]) {
+        addRowPairs(pairs, groups.get(i).expected(), groups.get(i).actual());
+        mismatchingKeyCount++;
+      }
+    }
     return pairs;
   }
 
+  private static int countBefore(@NonNull AtomicIntegerArray counts, int index) {
+    int sum = 0;
+    for (int i = 0; i < index; i++) {
+      sum += counts.get(i);
+    }
+    return sum;
+  }
+
+  private void addRowPairs(@NonNull List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> pairs,
+                           @NonNull List<Tab.Row> e, @NonNull List<Tab.Row> a) {
+    if (e.size() <= 1 && a.size() <= 1) {
+      Optional<Tab.Row> oe = e.isEmpty() ? Optional.empty() : Optional.of(e.get(0));
+      Optional<Tab.Row> oa = a.isEmpty() ? Optional.empty() : Optional.of(a.get(0));
+      pairs.add(Utils.entry(oe, oa));
+    } else {
+      pairs.addAll(new UnorderedRowAsserter(e, a, rowPermutationLimit, valAsserter).getRowPairs());
+    }
+  }
+
+  private boolean isLimited() {
+    return mismatchingKeyLimit > 0;
+  }
+
+  /**
+   * @param failFast whether to stop at the first actual row that makes its key mismatch
+   * @return false if a mismatching key was found
+   */
+  private boolean consumeActual(boolean failFast) {
+    if (actualIterator == null) {
+      actualIterator = actual.iterator();
+    }
+    boolean result = true;
+    while (actualIterator.hasNext()) {
+      if (!addActual(actualIterator.next())) {
+        result = false;
+        if (failFast) {
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return false if the row makes its key mismatch
+   */
+  private boolean addActual(@NonNull Tab.Row row) {
+    RowsPerKey.Group group = rowsPerKey.find(row, actKeyIndexes);
+    if (group == null) {
+      if (!isLimited() || unexpectedKeyCount < mismatchingKeyLimit) {
+        rowsPerKey.addActual(row, actKeyIndexes);
+        unexpectedKeyCount++;
+      }
+      return false;
+    }
+    List<Tab.Row> expRows = group.expected();
+    int actSize = group.actual().size();
+    if (actSize >= expRows.size()) {
+      if (!isLimited() || actSize <= expRows.size()) {
+        group.addActual(row);
+      }
+      return false;
+    }
+    group.addActual(row);
+    if (expRows.size() == 1 && !parallel) {
+      return matchRows(expRows.get(0), row);
+    }
+    // keys with several rows, or all keys if in parallel, are matched once all actual rows
+    // are known
+    return true;
+  }
+
+  private boolean allGroupsMatch() {
+    if (parallel) {
+      return parallelAllGroupsMatch(executor);
+    }
+    for (RowsPerKey.Group group : rowsPerKey.groups()) {
+      if (!groupMatches(group)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private boolean parallelAllGroupsMatch(@NonNull Executor executor) {
+    List<RowsPerKey.Group> groups = rowsPerKey.groups();
+    int numTasks = ParallelTasks.numTasks(executor);
+    AtomicBoolean mismatch = new AtomicBoolean();
+    ParallelTasks.inParallel(executor, numTasks, task -> {
+      int end = ParallelTasks.rangeStart(groups.size(), numTasks, task + 1);
+      for (int i = ParallelTasks.rangeStart(groups.size(), numTasks, task);
+           i < end && !mismatch.get(); i++) {
+        if (!groupMatches(groups.get(i))) {
+          mismatch.set(true);
+        }
+      }
+    });
+    return !mismatch.get();
+  }
+
+  /**
+   * Single actual rows have already been matched when they were consumed,
+   * unless the keys are matched in parallel.
+   */
+  private boolean groupMatches(@NonNull RowsPerKey.Group group) {
+    List<Tab.Row> expRows = group.expected();
+    List<Tab.Row> actRows = group.actual();
+    if (expRows.size() != actRows.size()) {
+      return false;
+    }
+    if (expRows.size() <= 1) {
+      return !parallel || expRows.isEmpty() || matchRows(expRows.get(0), actRows.get(0));
+    }
+    return new UnorderedRowAsserter(expRows, actRows, rowPermutationLimit, valAsserter).match();
+  }
+
   private boolean matchRowLists(@NonNull List<Tab.Row> expRows, @NonNull List<Tab.Row> actRows) {
     final int expSize = expRows.size();
     final int actSize = actRows.size();
@@ -0,0 +1,105 @@
+package io.github.nblxa.turntables.assertion;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+
+/**
+ * Open-addressing hash map from {@code long} keys to non-negative {@code int} values
+ * with linear probing. Neither keys nor values are boxed.
+ */
+final class LongIntHashMap {
+  static final int NO_VALUE = -1;
+
+  private static final int MIN_CAPACITY = 16;
+  private static final long PHI = 0x9E3779B97F4A7C15L;
+
+  @NonNull
+  private long[] keys;
+  /**
+   * Values shifted by one, so that 0 marks an empty slot.
+   */
+  @NonNull
+  private int[] values;
+  private int mask;
+  private int size;
+
+  LongIntHashMap() {
+    this(MIN_CAPACITY);
+  }
+
+  LongIntHashMap(int expectedSize) {
+    int capacity = MIN_CAPACITY;
+    while (capacity < 2L * expectedSize) {
+      capacity <<= 1;
+    }
+    allocate(capacity);
+  }
+
+  int size() {
+    return size;
+  }
+
+  /**
+   * @return the value mapped to the key or {@link #NO_VALUE}
+   */
+  int get(long key) {
+    for (int i = slot(key); ; i = (i + 1) & mask) {
+      int value = values[i];
+      if (value == 0) {
+        return NO_VALUE;
+      }
+      if (keys[i] == key) {
+        return value - 1;
+      }
+    }
+  }
+
+  /**
+   * Map the key to the value unless the key is already present.
+   *
+   * @return the value mapped to the key before the call or {@link #NO_VALUE}
+   */
+  int putIfAbsent(long key, int value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("value < 0: " + value);
+    }
+    int i = slot(key);
+    for (; values[i] != 0; i = (i + 1) & mask) {
+      if (keys[i] == key) {
+        return values[i] - 1;
+      }
+    }
+    keys[i] = key;
+    values[i] = value + 1;
+    if (++size * 2 > values.length) {
+      rehash(values.length << 1);
+    }
+    return NO_VALUE;
+  }
+
+  private int slot(long key) {
+    long h = key * PHI;
+    return (int) (h ^ (h >>> 32)) & mask;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(capacity);
+    for (int j = 0; j < oldValues.length; j++) {
+      if (oldValues[j] != 0) {
+        int i = slot(oldKeys[j]);
+        while (values[i] != 0) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = oldKeys[j];
+        values[i] = oldValues[j];
+      }
+    }
+  }
+}
@@ -36,6 +36,25 @@ class NamedValAsserter extends AbstractMatchingValAsserter {
     return true;
   }
 
+  @Override
+  public int hashExpected(@NonNull List<Tab.Val> expected) {
+    int hash = 1;
+    int size = Math.min(expected.size(), actIndexes.size());
+    for (int i = 0; i < size; i++) {
+      hash = 31 * hash + hashVal(expected.get(i));
+    }
+    return hash;
+  }
+
+  @Override
+  public int hashActual(@NonNull List<Tab.Val> actual) {
+    int hash = 1;
+    for (int actIndex : actIndexes) {
+      hash = 31 * hash + hashVal(actual.get(actIndex));
+    }
+    return hash;
+  }
+
   @NonNull
   private static List<String> names(@NonNull List<Tab.Col> cols) {
     return cols.stream()
@@ -3,39 +3,77 @@ package io.github.nblxa.turntables.assertion;
 import io.github.nblxa.turntables.Tab;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import io.github.nblxa.turntables.Utils;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.RandomAccess;
 
+/**
+ * Matches rows pairwise in the given order.
+ *
+ * <p>The actual rows are consumed one by one: {@link #match()} stops at the first mismatching
+ * row, and the remaining actual rows are only consumed if the row pairs are requested.
+ * Only the consumed rows are retained.
+ */
 class OrderedRowAsserter extends AbstractRowAsserter {
   @NonNull
   final List<Tab.Row> expected;
   @NonNull
-  final List<Tab.Row> actual;
+  private final List<Tab.Row> actualRead;
+  @NonNull
+  private final Iterator<Tab.Row> actualIterator;
+
+  private Boolean matched;
+  private List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> rowPairs;
 
-  OrderedRowAsserter(@NonNull List<Tab.Row> expected, @NonNull List<Tab.Row> actual,
+  OrderedRowAsserter(@NonNull List<Tab.Row> expected, @NonNull Iterable<Tab.Row> actual,
                      @NonNull ValAsserter valAsserter) {
     super(valAsserter);
     this.expected = expected;
-    this.actual = actual;
+    if (actual instanceof List && actual instanceof RandomAccess) {
+      this.actualRead = (List<Tab.Row>) actual;
+      this.actualIterator = Collections.emptyIterator();
+    } else {
+      this.actualRead = new ArrayList<>();
+      this.actualIterator = actual.iterator();
+    }
   }
 
   @Override
   public boolean match() {
-    Iterator<Tab.Row> expIter = expected.iterator();
-    Iterator<Tab.Row> actIter = actual.iterator();
-    while (expIter.hasNext() && actIter.hasNext()) {
-      if (!matchRows(expIter.next(), actIter.next())) {
-        return false;
+    if (matched == null) {
+      Iterator<Tab.Row> expIter = expected.iterator();
+      int i = 0;
+      boolean result = true;
+      while (result && expIter.hasNext()) {
+        result = readActual(i + 1) && matchRows(expIter.next(), actualRead.get(i));
+        i++;
       }
+      matched = result && !readActual(i + 1);
     }
-    return !(expIter.hasNext() || actIter.hasNext());
+    return matched;
   }
 
   @NonNull
   @Override
   public List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> getRowPairs() {
-    return Utils.pairedSparsely(expected, actual, Utils::entry);
+    if (rowPairs == null) {
+      readActual(Integer.MAX_VALUE);
+      rowPairs = Utils.pairedSparsely(expected, actualRead, Utils::entry);
+    }
+    return rowPairs;
+  }
+
+  /**
+   * @return true if at least {@code count} actual rows are available
+   */
+  private boolean readActual(int count) {
+    while (actualRead.size() < count && actualIterator.hasNext()) {
+      actualRead.add(actualIterator.next());
+    }
+    return actualRead.size() >= count;
   }
 }
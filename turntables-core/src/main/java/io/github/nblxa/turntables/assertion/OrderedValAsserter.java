@@ -17,4 +17,22 @@ class OrderedValAsserter extends AbstractMatchingValAsserter {
     }
     return !(expIter.hasNext() || actIter.hasNext());
   }
+
+  @Override
+  public int hashExpected(@NonNull List<Tab.Val> expected) {
+    return hashVals(expected);
+  }
+
+  @Override
+  public int hashActual(@NonNull List<Tab.Val> actual) {
+    return hashVals(actual);
+  }
+
+  private static int hashVals(@NonNull List<Tab.Val> vals) {
+    int hash = 1;
+    for (Tab.Val val : vals) {
+      hash = 31 * hash + hashVal(val);
+    }
+    return hash;
+  }
 }
@@ -0,0 +1,71 @@
+package io.github.nblxa.turntables.assertion;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.github.nblxa.turntables.DequeThreadLocal;
+import io.github.nblxa.turntables.Settings;
+import io.github.nblxa.turntables.Turntables;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs the parts of a row assertion as tasks on an executor.
+ */
+final class ParallelTasks {
+  private static final int TASKS_PER_THREAD = 4;
+
+  private ParallelTasks() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * @return the number of tasks to split the work into, several per thread of the executor,
+   *     so that the threads finishing early can take over
+   */
+  static int numTasks(@NonNull Executor executor) {
+    int parallelism = executor instanceof ForkJoinPool
+        ? ((ForkJoinPool) executor).getParallelism()
+        : Runtime.getRuntime().availableProcessors();
+    return TASKS_PER_THREAD * parallelism;
+  }
+
+  /**
+   * @return the start of the range of the given task, or the size for {@code task == numTasks}
+   */
+  static int rangeStart(int size, int numTasks, int task) {
+    return (int) ((long) size * task / numTasks);
+  }
+
+  /**
+   * Runs the task for each number from {@code 0} to {@code numTasks - 1} and waits for all
+   * of them to complete. The tasks use the {@link Settings} of the calling thread, which
+   * the threads of the executor do not necessarily inherit. Each thread has its own deque
+   * of settings, so putting and rolling back the settings leaves the caller's intact.
+   */
+  static void inParallel(@NonNull Executor executor, int numTasks, @NonNull IntConsumer task) {
+    Settings settings = Turntables.getSettings();
+    CompletableFuture<?>[] futures = new CompletableFuture<?>[numTasks];
+    for (int i = 0; i < numTasks; i++) {
+      final int t = i;
+      futures[i] = CompletableFuture.runAsync(() -> {
+        try (DequeThreadLocal.Transaction ignored = Turntables.setSettings(settings)) {
+          task.accept(t);
+        }
+      }, executor);
+    }
+    try {
+      CompletableFuture.allOf(futures).join();
+    } catch (CompletionException ce) {
+      Throwable cause = ce.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw ce;
+    }
+  }
+}
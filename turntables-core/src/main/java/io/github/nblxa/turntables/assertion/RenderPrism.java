@@ -1,11 +1,16 @@
 package io.github.nblxa.turntables.assertion;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import io.github.nblxa.turntables.Renderer;
 import io.github.nblxa.turntables.Tab;
 import io.github.nblxa.turntables.YamlRenderer;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
 
 public class RenderPrism extends Prism {
   @NonNull
@@ -13,15 +18,39 @@ public class RenderPrism extends Prism {
     return new RenderPrism(tab, asserter);
   }
 
+  /**
+   * @param rowFunction picks the rows of the rendered side from the row pairs
+   *     to place the comments of a diff
+   */
+  @NonNull
+  static RenderPrism createFrom(@NonNull Tab tab, @NonNull Asserter asserter,
+                          @NonNull Function<? super Map.Entry<Optional<Row>, Optional<Row>>,
+                              ? extends Optional<Row>> rowFunction) {
+    return new RenderPrism(tab, asserter, rowFunction);
+  }
+
   @NonNull
   private final Tab tab;
   @NonNull
   private final Renderer renderer;
+  @NonNull
+  private final Asserter asserter;
+  @Nullable
+  private final Function<? super Map.Entry<Optional<Row>, Optional<Row>>,
+      ? extends Optional<Row>> rowFunction;
 
   public RenderPrism(@NonNull Tab tab, @NonNull Asserter asserter) {
+    this(tab, asserter, null);
+  }
+
+  private RenderPrism(@NonNull Tab tab, @NonNull Asserter asserter,
+                      @Nullable Function<? super Map.Entry<Optional<Row>, Optional<Row>>,
+                          ? extends Optional<Row>> rowFunction) {
     super(tab.cols());
     this.tab = Objects.requireNonNull(tab, "tab");
-    this.renderer = getRenderer(Objects.requireNonNull(asserter, "asserter"));
+    this.asserter = Objects.requireNonNull(asserter, "asserter");
+    this.renderer = getRenderer(asserter);
+    this.rowFunction = rowFunction;
   }
 
   private static Renderer getRenderer(Asserter asserter) {
@@ -41,6 +70,18 @@ public class RenderPrism extends Prism {
   @NonNull
   @Override
   public String representation() {
+    AssertionProxy.Conf conf = asserter.getConf();
+    if (rowFunction != null && conf.isDiff()) {
+      return renderer.renderTab(tab, 0, asserter.getOrCalculateRowDiff().comments(rowFunction),
+          conf.diffMaxChars);
+    }
     return renderer.renderTab(tab, 0);
   }
+
+  /**
+   * Writes the representation of all rows, even when the assertion is represented by a diff.
+   */
+  void writeTo(@NonNull Appendable out) throws IOException {
+    renderer.renderTab(tab, 0, out);
+  }
 }
@@ -0,0 +1,141 @@
+package io.github.nblxa.turntables.assertion;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.github.nblxa.turntables.Tab;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * The row pairs to show in a diff: the mismatching ones and a number of matching ones
+ * around each of them, up to a maximum number of row pairs.
+ *
+ * <p>The matching row pairs left out are only counted, and the counts are given by comments
+ * in their place. The first comment sums up the counts of all row pairs.
+ */
+final class RowDiff {
+  @NonNull
+  private final List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> pairs;
+  @NonNull
+  private final Map<Integer, String> commentsBeforePair;
+
+  private RowDiff(@NonNull List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> pairs,
+                  @NonNull Map<Integer, String> commentsBeforePair) {
+    this.pairs = pairs;
+    this.commentsBeforePair = commentsBeforePair;
+  }
+
+  /**
+   * @param allPairs the row pairs of the assertion
+   * @param rowsMatch whether the rows of a pair of an expected and an actual row match
+   * @param contextRows the number of matching row pairs to show around each mismatching one
+   * @param maxRows the maximum number of row pairs to show
+   */
+  @NonNull
+  static RowDiff of(@NonNull List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> allPairs,
+                    @NonNull BiPredicate<Tab.Row, Tab.Row> rowsMatch, int contextRows,
+                    int maxRows) {
+    int size = allPairs.size();
+    int[] mismatches = new int[16];
+    int mismatchCount = 0;
+    int differing = 0;
+    int missing = 0;
+    int extra = 0;
+    for (int i = 0; i < size; i++) {
+      Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>> pair = allPairs.get(i);
+      Optional<Tab.Row> exp = pair.getKey();
+      Optional<Tab.Row> act = pair.getValue();
+      if (exp.isPresent() && act.isPresent()) {
+        if (rowsMatch.test(exp.get(), act.get())) {
+          continue;
+        }
+        differing++;
+      } else if (exp.isPresent()) {
+        missing++;
+      } else {
+        extra++;
+      }
+      if (mismatchCount == mismatches.length) {
+        mismatches = Arrays.copyOf(mismatches, mismatchCount * 2);
+      }
+      mismatches[mismatchCount++] = i;
+    }
+
+    List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> pairs = new ArrayList<>();
+    Map<Integer, String> comments = new HashMap<>();
+    comments.put(0, String.format("%d row pairs: %d matching, %d differing, %d missing, %d extra",
+        size, size - mismatchCount, differing, missing, extra));
+    int next = 0;
+    for (int m = 0; m < mismatchCount && pairs.size() < maxRows; m++) {
+      int mismatch = mismatches[m];
+      int from = Math.max(next, mismatch - Math.min(mismatch, contextRows));
+      int to = (int) Math.min(size, (long) mismatch + contextRows + 1);
+      if (from > next) {
+        addComment(comments, pairs.size(), notShown(from - next));
+      }
+      for (int i = from; i < to && pairs.size() < maxRows; i++) {
+        pairs.add(allPairs.get(i));
+        next = i + 1;
+      }
+    }
+    // the matching rows left out between the shown ones contain no mismatches
+    int shownMismatches = Arrays.binarySearch(mismatches, 0, mismatchCount, next);
+    if (shownMismatches < 0) {
+      shownMismatches = -shownMismatches - 1;
+    }
+    if (shownMismatches < mismatchCount) {
+      addComment(comments, pairs.size(), String.format(
+          "%d more row pairs not shown, %d of them mismatching",
+          size - next, mismatchCount - shownMismatches));
+    } else if (next < size) {
+      addComment(comments, pairs.size(), notShown(size - next));
+    }
+    return new RowDiff(pairs, comments);
+  }
+
+  @NonNull
+  private static String notShown(int matchingRows) {
+    return matchingRows + (matchingRows == 1 ? " matching row" : " matching rows") + " not shown";
+  }
+
+  private static void addComment(@NonNull Map<Integer, String> comments, int pair,
+                                 @NonNull String comment) {
+    comments.merge(pair, comment, (c1, c2) -> c1 + '\n' + c2);
+  }
+
+  /**
+   * @return the row pairs to show in the order of the assertion
+   */
+  @NonNull
+  List<Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>> getPairs() {
+    return pairs;
+  }
+
+  /**
+   * @param rowFunction picks the row of one side from a row pair
+   * @return the comments by the index of the row of that side before which they are placed
+   */
+  @NonNull
+  IntFunction<String> comments(
+      @NonNull Function<? super Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>,
+          ? extends Optional<Tab.Row>> rowFunction) {
+    Map<Integer, String> commentsBeforeRow = new HashMap<>();
+    int row = 0;
+    for (int i = 0; i <= pairs.size(); i++) {
+      String comment = commentsBeforePair.get(i);
+      if (comment != null) {
+        addComment(commentsBeforeRow, row, comment);
+      }
+      if (i < pairs.size() && rowFunction.apply(pairs.get(i)).isPresent()) {
+        row++;
+      }
+    }
+    return commentsBeforeRow::get;
+  }
+}
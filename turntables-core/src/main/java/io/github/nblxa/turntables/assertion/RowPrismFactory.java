@@ -1,6 +1,7 @@
 package io.github.nblxa.turntables.assertion;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import io.github.nblxa.turntables.CursorTab;
 import io.github.nblxa.turntables.Tab;
 import java.util.Map;
 import java.util.Objects;
@@ -9,27 +10,36 @@ import java.util.function.Function;
 
 public class RowPrismFactory {
   @NonNull
-  static Prism createFromExpected(@NonNull Asserter asserter, @NonNull Tab expected) {
-    return of(asserter, expected, Map.Entry::getKey);
+  static Prism createFromExpected(@NonNull Asserter asserter, @NonNull Tab expected,
+                                  boolean diff) {
+    return of(asserter, expected, Map.Entry::getKey, diff);
   }
 
   @NonNull
-  static Prism createFromActual(@NonNull Asserter asserter, Tab actual) {
-    return of(asserter, actual, Map.Entry::getValue);
+  static Prism createFromActual(@NonNull Asserter asserter, Tab actual, boolean diff) {
+    return of(asserter, actual, Map.Entry::getValue, diff);
   }
 
   @NonNull
   private static Prism of(@NonNull Asserter asserter, @NonNull Tab tab,
                 @NonNull Function<? super Map.Entry<Optional<Tab.Row>, Optional<Tab.Row>>,
-                    ? extends Optional<Tab.Row>> rowFunction) {
+                    ? extends Optional<Tab.Row>> rowFunction,
+                boolean diff) {
     Objects.requireNonNull(asserter, "asserter is null");
     Objects.requireNonNull(tab, "tab is null");
+    if (diff) {
+      return new DiffRowPrism(asserter, tab, rowFunction);
+    }
     switch (asserter.getConf().settings.rowMode) {
       case MATCH_IN_ANY_ORDER:
       case MATCH_BY_KEY:
         return new RowOrderPrism(asserter.getRowAsserter(), tab, rowFunction);
       case AUTO:
       case MATCH_IN_GIVEN_ORDER:
+        if (asserter.getConf().actual instanceof CursorTab) {
+          // the streamed rows are only retained by the asserter
+          return new RowOrderPrism(asserter.getRowAsserter(), tab, rowFunction);
+        }
         return NoOpPrism.of(tab);
       default:
         throw new UnsupportedOperationException();
@@ -0,0 +1,205 @@
+package io.github.nblxa.turntables.assertion;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.TableUtils;
+import io.github.nblxa.turntables.Typ;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Expected and actual rows grouped by the values of their key columns, in the order
+ * in which the keys first occur.
+ *
+ * <p>Keys are equal if their values are pairwise equal. A single {@link Typ#INTEGER}
+ * or {@link Typ#LONG} key value is looked up in a {@link LongIntHashMap}, other single values
+ * serve as hash keys themselves and composite keys are wrapped without copying into lists.
+ */
+final class RowsPerKey {
+  @NonNull
+  private final List<Group> groups = new ArrayList<>();
+  @NonNull
+  private final Map<Object, Integer> groupsPerKey = new HashMap<>();
+  @NonNull
+  private final LongIntHashMap groupsPerIntegerKey = new LongIntHashMap();
+  @NonNull
+  private final LongIntHashMap groupsPerLongKey = new LongIntHashMap();
+
+  @NonNull
+  static int[] keyColIndexes(@NonNull List<Tab.Col> cols) {
+    int[] indexes = new int[cols.size()];
+    int count = 0;
+    for (int i = 0; i < indexes.length; i++) {
+      if (cols.get(i).isKey()) {
+        indexes[count++] = i;
+      }
+    }
+    return Arrays.copyOf(indexes, count);
+  }
+
+  @NonNull
+  Group addExpected(@NonNull Tab.Row row, @NonNull int[] keyColIndexes) {
+    Group group = group(row, keyColIndexes, true);
+    group.expected = add(group.expected, row);
+    return group;
+  }
+
+  @NonNull
+  Group addActual(@NonNull Tab.Row row, @NonNull int[] keyColIndexes) {
+    Group group = group(row, keyColIndexes, true);
+    group.actual = add(group.actual, row);
+    return group;
+  }
+
+  /**
+   * @return the group with the same key as the row or {@code null}
+   */
+  @Nullable
+  Group find(@NonNull Tab.Row row, @NonNull int[] keyColIndexes) {
+    return group(row, keyColIndexes, false);
+  }
+
+  @NonNull
+  List<Group> groups() {
+    return Collections.unmodifiableList(groups);
+  }
+
+  int size() {
+    return groups.size();
+  }
+
+  @Nullable
+  private Group group(@NonNull Tab.Row row, @NonNull int[] keyColIndexes, boolean create) {
+    List<Tab.Val> vals = row.vals();
+    int index = groups.size();
+    int existing;
+    if (keyColIndexes.length == 1) {
+      Tab.Val val = vals.get(keyColIndexes[0]);
+      LongIntHashMap primitiveKeys = primitiveKeys(val);
+      if (primitiveKeys != null) {
+        long key = ((Number) val.evaluate()).longValue();
+        existing = create ? primitiveKeys.putIfAbsent(key, index) : primitiveKeys.get(key);
+      } else {
+        existing = lookup(val, index, create);
+      }
+    } else {
+      existing = lookup(new CompositeKey(vals, keyColIndexes), index, create);
+    }
+    if (existing != LongIntHashMap.NO_VALUE) {
+      return groups.get(existing);
+    }
+    if (!create) {
+      return null;
+    }
+    Group group = new Group();
+    groups.add(group);
+    return group;
+  }
+
+  @Nullable
+  private LongIntHashMap primitiveKeys(@NonNull Tab.Val val) {
+    if (val instanceof TableUtils.SimpleVal) {
+      if (val.typ() == Typ.INTEGER) {
+        return groupsPerIntegerKey;
+      }
+      if (val.typ() == Typ.LONG) {
+        return groupsPerLongKey;
+      }
+    }
+    return null;
+  }
+
+  private int lookup(@NonNull Object key, int index, boolean create) {
+    Integer existing = create ? groupsPerKey.putIfAbsent(key, index) : groupsPerKey.get(key);
+    return existing == null ? LongIntHashMap.NO_VALUE : existing;
+  }
+
+  @NonNull
+  private static List<Tab.Row> add(@NonNull List<Tab.Row> rows, @NonNull Tab.Row row) {
+    if (rows.isEmpty()) {
+      return Collections.singletonList(row);
+    }
+    List<Tab.Row> result = rows;
+    if (rows.size() == 1) {
+      result = new ArrayList<>(rows);
+    }
+    result.add(row);
+    return result;
+  }
+
+  /**
+   * Expected and actual rows with the same key.
+   */
+  static final class Group {
+    @NonNull
+    private List<Tab.Row> expected = Collections.emptyList();
+    @NonNull
+    private List<Tab.Row> actual = Collections.emptyList();
+
+    @NonNull
+    List<Tab.Row> expected() {
+      return expected;
+    }
+
+    @NonNull
+    List<Tab.Row> actual() {
+      return actual;
+    }
+
+    void addActual(@NonNull Tab.Row row) {
+      actual = add(actual, row);
+    }
+  }
+
+  /**
+   * Values of several key columns of a row, hashed once.
+   */
+  private static final class CompositeKey {
+    @NonNull
+    private final List<Tab.Val> vals;
+    @NonNull
+    private final int[] indexes;
+    private final int hash;
+
+    private CompositeKey(@NonNull List<Tab.Val> vals, @NonNull int[] indexes) {
+      this.vals = vals;
+      this.indexes = indexes;
+      int h = 1;
+      for (int i : indexes) {
+        h = 31 * h + Objects.hashCode(vals.get(i));
+      }
+      this.hash = h;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CompositeKey)) {
+        return false;
+      }
+      CompositeKey that = (CompositeKey) o;
+      if (hash != that.hash || indexes.length != that.indexes.length) {
+        return false;
+      }
+      for (int i = 0; i < indexes.length; i++) {
+        if (!Objects.equals(vals.get(indexes[i]), that.vals.get(that.indexes[i]))) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -1,26 +1,37 @@
 package io.github.nblxa.turntables.assertion;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.github.nblxa.turntables.AbstractTab;
 import io.github.nblxa.turntables.Tab;
 import io.github.nblxa.turntables.TableUtils;
 import io.github.nblxa.turntables.Utils;
 import io.github.nblxa.turntables.exception.TooManyPermutationsException;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.BitSet;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.Executor;
+import java.util.function.IntUnaryOperator;
 
 class UnorderedRowAsserter extends AbstractRowAsserter {
+  /**
+   * Fewer expected value rows are matched on the calling thread even if an executor is given.
+   */
+  static final int MIN_PARALLEL_ROWS = 4096;
+
   private final long rowPermutationLimit;
   private long permutationCount = 0L;
+  @Nullable
+  private final Executor executor;
 
   private List<Tab.Row> expected;
   private List<Tab.Row> actual;
@@ -30,8 +41,19 @@ class UnorderedRowAsserter extends AbstractRowAsserter {
 
   UnorderedRowAsserter(@NonNull List<Tab.Row> expected, @NonNull List<Tab.Row> actual,
                        long rowPermutationLimit, @NonNull ValAsserter valAsserter) {
+    this(expected, actual, rowPermutationLimit, valAsserter, null);
+  }
+
+  /**
+   * @param executor matches the value rows in parallel if there are at least
+   *     {@link #MIN_PARALLEL_ROWS} of them, or {@code null} to match them on the calling thread
+   */
+  UnorderedRowAsserter(@NonNull List<Tab.Row> expected, @NonNull List<Tab.Row> actual,
+                       long rowPermutationLimit, @NonNull ValAsserter valAsserter,
+                       @Nullable Executor executor) {
     super(valAsserter);
     this.rowPermutationLimit = rowPermutationLimit;
+    this.executor = executor;
     this.expected = expected;
     this.actual = actual;
 
@@ -40,88 +62,6 @@ class UnorderedRowAsserter extends AbstractRowAsserter {
     actOrdered = orderActual(this.actual, matchList, this.expected.size());
   }
 
-  @NonNull
-  private static Comparator<Tab.Row> rowComparator() {
-    return (iter1, iter2) -> {
-      List<Tab.Val> list1 = iter1.vals();
-      List<Tab.Val> list2 = iter2.vals();
-      for (int i = 0; i < list1.size(); i++) {
-        String val1 = list1.get(i).toString();
-        String val2 = list2.get(i).toString();
-        int compare = val1.compareTo(val2);
-        if (compare != 0) {
-          return compare;
-        }
-      }
-      return 0;
-    };
-  }
-
-  @NonNull
-  private static Map<Integer, ImmutableBitSet> withLeastCardinalityFirstElement(
-      @NonNull final Map<Integer, ImmutableBitSet> map1,
-      @NonNull final Map<Integer, ImmutableBitSet> map2
-  ) {
-    if (map1.isEmpty()) {
-      return map1;
-    }
-    if (map2.isEmpty()) {
-      return map2;
-    }
-
-    ImmutableBitSet bitSet1 = map1.values().iterator().next();
-    ImmutableBitSet bitSet2 = map2.values().iterator().next();
-
-    if (bitSet1.cardinality() <= bitSet2.cardinality()) {
-      return map1;
-    } else {
-      return map2;
-    }
-  }
-
-  @NonNull
-  private static ImmutableBitSet expectedsMatchingActual(
-      final int actualIndex,
-      @NonNull final Map<Integer, ImmutableBitSet> expectedToMatchingActuals
-  ) {
-    BitSet bitSet = new BitSet(expectedToMatchingActuals.size());
-    for (Map.Entry<Integer, ImmutableBitSet> e : expectedToMatchingActuals.entrySet()) {
-      int i = e.getKey();
-      ImmutableBitSet matchSet = e.getValue();
-      if (matchSet.get(actualIndex)) {
-        bitSet.set(i);
-      }
-    }
-    return new ImmutableBitSet(bitSet);
-  }
-
-  @NonNull
-  private static Map<Integer, ImmutableBitSet> sortByCardinality(
-      @NonNull final Map<Integer, ImmutableBitSet> matchMatrixAB) {
-    return matchMatrixAB.entrySet().stream()
-        .sorted(Comparator.comparing(e -> e.getValue().cardinality()))
-        .collect(LinkedHashMap::new,
-            (map, e) -> map.put(e.getKey(), e.getValue()),
-            (m1, m2) -> {
-            });
-  }
-
-  @NonNull
-  private static Map<Integer, ImmutableBitSet> filterPriorMatchesAndSort(
-      @NonNull final Map<Integer, ImmutableBitSet> matchMatrixAB,
-      @NonNull final ImmutableBitSet matchedA,
-      @NonNull final ImmutableBitSet matchedB
-  ) {
-    return matchMatrixAB.entrySet().stream()
-        .filter(a -> !matchedA.get(a.getKey()))
-        .map(a -> Utils.entry(a.getKey(), a.getValue().andNot(matchedB)))
-        .sorted(Comparator.comparing(e -> e.getValue().cardinality()))
-        .collect(LinkedHashMap::new,
-            (map, e) -> map.put(e.getKey(), e.getValue()),
-            (m1, m2) -> {
-            });
-  }
-
   private static <T> List<Optional<T>> orderExpected(List<T> expected,
                                                      ImmutableMatchList matchList,
                                                      int actualsSize) {
@@ -130,7 +70,7 @@ class UnorderedRowAsserter extends AbstractRowAsserter {
       result.add(Optional.of(item));
     }
     for (int i = 0; i < actualsSize; i++) {
-      if (!matchList.getExpected(i).isPresent()) {
+      if (!matchList.containsActual(i)) {
         result.add(Optional.empty());
       }
     }
@@ -141,11 +81,11 @@ class UnorderedRowAsserter extends AbstractRowAsserter {
                                                    int expectedSize) {
     final List<Optional<T>> result = new ArrayList<>();
     for (int i = 0; i < expectedSize; i++) {
-      Optional<T> opt = matchList.getActual(i).map(actual::get);
-      result.add(opt);
+      int act = matchList.getActual(i);
+      result.add(act == ImmutableMatchList.NONE ? Optional.empty() : Optional.of(actual.get(act)));
     }
     for (int i = 0; i < actual.size(); i++) {
-      if (!matchList.actual().contains(i)) {
+      if (!matchList.containsActual(i)) {
         result.add(Optional.of(actual.get(i)));
       }
     }
@@ -173,153 +113,239 @@ class UnorderedRowAsserter extends AbstractRowAsserter {
     List<Map.Entry<Integer, Tab.Row>> expectedAssertionRows = new ArrayList<>();
     for (int i = 0; i < expected.size(); i++) {
       Tab.Row r = expected.get(i);
-      boolean hasMatcher = r.vals().stream()
-          .anyMatch(v -> v instanceof TableUtils.AssertionVal);
-      if (hasMatcher) {
-        expectedAssertionRows.add(Utils.entry(i, r));
-      } else {
+      if (isValueRow(r)) {
         expectedValueRows.add(Utils.entry(i, r));
+      } else {
+        expectedAssertionRows.add(Utils.entry(i, r));
       }
     }
-    List<Map.Entry<Integer, Tab.Row>> allActualRows = IntStream.range(0, actual.size())
-        .mapToObj(i -> Utils.entry(i, actual.get(i)))
-        .collect(Collectors.toList());
 
-    Comparator<Map.Entry<Integer, Tab.Row>> entryComp = Map.Entry.comparingByValue(rowComparator());
-    expectedValueRows.sort(entryComp);
-    allActualRows.sort(entryComp);
-
-    ImmutableMatchList valueRowMatches = valueRowMatches(expectedValueRows, allActualRows);
-    Set<Integer> matchedActualSet = valueRowMatches.actual();
-    List<Map.Entry<Integer, Tab.Row>> unmatchedActualRows = allActualRows.stream()
-        .filter(e -> !matchedActualSet.contains(e.getKey()))
-        .collect(Collectors.toList());
+    ImmutableMatchList valueRowMatches = valueRowMatches(expectedValueRows);
+    List<Map.Entry<Integer, Tab.Row>> unmatchedActualRows = new ArrayList<>();
+    for (int i = 0; i < actual.size(); i++) {
+      if (!valueRowMatches.containsActual(i)) {
+        unmatchedActualRows.add(Utils.entry(i, actual.get(i)));
+      }
+    }
 
     ImmutableMatchList assertionRowMatches = assertionRowMatches(expectedAssertionRows, unmatchedActualRows);
     return valueRowMatches.concat(assertionRowMatches);
   }
 
-  @NonNull
-  private ImmutableMatchList valueRowMatches(
-      @NonNull List<Map.Entry<Integer, Tab.Row>> sortedExpectedValueRows,
-      @NonNull List<Map.Entry<Integer, Tab.Row>> sortedAllActualRows
-  ) {
-    List<Map.Entry<Integer, Tab.Row>> expRows = new ArrayList<>(sortedExpectedValueRows);
-    List<Map.Entry<Integer, Tab.Row>> actRows = new ArrayList<>(sortedAllActualRows);
-    ImmutableMatchList matchList = ImmutableMatchList.EMPTY;
-    Iterator<Map.Entry<Integer, Tab.Row>> expIter = expRows.listIterator();
-    while (expIter.hasNext()) {
-      Map.Entry<Integer, Tab.Row> exp = expIter.next();
-      boolean matchedExp = false;
-      Iterator<Map.Entry<Integer, Tab.Row>> actIter = actRows.listIterator();
-      while (actIter.hasNext() && !matchedExp) {
-        Map.Entry<Integer, Tab.Row> act = actIter.next();
-        matchedExp = matchRows(exp.getValue(), act.getValue());
-        if (matchedExp) {
-          matchList = matchList.add(exp.getKey(), act.getKey());
-          expIter.remove();
-          actIter.remove();
-        }
+  /**
+   * Value rows are matched by hashing, which is only consistent with {@link Tab.Val#matchesActual}
+   * for the value classes provided by Turntables.
+   */
+  private static boolean isValueRow(@NonNull Tab.Row row) {
+    for (Tab.Val val : row.vals()) {
+      if (!(val instanceof AbstractTab.AbstractVal) || val instanceof TableUtils.AssertionVal) {
+        return false;
       }
     }
-    return matchList;
+    return true;
   }
 
+  /**
+   * Match the expected value rows in their given order, each to the first matching actual row
+   * with the same hash. Actual rows which cannot be hashed are checked one by one.
+   */
   @NonNull
-  private ImmutableMatchList assertionRowMatches(
-      @NonNull final List<Map.Entry<Integer, Tab.Row>> expectedAssertionRows,
-      @NonNull final List<Map.Entry<Integer, Tab.Row>> unmatchedActualRows
+  private ImmutableMatchList valueRowMatches(
+      @NonNull List<Map.Entry<Integer, Tab.Row>> expectedValueRows
   ) {
-    int numExpected = expectedAssertionRows.size();
-    int numActual = unmatchedActualRows.size();
-
-    if (numExpected != numActual) {
+    if (expectedValueRows.isEmpty()) {
       return ImmutableMatchList.EMPTY;
     }
-
-    Map<Integer, ImmutableBitSet> expectedToMatchingActuals = new LinkedHashMap<>(numExpected);
-    for (Map.Entry<Integer, Tab.Row> expEntry : expectedAssertionRows) {
-      Tab.Row expectedRow = expEntry.getValue();
-      ImmutableBitSet bitSet = actualsMatchingExpected(
-          expectedRow, unmatchedActualRows);
-      expectedToMatchingActuals.put(expEntry.getKey(), bitSet);
+    if (executor != null && expectedValueRows.size() >= MIN_PARALLEL_ROWS) {
+      return parallelValueRowMatches(expectedValueRows, executor);
     }
-    expectedToMatchingActuals = sortByCardinality(expectedToMatchingActuals);
-
-    Map<Integer, ImmutableBitSet> actualToMatchingExpecteds = new LinkedHashMap<>(numActual);
-    for (Map.Entry<Integer, Tab.Row> unmatchedActualRow : unmatchedActualRows) {
-      int actualKey = unmatchedActualRow.getKey();
-      ImmutableBitSet bitSet = expectedsMatchingActual(actualKey, expectedToMatchingActuals);
-      actualToMatchingExpecteds.put(actualKey, bitSet);
+    Map<Integer, Deque<Integer>> actualsPerHash = new HashMap<>();
+    List<Integer> unhashedActuals = new LinkedList<>();
+    for (int i = 0; i < actual.size(); i++) {
+      Tab.Row act = actual.get(i);
+      if (isValueRow(act)) {
+        actualsPerHash.computeIfAbsent(valAsserter.hashActual(act.vals()), h -> new ArrayDeque<>())
+            .add(i);
+      } else {
+        unhashedActuals.add(i);
+      }
     }
-    actualToMatchingExpecteds = sortByCardinality(actualToMatchingExpecteds);
 
-    Map<Integer, ImmutableBitSet> withLeastCardinalityFirstElement =
-        withLeastCardinalityFirstElement(expectedToMatchingActuals, actualToMatchingExpecteds);
-    boolean matchByExpected = withLeastCardinalityFirstElement == expectedToMatchingActuals;
+    ImmutableMatchList.Builder matchList = new ImmutableMatchList.Builder(expected.size(),
+        actual.size());
+    for (Map.Entry<Integer, Tab.Row> exp : expectedValueRows) {
+      Tab.Row expRow = exp.getValue();
+      Collection<Integer> bucket = actualsPerHash.get(valAsserter.hashExpected(expRow.vals()));
+      int act = bucket == null ? -1 : removeFirstMatch(expRow, bucket);
+      if (act == -1 && !unhashedActuals.isEmpty()) {
+        act = removeFirstMatch(expRow, unhashedActuals);
+      }
+      if (act != -1) {
+        matchList.add(exp.getKey(), act);
+      }
+    }
+    return matchList.build();
+  }
 
-    MatchDetail matchDetail = matchByBitSets(withLeastCardinalityFirstElement,
-        ImmutableBitSet.EMPTY, ImmutableBitSet.EMPTY, withLeastCardinalityFirstElement.size(),
-        ImmutableMatchList.EMPTY);
+  /**
+   * Same as {@link #valueRowMatches}, producing the same pairs.
+   *
+   * <p>Only the rows with the same hash can be paired, so the rows are split into shards
+   * by their hashes, and each shard pairs its expected rows in their given order with its
+   * actual rows. The expected rows that remain unpaired are then checked against the actual
+   * rows which cannot be hashed, in their given order on the calling thread.
+   */
+  @NonNull
+  private ImmutableMatchList parallelValueRowMatches(
+      @NonNull List<Map.Entry<Integer, Tab.Row>> expectedValueRows,
+      @NonNull Executor executor
+  ) {
+    int numExpected = expectedValueRows.size();
+    int numActual = actual.size();
+    int numShards = ParallelTasks.numTasks(executor);
+
+    int[] expectedHashes = new int[numExpected];
+    int[] actualHashes = new int[numActual];
+    boolean[] hashed = new boolean[numActual];
+    ParallelTasks.inParallel(executor, numShards, shard -> {
+      for (int i = ParallelTasks.rangeStart(numExpected, numShards, shard);
+           i < ParallelTasks.rangeStart(numExpected, numShards, shard + 1); i++) {
+        expectedHashes[i] = valAsserter.hashExpected(expectedValueRows.get(i).getValue().vals());
+      }
+      for (int i = ParallelTasks.rangeStart(numActual, numShards, shard);
+           i < ParallelTasks.rangeStart(numActual, numShards, shard + 1); i++) {
+        Tab.Row act = actual.get(i);
+        if (isValueRow(act)) {
+          hashed[i] = true;
+          actualHashes[i] = valAsserter.hashActual(act.vals());
+        }
+      }
+    });
+
+    int[][] expectedsOfShard = partition(numExpected, numShards,
+        i -> shardOf(expectedHashes[i], numShards));
+    int[][] actualsOfShard = partition(numActual, numShards,
+        i -> hashed[i] ? shardOf(actualHashes[i], numShards) : -1);
+
+    int[] actualOfExpected = new int[numExpected];
+    Arrays.fill(actualOfExpected, -1);
+    ParallelTasks.inParallel(executor, numShards, shard -> {
+      Map<Integer, Deque<Integer>> actualsPerHash = new HashMap<>();
+      for (int act : actualsOfShard[shard]) {
+        actualsPerHash.computeIfAbsent(actualHashes[act], h -> new ArrayDeque<>()).add(act);
+      }
+      for (int exp : expectedsOfShard[shard]) {
+        Collection<Integer> bucket = actualsPerHash.get(expectedHashes[exp]);
+        if (bucket != null) {
+          actualOfExpected[exp] = removeFirstMatch(expectedValueRows.get(exp).getValue(), bucket);
+        }
+      }
+    });
 
-    if (!matchDetail.isMatched) {
-      return ImmutableMatchList.EMPTY;
+    List<Integer> unhashedActuals = new LinkedList<>();
+    for (int i = 0; i < numActual; i++) {
+      if (!hashed[i]) {
+        unhashedActuals.add(i);
+      }
     }
-    if (matchByExpected) {
-      return matchDetail.matchList;
-    } else {
-      return matchDetail.matchList.swapped();
+    ImmutableMatchList.Builder matchList = new ImmutableMatchList.Builder(expected.size(),
+        actual.size());
+    for (int i = 0; i < numExpected; i++) {
+      Map.Entry<Integer, Tab.Row> exp = expectedValueRows.get(i);
+      int act = actualOfExpected[i];
+      if (act == -1 && !unhashedActuals.isEmpty()) {
+        act = removeFirstMatch(exp.getValue(), unhashedActuals);
+      }
+      if (act != -1) {
+        matchList.add(exp.getKey(), act);
+      }
     }
+    return matchList.build();
+  }
+
+  private static int shardOf(int hash, int numShards) {
+    // spread the bits, since the hashes of small numbers differ only in the lowest bits
+    int h = hash * 0x9E3779B9;
+    return Math.floorMod(h ^ (h >>> 16), numShards);
   }
 
+  /**
+   * Groups the indexes by shard, keeping them in ascending order within each shard.
+   *
+   * @param shardOfIndex the shard of an index or -1 to leave the index out
+   */
   @NonNull
-  private ImmutableBitSet actualsMatchingExpected(
-      @NonNull final Tab.Row expectedRow,
-      @NonNull final List<Map.Entry<Integer, Tab.Row>> actualRows
-  ) {
-    BitSet bitSet = new BitSet(actualRows.size());
-    for (Map.Entry<Integer, Tab.Row> actualRow : actualRows) {
-      if (matchRows(expectedRow, actualRow.getValue())) {
-        bitSet.set(actualRow.getKey());
+  private static int[][] partition(int size, int numShards,
+                                   @NonNull IntUnaryOperator shardOfIndex) {
+    int[] shards = new int[size];
+    int[] counts = new int[numShards];
+    for (int i = 0; i < size; i++) {
+      shards[i] = shardOfIndex.applyAsInt(i);
+      if (shards[i] >= 0) {
+        counts[shards[i]]++;
+      }
+    }
+    int[][] indexesOfShard = new int[numShards][];
+    for (int shard = 0; shard < numShards; shard++) {
+      indexesOfShard[shard] = new int[counts[shard]];
+      counts[shard] = 0;
+    }
+    for (int i = 0; i < size; i++) {
+      int shard = shards[i];
+      if (shard >= 0) {
+        indexesOfShard[shard][counts[shard]++] = i;
+      }
+    }
+    return indexesOfShard;
+  }
+
+  private int removeFirstMatch(@NonNull Tab.Row expRow, @NonNull Collection<Integer> actuals) {
+    Iterator<Integer> iter = actuals.iterator();
+    while (iter.hasNext()) {
+      int act = iter.next();
+      if (matchRows(expRow, actual.get(act))) {
+        iter.remove();
+        return act;
       }
     }
-    return new ImmutableBitSet(bitSet);
+    return -1;
   }
 
   @NonNull
-  private MatchDetail matchByBitSets(
-      @NonNull final Map<Integer, ImmutableBitSet> matchMatrixAB,
-      @NonNull final ImmutableBitSet matchedA,
-      @NonNull final ImmutableBitSet matchedB,
-      final int targetMatchCount,
-      final ImmutableMatchList currentMatchList
+  private ImmutableMatchList assertionRowMatches(
+      @NonNull final List<Map.Entry<Integer, Tab.Row>> expectedAssertionRows,
+      @NonNull final List<Map.Entry<Integer, Tab.Row>> unmatchedActualRows
   ) {
-    Map<Integer, ImmutableBitSet> matchMatrixABFiltered = filterPriorMatchesAndSort(
-        matchMatrixAB, matchedA, matchedB);
-
-    Iterator<Map.Entry<Integer, ImmutableBitSet>> iterator = matchMatrixABFiltered.entrySet()
-        .iterator();
-    if (iterator.hasNext()) {
-      Map.Entry<Integer, ImmutableBitSet> entryB = iterator.next();
-      ImmutableBitSet matchesB = entryB.getValue();
-
-      int a = entryB.getKey();
-      for (int b : matchesB) {
-        MatchDetail matchDetail = matchByBitSets(
-            matchMatrixABFiltered, matchedA.set(a), matchedB.set(b), targetMatchCount,
-            currentMatchList.add(a, b));
-
-        if (matchDetail.isMatched) {
-          return matchDetail;
+    int numExpected = expectedAssertionRows.size();
+    int numActual = unmatchedActualRows.size();
+
+    if (numExpected == 0 || numActual == 0) {
+      return ImmutableMatchList.EMPTY;
+    }
+
+    BitMatrix matchMatrix = new BitMatrix(numExpected, numActual);
+    for (int i = 0; i < numExpected; i++) {
+      Tab.Row expectedRow = expectedAssertionRows.get(i).getValue();
+      for (int j = 0; j < numActual; j++) {
+        if (matchRows(expectedRow, unmatchedActualRows.get(j).getValue())) {
+          matchMatrix.set(i, j);
         }
       }
     }
-    if (matchedA.cardinality() != targetMatchCount) {
-      incrementPermutations();
-      return new MatchDetail(false, currentMatchList);
-    } else {
-      return new MatchDetail(true, currentMatchList);
+
+    int[] actualOfExpected = new BipartiteMatcher(matchMatrix, this::incrementPermutations)
+        .match();
+
+    ImmutableMatchList.Builder matchList = new ImmutableMatchList.Builder(expected.size(),
+        actual.size());
+    for (int i = 0; i < numExpected; i++) {
+      int j = actualOfExpected[i];
+      if (j >= 0) {
+        matchList.add(expectedAssertionRows.get(i).getKey(),
+            unmatchedActualRows.get(j).getKey());
+      }
     }
+    return matchList.build();
   }
 
   private void incrementPermutations() {
@@ -330,14 +356,4 @@ class UnorderedRowAsserter extends AbstractRowAsserter {
     }
     permutationCount = permutationCount + 1;
   }
-
-  private static class MatchDetail {
-    private final boolean isMatched;
-    private final ImmutableMatchList matchList;
-
-    private MatchDetail(boolean isMatched, ImmutableMatchList matchList) {
-      this.isMatched = isMatched;
-      this.matchList = matchList;
-    }
-  }
 }
@@ -8,4 +8,22 @@ public interface ValAsserter {
   boolean match(@NonNull List<Tab.Val> expected, @NonNull List<Tab.Val> actual);
 
   boolean matchVals(@NonNull Tab.Val expected, @NonNull Tab.Val actual);
+
+  /**
+   * Hash code of the expected row's values. If {@link #match} returns true for a pair of rows,
+   * {@code hashExpected} of the expected row must equal {@link #hashActual} of the actual row.
+   *
+   * @param expected values of the expected row containing no assertions
+   * @return the hash code
+   */
+  int hashExpected(@NonNull List<Tab.Val> expected);
+
+  /**
+   * Hash code of the actual row's values.
+   *
+   * @param actual values of the actual row
+   * @return the hash code
+   * @see #hashExpected
+   */
+  int hashActual(@NonNull List<Tab.Val> actual);
 }
@@ -1,11 +1,20 @@
 package io.github.nblxa.turntables.assertj;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import io.github.nblxa.turntables.DequeThreadLocal;
 import io.github.nblxa.turntables.Settings;
 import io.github.nblxa.turntables.Tab;
 import io.github.nblxa.turntables.Turntables;
 import io.github.nblxa.turntables.assertion.AssertionProxy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.Executor;
 import org.assertj.core.api.AbstractObjectAssert;
 import org.assertj.core.error.BasicErrorMessageFactory;
 import org.assertj.core.error.ErrorMessageFactory;
@@ -20,9 +29,15 @@ public class TabAssert<T extends Tab> extends AbstractObjectAssert<TabAssert<T>,
    * See <a href="https://github.com/JetBrains/intellij-community/blob/201.7223/plugins/junit_rt/src/com/intellij/junit4/ExpectedPatterns.java">ExpectedPatterns.java</a>.
    */
   private static final String MSG_FORMAT = "%nEXPECTED: %s%nBUT: WAS %s";
+  private static final String MSG_REPORT_FORMAT = "%nThe tables do not match. See the files:"
+      + "%n  expected: %s%n  actual:   %s";
+  private static final String EXPECTED_FILE = "expected.yml";
+  private static final String ACTUAL_FILE = "actual.yml";
 
   private final AssertionProxy.Builder proxyBuilder;
   private final Failures failures = Failures.instance();
+  @Nullable
+  private Path reportDir;
 
   public TabAssert(T tab) {
     super(tab, TabAssert.class);
@@ -52,12 +67,78 @@ public class TabAssert<T extends Tab> extends AbstractObjectAssert<TabAssert<T>,
       // Use the Representation objects to prevent AssertJ from enclosing the String values in double quotes.
       AssertionProxy.Representation actRep = new AssertionProxy.Representation(actProxy);
       AssertionProxy.Representation expRep = new AssertionProxy.Representation(expProxy);
-      ErrorMessageFactory errorMessages = new BasicErrorMessageFactory(MSG_FORMAT, expRep, actRep);
+      ErrorMessageFactory errorMessages;
+      if (reportDir == null) {
+        errorMessages = new BasicErrorMessageFactory(MSG_FORMAT, expRep, actRep);
+      } else {
+        Path dir = writeReport(reportDir, expProxy, actProxy).toAbsolutePath();
+        // Paths are Iterable, so AssertJ would represent them as lists of their elements.
+        String expFile = dir.resolve(EXPECTED_FILE).toString();
+        String actFile = dir.resolve(ACTUAL_FILE).toString();
+        if (builder.isDiff()) {
+          errorMessages = new BasicErrorMessageFactory(MSG_REPORT_FORMAT + MSG_FORMAT,
+              unquoted(expFile), unquoted(actFile), expRep, actRep);
+        } else {
+          errorMessages = new BasicErrorMessageFactory(MSG_REPORT_FORMAT, unquoted(expFile),
+              unquoted(actFile));
+        }
+      }
 
       throw failures.failure(getWritableAssertionInfo(), errorMessages);
     }
   }
 
+  /**
+   * On a mismatch, write the representations of the expected and the actual table into files
+   * in a new directory under the given one, and only refer to the files in the assertion
+   * error instead of including the representations.
+   *
+   * <p>The files contain all rows, even if the assertion error shows a {@link #diff(int)}.
+   * The diff is then shown in addition to the references to the files.
+   *
+   * @param reportDir the directory in which to create a directory for each failed assertion
+   * @return the assertion object
+   */
+  @NonNull
+  public TabAssert<T> reportDir(@NonNull Path reportDir) {
+    this.reportDir = Objects.requireNonNull(reportDir, "reportDir");
+    return this;
+  }
+
+  @NonNull
+  private static Path writeReport(@NonNull Path reportDir, @NonNull AssertionProxy expProxy,
+                                  @NonNull AssertionProxy actProxy) {
+    try {
+      Files.createDirectories(reportDir);
+      Path dir = Files.createTempDirectory(reportDir, "turntables-");
+      writeRepresentation(dir.resolve(EXPECTED_FILE), expProxy);
+      writeRepresentation(dir.resolve(ACTUAL_FILE), actProxy);
+      return dir;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot write the assertion report to " + reportDir, e);
+    }
+  }
+
+  /**
+   * Prevents AssertJ from enclosing the String value in double quotes.
+   */
+  @NonNull
+  private static Object unquoted(@NonNull String text) {
+    return new Object() {
+      @Override
+      public String toString() {
+        return text;
+      }
+    };
+  }
+
+  private static void writeRepresentation(@NonNull Path file, @NonNull AssertionProxy proxy)
+      throws IOException {
+    try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      proxy.writeRepresentation(writer);
+    }
+  }
+
   /**
    * Starts a fluent construction of the expected {@link Tab}.
    *
@@ -106,6 +187,41 @@ public class TabAssert<T extends Tab> extends AbstractObjectAssert<TabAssert<T>,
     return this;
   }
 
+  @Override
+  @NonNull
+  public TabAssert<T> mismatchingKeyLimit(int mismatchingKeyLimit) {
+    proxyBuilder.mismatchingKeyLimit(mismatchingKeyLimit);
+    return this;
+  }
+
+  @Override
+  @NonNull
+  public TabAssert<T> parallel() {
+    proxyBuilder.parallel();
+    return this;
+  }
+
+  @Override
+  @NonNull
+  public TabAssert<T> parallel(@NonNull Executor executor) {
+    proxyBuilder.parallel(executor);
+    return this;
+  }
+
+  @Override
+  @NonNull
+  public TabAssert<T> diff(int contextRows) {
+    proxyBuilder.diff(contextRows);
+    return this;
+  }
+
+  @Override
+  @NonNull
+  public TabAssert<T> diffLimits(int maxRows, int maxChars) {
+    proxyBuilder.diffLimits(maxRows, maxChars);
+    return this;
+  }
+
   @NonNull
   @Override
   public TabAssert<T> settings(Settings settings) {
@@ -1,7 +1,28 @@
 package io.github.nblxa.turntables.exception;
 
 public class FeedException extends RuntimeException {
+  public static final int UNKNOWN_ROW = -1;
+
+  private final int rowIndex;
+
   public FeedException(Throwable cause) {
     super(cause);
+    this.rowIndex = UNKNOWN_ROW;
+  }
+
+  /**
+   * @param rowIndex the index of the row that could not be fed
+   * @param cause the cause
+   */
+  public FeedException(int rowIndex, Throwable cause) {
+    super("Error feeding the row at index " + rowIndex, cause);
+    this.rowIndex = rowIndex;
+  }
+
+  /**
+   * @return the index of the row that could not be fed or {@link #UNKNOWN_ROW}
+   */
+  public int getRowIndex() {
+    return rowIndex;
   }
 }
@@ -6,30 +6,155 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.github.nblxa.turntables.Tab;
 import io.github.nblxa.turntables.TableUtils;
 import io.github.nblxa.turntables.Typ;
+import io.github.nblxa.turntables.exception.FeedException;
 import io.github.nblxa.turntables.io.ThrowingSupplier;
 import io.github.nblxa.turntables.io.rowstore.CleanUpAction;
 import java.math.BigDecimal;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
 public abstract class AbstractJdbcProtocol<T extends Connection> implements FeedProtocol<T> {
+  public static final int DEFAULT_BATCH_SIZE = 1000;
+  /**
+   * Appended to the name of a table to name its snapshot, see {@link CleanUpAction#SNAPSHOT}.
+   */
+  public static final String SNAPSHOT_SUFFIX = "__tt_snap";
+
+  private final int batchSize;
+
+  protected AbstractJdbcProtocol() {
+    this(DEFAULT_BATCH_SIZE);
+  }
+
+  /**
+   * @param batchSize the number of rows to insert in one JDBC batch
+   */
+  protected AbstractJdbcProtocol(int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be > 0");
+    }
+    this.batchSize = batchSize;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  /**
+   * Override to insert several rows with one multi-row {@code INSERT ... VALUES (...), (...)}
+   * statement, which saves round trips on drivers sending each statement of a batch separately.
+   * The number of rows per statement is limited by {@link #getBatchSize()} and by this number
+   * divided by the number of columns.
+   *
+   * @return the maximum number of bind parameters in one statement, or 0 to insert
+   *     one row per statement
+   */
+  protected int getMaxBindParameters() {
+    return 0;
+  }
+
   @NonNull
   @Override
   public ThrowingConsumer<T> feed(@NonNull String name, @NonNull Tab tab) {
-    return conn -> new Feed(conn, name, tab).feed();
+    return feed(name, tab, new SchemaCache());
+  }
+
+  @NonNull
+  @Override
+  public ThrowingConsumer<T> feed(@NonNull String name, @NonNull Tab tab,
+                                  @NonNull SchemaCache schemaCache) {
+    return conn -> {
+      try (StatementCache statementCache = new StatementCache(conn)) {
+        newFeed(conn, name, tab, schemaCache, statementCache).feed();
+      }
+    };
+  }
+
+  @NonNull
+  @Override
+  public ThrowingConsumer<T> feed(@NonNull String name, @NonNull Tab tab,
+                                  @NonNull SchemaCache schemaCache,
+                                  @NonNull StatementCache statementCache) {
+    return conn -> newFeed(conn, name, tab, schemaCache, statementCache).feed();
   }
 
   @NonNull
   @Override
   public ThrowingConsumer<T> cleanUp(@NonNull String name, @NonNull CleanUpAction cleanUpAction) {
-    return conn -> new CleanUp(conn, name, cleanUpAction).cleanUp();
+    return cleanUp(name, cleanUpAction, new SchemaCache());
+  }
+
+  @NonNull
+  @Override
+  public ThrowingConsumer<T> cleanUp(@NonNull String name, @NonNull CleanUpAction cleanUpAction,
+                                     @NonNull SchemaCache schemaCache) {
+    return conn -> new CleanUp(conn, name, cleanUpAction, schemaCache).cleanUp();
+  }
+
+  @NonNull
+  @Override
+  public ThrowingConsumer<T> snapshot(@NonNull String name) {
+    return snapshot(name, new SchemaCache());
+  }
+
+  @NonNull
+  @Override
+  public ThrowingConsumer<T> snapshot(@NonNull String name, @NonNull SchemaCache schemaCache) {
+    return conn -> newSnapshot(conn, name, schemaCache).take();
+  }
+
+  @NonNull
+  @Override
+  public ThrowingConsumer<T> restore(@NonNull String name) {
+    return restore(name, new SchemaCache());
+  }
+
+  @NonNull
+  @Override
+  public ThrowingConsumer<T> restore(@NonNull String name, @NonNull SchemaCache schemaCache) {
+    return conn -> newSnapshot(conn, name, schemaCache).restore();
+  }
+
+  @NonNull
+  @Override
+  public ThrowingConsumer<T> dropSnapshot(@NonNull String name) {
+    return dropSnapshot(name, new SchemaCache());
+  }
+
+  @NonNull
+  @Override
+  public ThrowingConsumer<T> dropSnapshot(@NonNull String name,
+                                          @NonNull SchemaCache schemaCache) {
+    return conn -> newSnapshot(conn, name, schemaCache).drop();
+  }
+
+  /**
+   * Override to feed the table in a database-specific way.
+   */
+  @NonNull
+  protected Feed newFeed(@NonNull T connection, @NonNull String name, @NonNull Tab tab,
+                         @NonNull SchemaCache schemaCache,
+                         @NonNull StatementCache statementCache) {
+    return new Feed(connection, name, tab, schemaCache, statementCache);
+  }
+
+  /**
+   * Override to copy tables in a database-specific way.
+   */
+  @NonNull
+  protected Snapshot newSnapshot(@NonNull T connection, @NonNull String name,
+                                 @NonNull SchemaCache schemaCache) {
+    return new Snapshot(connection, name, schemaCache);
   }
 
   @NonNull
@@ -38,10 +163,26 @@ public abstract class AbstractJdbcProtocol<T extends Connection> implements Feed
   protected abstract boolean tableExists(@NonNull Connection connection,
                                          @NonNull String tableName) throws SQLException;
 
+  /**
+   * Queries the data dictionary only if the table is not in the cache.
+   */
+  protected boolean tableExists(@NonNull Connection connection, @NonNull String tableName,
+                                @NonNull SchemaCache schemaCache) throws SQLException {
+    return schemaCache.tableExists(tableName, () -> tableExists(connection, tableName));
+  }
+
+  /**
+   * Runs the action in a transaction of its own, restoring the auto-commit mode afterwards.
+   * If the auto-commit mode of the connection is off, the action takes part in the transaction
+   * of the caller instead, which is neither committed nor rolled back.
+   */
   @SuppressWarnings("UnusedReturnValue")
   protected static <V, T extends Connection> V wrapInTransaction(
       @NonNull T connection,
       @NonNull ThrowingSupplier<V, SQLException> action) throws SQLException {
+    if (!connection.getAutoCommit()) {
+      return action.get();
+    }
     connection.setAutoCommit(false);
     try {
       V res = action.get();
@@ -52,6 +193,10 @@ public abstract class AbstractJdbcProtocol<T extends Connection> implements Feed
         connection.rollback();
       }
       throw e;
+    } finally {
+      if (!connection.isClosed()) {
+        connection.setAutoCommit(true);
+      }
     }
   }
 
@@ -64,22 +209,43 @@ public abstract class AbstractJdbcProtocol<T extends Connection> implements Feed
     protected final Tab tab;
     @NonNull
     protected final List<String> colNames;
+    @NonNull
+    protected final SchemaCache schemaCache;
+    @NonNull
+    protected final StatementCache statementCache;
+    /**
+     * Whether the rows are fed in the transaction of the caller, which must not be committed.
+     */
+    protected boolean inCallerTransaction;
 
-    public Feed(@NonNull Connection connection, @NonNull String name, @NonNull Tab tab) {
+    public Feed(@NonNull Connection connection, @NonNull String name, @NonNull Tab tab,
+                @NonNull SchemaCache schemaCache, @NonNull StatementCache statementCache) {
       this.connection = Objects.requireNonNull(connection, "connection is null");
       this.name = Objects.requireNonNull(name, "unsafeName is null");
       this.tab = Objects.requireNonNull(tab, "tab is null");
       this.colNames = TableUtils.colNames(tab);
+      this.schemaCache = Objects.requireNonNull(schemaCache, "schemaCache is null");
+      this.statementCache = Objects.requireNonNull(statementCache, "statementCache is null");
     }
 
+    /**
+     * Since the creation of the table may be rolled back, the table is removed from
+     * the cache if feeding fails.
+     */
     public void feed() throws SQLException {
-      wrapInTransaction(connection, () -> {
-        if (!tableExists(connection, name)) {
-          createTable();
-        }
-        insertIntoTable();
-        return null;
-      });
+      inCallerTransaction = !connection.getAutoCommit();
+      try {
+        wrapInTransaction(connection, () -> {
+          if (!tableExists(connection, name, schemaCache)) {
+            createTable();
+          }
+          insertIntoTable();
+          return null;
+        });
+      } catch (SQLException | RuntimeException e) {
+        schemaCache.invalidate(name);
+        throw e;
+      }
     }
 
     @SuppressFBWarnings(value = "SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE",
@@ -89,6 +255,7 @@ public abstract class AbstractJdbcProtocol<T extends Connection> implements Feed
       try (Statement stmt = connection.createStatement()) {
         stmt.execute(createSql);
       }
+      schemaCache.created(name);
     }
 
     @NonNull
@@ -113,20 +280,133 @@ public abstract class AbstractJdbcProtocol<T extends Connection> implements Feed
       return sb.toString();
     }
 
-    @SuppressFBWarnings(value = "SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE",
-        justification = "This library is for use in tests only, not productively.")
+    /**
+     * Inserts the rows with multi-row statements if {@link #getMaxBindParameters()} allows
+     * more than one row per statement. Otherwise, inserts them in batches of
+     * {@link #getBatchSize()} rows, or one by one if the driver does not support batch updates.
+     * The statements are taken from the {@link StatementCache}.
+     *
+     * @throws FeedException with the index of the row that could not be inserted
+     */
     protected void insertIntoTable() throws SQLException {
+      int rowsPerInsert = getRowsPerInsert();
+      if (rowsPerInsert > 1) {
+        insertMultiRow(rowsPerInsert);
+        return;
+      }
       String insertSql = buildInsertSql();
-      try (PreparedStatement stmt = connection.prepareStatement(insertSql)) {
+      boolean batched = connection.getMetaData().supportsBatchUpdates();
+      PreparedStatement stmt = statementCache.prepare(insertSql);
+      try {
+        int batchStart = 0;
+        int rowIndex = 0;
         for (Tab.Row row: tab.rows()) {
-          insertRow(stmt, row);
+          try {
+            if (batched) {
+              addRowToBatch(stmt, row);
+            } else {
+              insertRow(stmt, row);
+            }
+          } catch (SQLException se) {
+            throw new FeedException(rowIndex, se);
+          }
+          rowIndex++;
+          if (batched && rowIndex - batchStart == getBatchSize()) {
+            executeBatch(stmt, batchStart);
+            batchStart = rowIndex;
+          }
+        }
+        if (batched && rowIndex > batchStart) {
+          executeBatch(stmt, batchStart);
         }
+      } catch (SQLException | RuntimeException e) {
+        evict(stmt, e);
+        throw e;
+      }
+    }
+
+    protected int getRowsPerInsert() {
+      int numCols = colNames.size();
+      if (numCols == 0) {
+        return 1;
+      }
+      return Math.max(1, Math.min(getBatchSize(), getMaxBindParameters() / numCols));
+    }
+
+    /**
+     * Inserts the rows in chunks of {@code rowsPerInsert} rows, each with one statement.
+     * The statements are taken from the {@link StatementCache} once per chunk size.
+     *
+     * @throws FeedException with the index of the first row of the chunk that could not
+     *     be inserted
+     */
+    protected void insertMultiRow(int rowsPerInsert) throws SQLException {
+      Map<Integer, PreparedStatement> statements = new HashMap<>();
+      List<Tab.Row> chunk = new ArrayList<>(rowsPerInsert);
+      int chunkStart = 0;
+      for (Tab.Row row: tab.rows()) {
+        chunk.add(row);
+        if (chunk.size() == rowsPerInsert) {
+          insertChunk(statements, chunk, chunkStart);
+          chunkStart += chunk.size();
+          chunk.clear();
+        }
+      }
+      if (!chunk.isEmpty()) {
+        insertChunk(statements, chunk, chunkStart);
+      }
+    }
+
+    private void insertChunk(@NonNull Map<Integer, PreparedStatement> statements,
+                             @NonNull List<Tab.Row> chunk, int chunkStart) throws SQLException {
+      PreparedStatement stmt = statements.get(chunk.size());
+      if (stmt == null) {
+        stmt = statementCache.prepare(buildInsertSql(chunk.size()));
+        statements.put(chunk.size(), stmt);
+      }
+      try {
+        int jdbcIndex = 1;
+        for (Tab.Row row: chunk) {
+          jdbcIndex = setValues(stmt, row, jdbcIndex);
+        }
+        stmt.execute();
+      } catch (SQLException | RuntimeException e) {
+        FeedException fe = new FeedException(chunkStart, e);
+        evict(stmt, fe);
+        throw fe;
+      }
+    }
+
+    /**
+     * Removes the statement from the cache after a failure, since its state is unknown.
+     */
+    private void evict(@NonNull PreparedStatement stmt, @NonNull Exception failure) {
+      try {
+        statementCache.evict(stmt);
+      } catch (SQLException se) {
+        failure.addSuppressed(se);
+      }
+    }
+
+    protected void executeBatch(@NonNull PreparedStatement stmt, int batchStart)
+        throws SQLException {
+      try {
+        stmt.executeBatch();
+      } catch (BatchUpdateException bue) {
+        throw new FeedException(batchStart + failedRowInBatch(bue), bue);
       }
-      connection.commit();
     }
 
     @NonNull
     protected String buildInsertSql() {
+      return buildInsertSql(1);
+    }
+
+    /**
+     * @param numRows the number of rows in the {@code VALUES} clause
+     */
+    @NonNull
+    protected String buildInsertSql(int numRows) {
       StringBuilder sb = new StringBuilder("INSERT INTO ");
       sb.append(name);
       int numCols = colNames.size();
@@ -140,14 +420,20 @@ public abstract class AbstractJdbcProtocol<T extends Connection> implements Feed
         }
         sb.append(')');
       }
-      sb.append(" VALUES (");
-      for (int i = 0; i < numCols; i++) {
-        if (i > 0) {
+      sb.append(" VALUES ");
+      for (int r = 0; r < numRows; r++) {
+        if (r > 0) {
           sb.append(", ");
         }
-        sb.append('?');
+        sb.append('(');
+        for (int i = 0; i < numCols; i++) {
+          if (i > 0) {
+            sb.append(", ");
+          }
+          sb.append('?');
+        }
+        sb.append(')');
       }
-      sb.append(')');
       return sb.toString();
     }
 
@@ -155,12 +441,29 @@ public abstract class AbstractJdbcProtocol<T extends Connection> implements Feed
         justification = "This library is for use in tests only, not productively.")
     protected void insertRow(@NonNull PreparedStatement stmt, @NonNull Tab.Row row)
         throws SQLException {
-      int i = 1;
+      setValues(stmt, row, 1);
+      stmt.execute();
+    }
+
+    protected void addRowToBatch(@NonNull PreparedStatement stmt, @NonNull Tab.Row row)
+        throws SQLException {
+      setValues(stmt, row, 1);
+      stmt.addBatch();
+    }
+
+    /**
+     * Binds the values of the row starting at the given parameter index.
+     *
+     * @return the parameter index following the last value of the row
+     */
+    protected int setValues(@NonNull PreparedStatement stmt, @NonNull Tab.Row row,
+                            int jdbcIndex) throws SQLException {
+      int i = jdbcIndex;
       for (Tab.Val val: row.vals()) {
         setValue(stmt, val.evaluate(), val.typ(), i);
         i++;
       }
-      stmt.execute();
+      return i;
     }
 
     protected void setValue(@NonNull PreparedStatement stmt, @Nullable Object value,
@@ -228,6 +531,26 @@ public abstract class AbstractJdbcProtocol<T extends Connection> implements Feed
     }
   }
 
+  /**
+   * Drivers either stop at the first failing statement of a batch and report the update
+   * counts of the preceding ones, or go on and mark the failing ones as
+   * {@link Statement#EXECUTE_FAILED}.
+   *
+   * @return the index of the first failed statement in the batch
+   */
+  static int failedRowInBatch(@NonNull BatchUpdateException bue) {
+    int[] updateCounts = bue.getUpdateCounts();
+    if (updateCounts == null) {
+      return 0;
+    }
+    for (int i = 0; i < updateCounts.length; i++) {
+      if (updateCounts[i] == Statement.EXECUTE_FAILED) {
+        return i;
+      }
+    }
+    return updateCounts.length;
+  }
+
   protected class CleanUp {
     @NonNull
     protected final Connection connection;
@@ -235,51 +558,61 @@ public abstract class AbstractJdbcProtocol<T extends Connection> implements Feed
     protected final String name;
     @NonNull
     protected final CleanUpAction cleanUpAction;
+    @NonNull
+    protected final SchemaCache schemaCache;
 
     public CleanUp(@NonNull Connection connection, @NonNull String name,
-                   @NonNull CleanUpAction cleanUpAction) {
+                   @NonNull CleanUpAction cleanUpAction, @NonNull SchemaCache schemaCache) {
       this.connection = Objects.requireNonNull(connection, "connection is null");
       this.name = Objects.requireNonNull(name, "name is null");
       this.cleanUpAction = Objects.requireNonNull(cleanUpAction, "cleanUpAction is null");
+      this.schemaCache = Objects.requireNonNull(schemaCache, "schemaCache is null");
     }
 
     public void cleanUp() throws SQLException {
-      wrapInTransaction(connection, () -> {
-        switch (cleanUpAction) {
-          case DEFAULT:
-          case DROP:
-            dropTable();
-            break;
-          case TRUNCATE:
-            truncateTable();
-            break;
-          case DELETE:
-            deleteAll();
-            break;
-          case NONE:
-            break;
-          default:
-            throw new UnsupportedOperationException("not implemented yet");
-        }
-        return null;
-      });
+      try {
+        wrapInTransaction(connection, () -> {
+          switch (cleanUpAction) {
+            case DEFAULT:
+            case DROP:
+              dropTable();
+              break;
+            case TRUNCATE:
+              truncateTable();
+              break;
+            case DELETE:
+              deleteAll();
+              break;
+            case NONE:
+            case SNAPSHOT:
+              break;
+            default:
+              throw new UnsupportedOperationException("not implemented yet");
+          }
+          return null;
+        });
+      } catch (SQLException | RuntimeException e) {
+        schemaCache.invalidate(name);
+        throw e;
+      }
     }
 
     @SuppressFBWarnings(value = "SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE",
         justification = "This library is for use in tests only, not productively.")
     protected void dropTable() throws SQLException {
-      if (tableExists(connection, name)) {
+      if (tableExists(connection, name, schemaCache)) {
         String dropSql = "DROP TABLE " + name;
         try (Statement stmt = connection.createStatement()) {
           stmt.execute(dropSql);
         }
+        schemaCache.dropped(name);
       }
     }
 
     @SuppressFBWarnings(value = "SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE",
         justification = "This library is for use in tests only, not productively.")
     protected void truncateTable() throws SQLException {
-      if (tableExists(connection, name)) {
+      if (tableExists(connection, name, schemaCache)) {
         String truncateSql = "TRUNCATE TABLE " + name;
         try (Statement stmt = connection.createStatement()) {
           stmt.execute(truncateSql);
@@ -290,7 +623,7 @@ public abstract class AbstractJdbcProtocol<T extends Connection> implements Feed
     @SuppressFBWarnings(value = "SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE",
         justification = "This library is for use in tests only, not productively.")
     protected void deleteAll() throws SQLException {
-      if (tableExists(connection, name)) {
+      if (tableExists(connection, name, schemaCache)) {
         String deleteSql = "DELETE FROM " + name;
         try (Statement stmt = connection.createStatement()) {
           stmt.execute(deleteSql);
@@ -298,4 +631,112 @@ public abstract class AbstractJdbcProtocol<T extends Connection> implements Feed
       }
     }
   }
+
+  /**
+   * Copy of a table on the server, used to restore the table without feeding it again.
+   * The copy is named after the table with the suffix {@link #SNAPSHOT_SUFFIX}.
+   */
+  protected class Snapshot {
+    @NonNull
+    protected final Connection connection;
+    @NonNull
+    protected final String name;
+    @NonNull
+    protected final String snapshotName;
+    @NonNull
+    protected final SchemaCache schemaCache;
+
+    public Snapshot(@NonNull Connection connection, @NonNull String name,
+                    @NonNull SchemaCache schemaCache) {
+      this.connection = Objects.requireNonNull(connection, "connection is null");
+      this.name = Objects.requireNonNull(name, "name is null");
+      this.snapshotName = buildSnapshotName(name);
+      this.schemaCache = Objects.requireNonNull(schemaCache, "schemaCache is null");
+    }
+
+    public void take() throws SQLException {
+      try {
+        wrapInTransaction(connection, () -> {
+          if (tableExists(connection, snapshotName, schemaCache)) {
+            execute("DROP TABLE " + snapshotName);
+            schemaCache.dropped(snapshotName);
+          }
+          copyTable(name, snapshotName);
+          schemaCache.created(snapshotName);
+          return null;
+        });
+      } catch (SQLException | RuntimeException e) {
+        schemaCache.invalidate(snapshotName);
+        throw e;
+      }
+    }
+
+    /**
+     * Truncates the table and copies the rows from the snapshot, or recreates
+     * the table from the snapshot if it has been dropped.
+     *
+     * @throws FeedException if there is no snapshot
+     */
+    public void restore() throws SQLException {
+      try {
+        wrapInTransaction(connection, () -> {
+          if (!tableExists(connection, snapshotName, schemaCache)) {
+            throw new FeedException(new IllegalStateException(
+                "Snapshot " + snapshotName + " does not exist"));
+          }
+          if (tableExists(connection, name, schemaCache)) {
+            execute("TRUNCATE TABLE " + name);
+            execute("INSERT INTO " + name + " SELECT * FROM " + snapshotName);
+          } else {
+            copyTable(snapshotName, name);
+            schemaCache.created(name);
+          }
+          return null;
+        });
+      } catch (SQLException | RuntimeException e) {
+        schemaCache.invalidate(name);
+        schemaCache.invalidate(snapshotName);
+        throw e;
+      }
+    }
+
+    /**
+     * Drops the snapshot if it exists.
+     */
+    public void drop() throws SQLException {
+      try {
+        wrapInTransaction(connection, () -> {
+          if (tableExists(connection, snapshotName, schemaCache)) {
+            execute("DROP TABLE " + snapshotName);
+            schemaCache.dropped(snapshotName);
+          }
+          return null;
+        });
+      } catch (SQLException | RuntimeException e) {
+        schemaCache.invalidate(snapshotName);
+        throw e;
+      }
+    }
+
+    @NonNull
+    protected String buildSnapshotName(@NonNull String name) {
+      return name + SNAPSHOT_SUFFIX;
+    }
+
+    /**
+     * Creates the table {@code target} with the columns and rows of the table {@code source}.
+     */
+    protected void copyTable(@NonNull String source, @NonNull String target)
+        throws SQLException {
+      execute("CREATE TABLE " + target + " AS SELECT * FROM " + source);
+    }
+
+    @SuppressFBWarnings(value = "SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE",
+        justification = "This library is for use in tests only, not productively.")
+    protected void execute(@NonNull String sql) throws SQLException {
+      try (Statement stmt = connection.createStatement()) {
+        stmt.execute(sql);
+      }
+    }
+  }
 }
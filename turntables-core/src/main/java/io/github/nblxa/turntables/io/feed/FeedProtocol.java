@@ -15,4 +15,93 @@ public interface FeedProtocol<U> {
 
   @NonNull
   ThrowingConsumer<U> cleanUp(@NonNull String name, @NonNull CleanUpAction cleanUpAction);
+
+  /**
+   * Like {@link #feed(String, Tab)}, but consults the cache to find out whether
+   * the table exists, and records the tables it creates.
+   */
+  @NonNull
+  default ThrowingConsumer<U> feed(@NonNull String name, @NonNull Tab tab,
+                                   @NonNull SchemaCache schemaCache) {
+    return feed(name, tab);
+  }
+
+  /**
+   * Like {@link #feed(String, Tab, SchemaCache)}, but reuses the prepared statements
+   * of the connection from the cache.
+   */
+  @NonNull
+  default ThrowingConsumer<U> feed(@NonNull String name, @NonNull Tab tab,
+                                   @NonNull SchemaCache schemaCache,
+                                   @NonNull StatementCache statementCache) {
+    return feed(name, tab, schemaCache);
+  }
+
+  /**
+   * Like {@link #cleanUp(String, CleanUpAction)}, but consults the cache to find out whether
+   * the table exists, and records the tables it drops.
+   */
+  @NonNull
+  default ThrowingConsumer<U> cleanUp(@NonNull String name, @NonNull CleanUpAction cleanUpAction,
+                                      @NonNull SchemaCache schemaCache) {
+    return cleanUp(name, cleanUpAction);
+  }
+
+  /**
+   * Copies the table into a snapshot, replacing an existing snapshot.
+   */
+  @NonNull
+  default ThrowingConsumer<U> snapshot(@NonNull String name) {
+    return u -> {
+      throw new UnsupportedOperationException("Snapshots are not supported by "
+          + getClass().getCanonicalName());
+    };
+  }
+
+  /**
+   * Replaces the data in the table with the data from its snapshot.
+   */
+  @NonNull
+  default ThrowingConsumer<U> restore(@NonNull String name) {
+    return u -> {
+      throw new UnsupportedOperationException("Snapshots are not supported by "
+          + getClass().getCanonicalName());
+    };
+  }
+
+  /**
+   * Drops the snapshot of the table, if any.
+   */
+  @NonNull
+  default ThrowingConsumer<U> dropSnapshot(@NonNull String name) {
+    return u -> {
+      throw new UnsupportedOperationException("Snapshots are not supported by "
+          + getClass().getCanonicalName());
+    };
+  }
+
+  /**
+   * Like {@link #snapshot(String)}, using the cache of existing tables.
+   */
+  @NonNull
+  default ThrowingConsumer<U> snapshot(@NonNull String name, @NonNull SchemaCache schemaCache) {
+    return snapshot(name);
+  }
+
+  /**
+   * Like {@link #restore(String)}, using the cache of existing tables.
+   */
+  @NonNull
+  default ThrowingConsumer<U> restore(@NonNull String name, @NonNull SchemaCache schemaCache) {
+    return restore(name);
+  }
+
+  /**
+   * Like {@link #dropSnapshot(String)}, using the cache of existing tables.
+   */
+  @NonNull
+  default ThrowingConsumer<U> dropSnapshot(@NonNull String name,
+                                           @NonNull SchemaCache schemaCache) {
+    return dropSnapshot(name);
+  }
 }
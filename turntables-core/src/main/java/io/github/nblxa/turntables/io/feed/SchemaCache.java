@@ -0,0 +1,60 @@
+package io.github.nblxa.turntables.io.feed;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.github.nblxa.turntables.io.ThrowingSupplier;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers which tables exist, so that the data dictionary is only queried for tables
+ * that have not been seen before.
+ *
+ * <p>The tables created and dropped by the feed protocols are tracked. Tables created or
+ * dropped by other means must be {@link #invalidate invalidated}. The tables are cached
+ * by their names as given, so the same table must always be referred to by the same name.
+ */
+public final class SchemaCache {
+  @NonNull
+  private final ConcurrentMap<String, Boolean> tables = new ConcurrentHashMap<>();
+
+  /**
+   * @param name the table name
+   * @param lookup queries the data dictionary if the table is not cached
+   * @return whether the table exists
+   */
+  public boolean tableExists(@NonNull String name,
+                             @NonNull ThrowingSupplier<Boolean, SQLException> lookup)
+      throws SQLException {
+    Objects.requireNonNull(name, "name is null");
+    Boolean exists = tables.get(name);
+    if (exists == null) {
+      exists = Objects.requireNonNull(lookup.get(), "lookup result is null");
+      tables.put(name, exists);
+    }
+    return exists;
+  }
+
+  public void created(@NonNull String name) {
+    tables.put(Objects.requireNonNull(name, "name is null"), Boolean.TRUE);
+  }
+
+  public void dropped(@NonNull String name) {
+    tables.put(Objects.requireNonNull(name, "name is null"), Boolean.FALSE);
+  }
+
+  /**
+   * Forgets the table, so that the data dictionary is queried the next time.
+   */
+  public void invalidate(@NonNull String name) {
+    tables.remove(Objects.requireNonNull(name, "name is null"));
+  }
+
+  /**
+   * Forgets all tables.
+   */
+  public void invalidateAll() {
+    tables.clear();
+  }
+}
@@ -0,0 +1,110 @@
+package io.github.nblxa.turntables.io.feed;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Prepared statements of one connection, kept open to be reused by later feeds of the same
+ * table. The statements are keyed by their SQL, which is determined by the table name,
+ * the columns and the dialect of the feed protocol. The least recently used statements
+ * are closed when the cache is full.
+ *
+ * <p>The cached statements must not be closed by their users. Like the connection itself,
+ * the cache must not be used by several threads at the same time.
+ */
+public final class StatementCache implements AutoCloseable {
+  public static final int DEFAULT_MAX_SIZE = 32;
+
+  @NonNull
+  private final Connection connection;
+  private final int maxSize;
+  @NonNull
+  private final LinkedHashMap<String, PreparedStatement> statements =
+      new LinkedHashMap<>(16, 0.75f, true);
+
+  public StatementCache(@NonNull Connection connection) {
+    this(connection, DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * @param connection the connection preparing the statements
+   * @param maxSize the maximum number of open statements
+   */
+  public StatementCache(@NonNull Connection connection, int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be > 0");
+    }
+    this.connection = Objects.requireNonNull(connection, "connection is null");
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns the cached statement with its parameters cleared, or prepares a new one.
+   */
+  @NonNull
+  @SuppressFBWarnings(value = "SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE",
+      justification = "This library is for use in tests only, not productively.")
+  public PreparedStatement prepare(@NonNull String sql) throws SQLException {
+    Objects.requireNonNull(sql, "sql is null");
+    PreparedStatement stmt = statements.get(sql);
+    if (stmt != null && !stmt.isClosed()) {
+      stmt.clearParameters();
+      return stmt;
+    }
+    stmt = connection.prepareStatement(sql);
+    statements.put(sql, stmt);
+    if (statements.size() > maxSize) {
+      Iterator<PreparedStatement> eldest = statements.values().iterator();
+      PreparedStatement evicted = eldest.next();
+      eldest.remove();
+      evicted.close();
+    }
+    return stmt;
+  }
+
+  /**
+   * Removes the statement from the cache and closes it. Used when the state of the statement
+   * is unknown after a failure.
+   */
+  public void evict(@NonNull PreparedStatement stmt) throws SQLException {
+    if (statements.values().remove(stmt)) {
+      stmt.close();
+    }
+  }
+
+  public int size() {
+    return statements.size();
+  }
+
+  /**
+   * Closes all statements.
+   */
+  @Override
+  public void close() throws SQLException {
+    List<PreparedStatement> toClose = new ArrayList<>(statements.values());
+    statements.clear();
+    SQLException exception = null;
+    for (PreparedStatement stmt: toClose) {
+      try {
+        stmt.close();
+      } catch (SQLException se) {
+        if (exception == null) {
+          exception = se;
+        } else {
+          exception.addSuppressed(se);
+        }
+      }
+    }
+    if (exception != null) {
+      throw exception;
+    }
+  }
+}
@@ -1,43 +1,108 @@
 package io.github.nblxa.turntables.io.ingestion;
 
+import io.github.nblxa.turntables.ColumnarTab;
+import io.github.nblxa.turntables.CursorTab;
 import io.github.nblxa.turntables.Tab;
-import io.github.nblxa.turntables.TableUtils;
 import io.github.nblxa.turntables.Typ;
 import io.github.nblxa.turntables.exception.IngestionException;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 
 public class ResultSetProtocol<T extends ResultSet> implements IngestionProtocol<T> {
+  /**
+   * Whether a subclass overrides {@link #getValue}, which then reads all values.
+   */
+  private final boolean getValueOverridden = overridesGetValue(getClass());
+
   @Override
   @NonNull
   public Tab ingest(@NonNull T rs) {
-    TableUtils.NamedColBuilder builder = TableUtils.Builder.named();
+    ColumnarTab.Builder builder = ColumnarTab.builder();
     try {
-      ResultSetMetaData md = rs.getMetaData();
-      int columnCount = md.getColumnCount();
-      for (int i = 1; i <= columnCount; i++) {
-        String columnName = md.getColumnName(i);
-        Typ typ = getTyp(md, i);
-        builder.col(columnName, typ);
-      }
-      TableUtils.RowBuilder rowBuilder = builder.rowAdder();
+      Plan plan = plan(rs.getMetaData());
+      for (int i = 0; i < plan.names.length; i++) {
+        builder.col(plan.names[i], plan.typs[i]);
+      }
+      Object[] values = new Object[plan.names.length];
       while (rs.next()) {
-        Object[] objects = new Object[columnCount];
-        for (int i = 1; i <= columnCount; i++) {
-          objects[i - 1] = getValue(rs, md, i);
+        plan.read(rs, values);
+        for (Object value : values) {
+          builder.value(value);
         }
-        rowBuilder.row(objects);
       }
-      return rowBuilder.tab();
+      return builder.build();
     } catch (SQLException se) {
       throw new IngestionException(se);
     }
   }
 
+  /**
+   * Creates a {@link CursorTab} reading the rows lazily from the result set.
+   *
+   * @param rs the result set, positioned before the first row
+   * @param resources closed along with the cursor, such as the result set or its statement
+   * @return the tab
+   */
+  @NonNull
+  public CursorTab stream(@NonNull T rs, @NonNull AutoCloseable resources) {
+    Objects.requireNonNull(rs, "rs");
+    Objects.requireNonNull(resources, "resources");
+    CursorTab.Builder builder = CursorTab.builder();
+    try {
+      Plan plan = plan(rs.getMetaData());
+      for (int i = 0; i < plan.names.length; i++) {
+        builder.col(plan.names[i], plan.typs[i]);
+      }
+      return builder.build(new ResultSetCursor(rs, plan, resources));
+    } catch (SQLException se) {
+      throw new IngestionException(se);
+    }
+  }
+
+  /**
+   * Resolves the names, the types and the extractors of all columns once per result set.
+   */
+  @NonNull
+  private Plan plan(@NonNull ResultSetMetaData md) throws SQLException {
+    int columnCount = md.getColumnCount();
+    Plan plan = new Plan(columnCount);
+    for (int i = 0; i < columnCount; i++) {
+      int jdbcIndex = i + 1;
+      plan.names[i] = md.getColumnName(jdbcIndex);
+      plan.typs[i] = getTyp(md, jdbcIndex);
+      if (getValueOverridden) {
+        plan.extractors.add((rs, index) -> getValue(rs, md, index));
+      } else {
+        Extractor<T> extractor = extractor(md, jdbcIndex, plan.typs[i]);
+        plan.extractors.add((rs, index) -> {
+          Object res = extractor.extract(rs, index);
+          return rs.wasNull() ? null : res;
+        });
+      }
+    }
+    return plan;
+  }
+
+  private static boolean overridesGetValue(@NonNull Class<?> klass) {
+    for (Class<?> c = klass; c != ResultSetProtocol.class; c = c.getSuperclass()) {
+      try {
+        c.getDeclaredMethod("getValue", ResultSet.class, ResultSetMetaData.class, int.class);
+        return true;
+      } catch (NoSuchMethodException e) {
+        // look further up the hierarchy
+      }
+    }
+    return false;
+  }
+
   protected Typ getTyp(ResultSetMetaData md, int jdbcIndex) throws SQLException {
     String className = md.getColumnClassName(jdbcIndex);
     try {
@@ -72,50 +137,47 @@ public class ResultSetProtocol<T extends ResultSet> implements IngestionProtocol
     }
   }
 
+  /**
+   * Reads the value of the column in the current row. By default, the values are read
+   * by the extractors of the columns, see {@link #extractor}, without calling this method.
+   * If a subclass overrides it, all values are read with this method instead, which resolves
+   * the type of the column for each value.
+   */
   protected Object getValue(T rs, ResultSetMetaData md, int jdbcIndex)
       throws SQLException {
-    Typ typ = getTyp(md, jdbcIndex);
-    Object res;
+    Object res = extractor(md, jdbcIndex, getTyp(md, jdbcIndex)).extract(rs, jdbcIndex);
+    if (rs.wasNull()) {
+      return null;
+    }
+    return res;
+  }
+
+  /**
+   * @return the function reading the column of the given type with one of the
+   *     {@code getXxx} methods of this protocol
+   */
+  @NonNull
+  protected Extractor<T> extractor(ResultSetMetaData md, int jdbcIndex, Typ typ) {
     switch (typ) {
       case BOOLEAN:
-        res = getBoolean(rs, md, jdbcIndex, typ);
-        break;
-
+        return (rs, i) -> getBoolean(rs, md, i, typ);
       case DATETIME:
-        res = getDateTime(rs, md, jdbcIndex, typ);
-        break;
-
+        return (rs, i) -> getDateTime(rs, md, i, typ);
       case DATE:
-        res = getDate(rs, md, jdbcIndex, typ);
-        break;
-
+        return (rs, i) -> getDate(rs, md, i, typ);
       case DECIMAL:
-        res = getDecimal(rs, md, jdbcIndex, typ);
-        break;
-
+        return (rs, i) -> getDecimal(rs, md, i, typ);
       case DOUBLE:
-        res = getDouble(rs, md, jdbcIndex, typ);
-        break;
-
+        return (rs, i) -> getDouble(rs, md, i, typ);
       case INTEGER:
-        res = getInteger(rs, md, jdbcIndex, typ);
-        break;
-
+        return (rs, i) -> getInteger(rs, md, i, typ);
       case LONG:
-        res = getLong(rs, md, jdbcIndex, typ);
-        break;
-
+        return (rs, i) -> getLong(rs, md, i, typ);
       case STRING:
-        res = getString(rs, md, jdbcIndex, typ);
-        break;
-
+        return (rs, i) -> getString(rs, md, i, typ);
       default:
-        res = getObject(rs, md, jdbcIndex, typ);
-    }
-    if (rs.wasNull()) {
-      return null;
+        return (rs, i) -> getObject(rs, md, i, typ);
     }
-    return res;
   }
 
   @SuppressWarnings("unused")
@@ -202,4 +264,71 @@ public class ResultSetProtocol<T extends ResultSet> implements IngestionProtocol
   protected Object getObject(T rs, ResultSetMetaData md, int jdbcIndex, Typ typ) throws SQLException {
     return rs.getObject(jdbcIndex);
   }
+
+  private final class ResultSetCursor implements CursorTab.Cursor {
+    @NonNull
+    private final T rs;
+    @NonNull
+    private final Plan plan;
+    @NonNull
+    private final AutoCloseable resources;
+
+    private ResultSetCursor(@NonNull T rs, @NonNull Plan plan, @NonNull AutoCloseable resources) {
+      this.rs = rs;
+      this.plan = plan;
+      this.resources = resources;
+    }
+
+    @Override
+    public boolean next(@NonNull Object[] values) {
+      try {
+        if (!rs.next()) {
+          return false;
+        }
+        plan.read(rs, values);
+        return true;
+      } catch (SQLException se) {
+        throw new IngestionException(se);
+      }
+    }
+
+    @Override
+    public void close() {
+      try {
+        resources.close();
+      } catch (Exception e) {
+        throw new IngestionException(e);
+      }
+    }
+  }
+
+  /**
+   * Reads the value of a column in the current row of the result set.
+   */
+  @FunctionalInterface
+  protected interface Extractor<T extends ResultSet> {
+    @Nullable
+    Object extract(@NonNull T rs, int jdbcIndex) throws SQLException;
+  }
+
+  private final class Plan {
+    @NonNull
+    private final String[] names;
+    @NonNull
+    private final Typ[] typs;
+    @NonNull
+    private final List<Extractor<T>> extractors;
+
+    private Plan(int columnCount) {
+      this.names = new String[columnCount];
+      this.typs = new Typ[columnCount];
+      this.extractors = new ArrayList<>(columnCount);
+    }
+
+    private void read(@NonNull T rs, @NonNull Object[] values) throws SQLException {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = extractors.get(i).extract(rs, i + 1);
+      }
+    }
+  }
 }
@@ -28,5 +28,16 @@ public enum CleanUpAction {
    * Turntables does not automatically clean up the table after the test:
    * assuming this is done elsewhere.
    */
-  NONE
+  NONE,
+
+  /**
+   * Keep a snapshot copy of the table as it was fed. Before the next test feeding
+   * the same data, the table is restored from the snapshot on the server instead of
+   * being fed again. The table and the snapshot are not dropped after the tests.
+   *
+   * <p>For JDBC, the snapshot is a table named after the table with the suffix
+   * {@code __tt_snap}. The snapshots can be dropped with
+   * {@link io.github.nblxa.turntables.junit.TestDataSource#dropSnapshots()}.
+   */
+  SNAPSHOT
 }
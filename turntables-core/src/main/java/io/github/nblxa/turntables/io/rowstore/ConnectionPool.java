@@ -0,0 +1,244 @@
+package io.github.nblxa.turntables.io.rowstore;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.github.nblxa.turntables.io.ThrowingSupplier;
+import io.github.nblxa.turntables.io.feed.StatementCache;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pool of JDBC connections.
+ *
+ * <p>At most {@code maxSize} connections are open at the same time, borrowing more blocks
+ * until a connection is released. Idle connections are validated before they are borrowed
+ * again and closed once they have been idle for longer than the idle timeout.
+ *
+ * <p>The connections are not wrapped, so that the feed and ingestion protocols can be looked up
+ * by the class of the connection. They must be given back with {@link #release}.
+ *
+ * <p>Each connection has a {@link StatementCache}, which is closed along with the connection.
+ */
+final class ConnectionPool {
+  static final int VALIDATION_TIMEOUT_SECONDS = 5;
+
+  @NonNull
+  private final ThrowingSupplier<Connection, Exception> connectionSupplier;
+  private final long idleTimeoutNanos;
+  private final long borrowTimeoutNanos;
+  @NonNull
+  private final Semaphore permits;
+  @NonNull
+  private final Deque<Idle> idle = new ArrayDeque<>();
+  @NonNull
+  private final Map<Connection, StatementCache> statementCaches = new IdentityHashMap<>();
+
+  /**
+   * @param connectionSupplier supplier of new connections
+   * @param maxSize the maximum number of open connections
+   * @param idleTimeoutMillis how long a connection may stay idle before it is closed
+   * @param borrowTimeoutMillis how long to wait for a connection when all are in use
+   */
+  ConnectionPool(@NonNull ThrowingSupplier<Connection, Exception> connectionSupplier,
+                 int maxSize, long idleTimeoutMillis, long borrowTimeoutMillis) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be > 0");
+    }
+    if (idleTimeoutMillis < 0) {
+      throw new IllegalArgumentException("idleTimeoutMillis must be >= 0");
+    }
+    if (borrowTimeoutMillis < 0) {
+      throw new IllegalArgumentException("borrowTimeoutMillis must be >= 0");
+    }
+    this.connectionSupplier =
+        Objects.requireNonNull(connectionSupplier, "connectionSupplier is null");
+    this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+    this.borrowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+    this.permits = new Semaphore(maxSize, true);
+  }
+
+  /**
+   * Returns a valid idle connection or opens a new one.
+   *
+   * @throws SQLException if no connection becomes available within the borrow timeout
+   */
+  @NonNull
+  Connection borrow() throws SQLException {
+    try {
+      if (!permits.tryAcquire(borrowTimeoutNanos, TimeUnit.NANOSECONDS)) {
+        throw new SQLException("Timed out waiting for a connection from the pool");
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Interrupted while waiting for a connection from the pool", ie);
+    }
+    try {
+      Connection conn;
+      while ((conn = pollIdle()) != null) {
+        if (isValid(conn)) {
+          return conn;
+        }
+        closeQuietly(conn);
+      }
+      return open();
+    } catch (SQLException | RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Gives back a borrowed connection. Uncommitted changes are rolled back and the auto-commit
+   * mode is restored, so that the next borrower gets the connection in its initial state.
+   * Connections that are closed or cannot be reset are discarded.
+   */
+  void release(@NonNull Connection conn) {
+    try {
+      if (reset(conn)) {
+        long now = System.nanoTime();
+        List<Connection> expired;
+        synchronized (idle) {
+          idle.addFirst(new Idle(conn, now));
+          expired = removeExpired(now);
+        }
+        expired.forEach(this::closeQuietly);
+      } else {
+        closeQuietly(conn);
+      }
+    } finally {
+      permits.release();
+    }
+  }
+
+  /**
+   * Closes the idle connections. The pool remains usable and opens new connections as needed.
+   */
+  void closeIdle() {
+    List<Connection> toClose = new ArrayList<>();
+    synchronized (idle) {
+      for (Idle i: idle) {
+        toClose.add(i.connection);
+      }
+      idle.clear();
+    }
+    toClose.forEach(this::closeQuietly);
+  }
+
+  /**
+   * @return the statement cache of a borrowed connection
+   */
+  @NonNull
+  StatementCache statementCache(@NonNull Connection conn) {
+    synchronized (statementCaches) {
+      return statementCaches.computeIfAbsent(conn, StatementCache::new);
+    }
+  }
+
+  int idleCount() {
+    synchronized (idle) {
+      return idle.size();
+    }
+  }
+
+  private Connection pollIdle() {
+    List<Connection> expired;
+    Idle next;
+    synchronized (idle) {
+      expired = removeExpired(System.nanoTime());
+      next = idle.pollFirst();
+    }
+    expired.forEach(this::closeQuietly);
+    return next == null ? null : next.connection;
+  }
+
+  /**
+   * The most recently used connections are at the head, so the expired ones are at the tail.
+   */
+  @NonNull
+  private List<Connection> removeExpired(long now) {
+    List<Connection> expired = new ArrayList<>();
+    Iterator<Idle> iter = idle.descendingIterator();
+    while (iter.hasNext()) {
+      Idle i = iter.next();
+      if (now - i.since < idleTimeoutNanos) {
+        break;
+      }
+      expired.add(i.connection);
+      iter.remove();
+    }
+    return expired;
+  }
+
+  @NonNull
+  private Connection open() throws SQLException {
+    try {
+      return Objects.requireNonNull(connectionSupplier.get(), "connection is null");
+    } catch (SQLException | RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new SQLException("Connection could not be initialized", e);
+    }
+  }
+
+  private static boolean isValid(@NonNull Connection conn) {
+    try {
+      return conn.isValid(VALIDATION_TIMEOUT_SECONDS);
+    } catch (SQLException se) {
+      return false;
+    }
+  }
+
+  private static boolean reset(@NonNull Connection conn) {
+    try {
+      if (conn.isClosed()) {
+        return false;
+      }
+      if (!conn.getAutoCommit()) {
+        conn.rollback();
+        conn.setAutoCommit(true);
+      }
+      return true;
+    } catch (SQLException se) {
+      return false;
+    }
+  }
+
+  private void closeQuietly(@NonNull Connection conn) {
+    StatementCache statementCache;
+    synchronized (statementCaches) {
+      statementCache = statementCaches.remove(conn);
+    }
+    try {
+      if (statementCache != null) {
+        statementCache.close();
+      }
+    } catch (SQLException se) {
+      // the statements are closed along with the connection anyway
+    }
+    try {
+      conn.close();
+    } catch (SQLException se) {
+      // the connection is discarded anyway
+    }
+  }
+
+  private static final class Idle {
+    @NonNull
+    private final Connection connection;
+    private final long since;
+
+    private Idle(@NonNull Connection connection, long since) {
+      this.connection = connection;
+      this.since = since;
+    }
+  }
+}
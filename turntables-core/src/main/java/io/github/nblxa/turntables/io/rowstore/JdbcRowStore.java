@@ -1,7 +1,9 @@
 package io.github.nblxa.turntables.io.rowstore;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.github.nblxa.turntables.CursorTab;
 import io.github.nblxa.turntables.Settings;
 import io.github.nblxa.turntables.Tab;
 import io.github.nblxa.turntables.Turntables;
@@ -9,42 +11,87 @@ import io.github.nblxa.turntables.exception.FeedException;
 import io.github.nblxa.turntables.exception.IngestionException;
 import io.github.nblxa.turntables.io.Configuration;
 import io.github.nblxa.turntables.io.Feed;
+import io.github.nblxa.turntables.io.Ingestion;
 import io.github.nblxa.turntables.io.ThrowingSupplier;
+import io.github.nblxa.turntables.io.feed.FeedProtocol;
+import io.github.nblxa.turntables.io.feed.SchemaCache;
+import io.github.nblxa.turntables.io.ingestion.IngestionProtocol;
+import io.github.nblxa.turntables.io.ingestion.ResultSetProtocol;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.Objects;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
 import java.util.regex.Pattern;
 
+/**
+ * {@link RowStore} backed by a JDBC database.
+ *
+ * <p>The connections are pooled: they are reused across feeds, ingestions and clean-ups,
+ * and concurrent calls use separate connections. Call {@link #close()} to close
+ * the idle connections.
+ *
+ * <p>Between {@link #beginTransaction()} and {@link #rollbackTransaction()}, all calls use
+ * the same connection and take part in its transaction.
+ *
+ * <p>The row store remembers which tables exist, so that the data dictionary is queried
+ * at most once per table. Call {@link #invalidateSchemaCache()} after creating or dropping
+ * tables by other means than this row store.
+ *
+ * <p>The statements inserting the rows are prepared once per connection and table, and reused
+ * when the table is fed again.
+ */
 public class JdbcRowStore implements RowStore {
   protected static final Pattern QUERY = Pattern.compile("^\\s*(with|select)\\b.*",
       Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+  public static final int DEFAULT_FETCH_SIZE = 1000;
+  public static final int DEFAULT_MAX_POOL_SIZE = 8;
+  public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60_000L;
+  private static final long BORROW_TIMEOUT_MILLIS = 30_000L;
 
+  private final int fetchSize;
   @NonNull
-  private final ThrowingSupplier<Connection, Exception> connectionSupplier;
-  private Connection connection;
+  private final ConnectionPool pool;
   @NonNull
-  private final ReentrantLock createConnectionLock = new ReentrantLock(true);
-  @NonNull
-  private final ReentrantLock reopenConnectionLock = new ReentrantLock(true);
+  private final SchemaCache schemaCache = new SchemaCache();
+  @Nullable
+  private volatile Connection transaction;
 
   public JdbcRowStore(@NonNull ThrowingSupplier<Connection, Exception> connectionSupplier) {
-    this.connectionSupplier =
-        Objects.requireNonNull(connectionSupplier, "connectionSupplier is null");
+    this(connectionSupplier, DEFAULT_FETCH_SIZE);
+  }
+
+  /**
+   * @param connectionSupplier supplier of the JDBC connection
+   * @param fetchSize the number of rows to fetch from the database at once when ingesting,
+   *     passed to {@link Statement#setFetchSize}; 0 leaves the choice to the driver
+   */
+  public JdbcRowStore(@NonNull ThrowingSupplier<Connection, Exception> connectionSupplier,
+                      int fetchSize) {
+    this(connectionSupplier, fetchSize, DEFAULT_MAX_POOL_SIZE, DEFAULT_IDLE_TIMEOUT_MILLIS);
+  }
+
+  /**
+   * @param connectionSupplier supplier of the JDBC connections
+   * @param fetchSize the number of rows to fetch from the database at once when ingesting,
+   *     passed to {@link Statement#setFetchSize}; 0 leaves the choice to the driver
+   * @param maxPoolSize the maximum number of connections open at the same time
+   * @param idleTimeoutMillis how long an unused connection is kept open
+   */
+  public JdbcRowStore(@NonNull ThrowingSupplier<Connection, Exception> connectionSupplier,
+                      int fetchSize, int maxPoolSize, long idleTimeoutMillis) {
+    this.fetchSize = fetchSize;
+    this.pool = new ConnectionPool(connectionSupplier, maxPoolSize, idleTimeoutMillis,
+        BORROW_TIMEOUT_MILLIS);
   }
 
   @Override
   public void feed(@NonNull String name, @NonNull Tab data) {
-    try (Connection conn = getOrReopenConnection()) {
-      Feed.getInstance()
-          .protocolFor(conn.getClass(), Connection.class)
-          .feed(name, data)
-          .accept(conn);
-    } catch (Exception e) {
-      throw new FeedException(e);
-    }
+    withConnection(conn -> Feed.getInstance()
+        .protocolFor(conn.getClass(), Connection.class)
+        .feed(name, data, schemaCache, pool.statementCache(conn))
+        .accept(conn));
   }
 
   @Override
@@ -52,39 +99,199 @@ public class JdbcRowStore implements RowStore {
   @SuppressFBWarnings(value = "SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE",
       justification = "This library is for use in tests only, not productively.")
   public Tab ingest(@NonNull String source) {
-    try (Connection conn = getOrReopenConnection();
-         Statement stmt = conn.createStatement();
+    Connection conn = borrow(IngestionException::new);
+    try (Statement stmt = createStatement(conn);
          ResultSet rs = stmt.executeQuery(createQuery(source))
     ) {
       return Turntables.from(rs);
     } catch (SQLException se) {
       throw new IngestionException(se);
+    } finally {
+      release(conn);
     }
   }
 
+  /**
+   * Returns a {@link CursorTab} reading the rows lazily through a forward-only cursor.
+   * The statement is closed and the connection is given back to the pool once the rows
+   * have been consumed or the tab has been closed.
+   */
   @Override
-  public void cleanUp(@NonNull String name, @NonNull CleanUpAction cleanUpAction) {
-    try (Connection conn = getOrReopenConnection()) {
-      Feed.getInstance()
-          .protocolFor(conn.getClass(), Connection.class)
-          .cleanUp(name, cleanUpAction)
-          .accept(conn);
-    } catch (Exception se) {
-      throw new FeedException(se);
+  @NonNull
+  @SuppressWarnings("unchecked")
+  @SuppressFBWarnings(
+      value = {"SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE", "OBL_UNSATISFIED_OBLIGATION"},
+      justification = "This library is for use in tests only, not productively. "
+          + "The resources are closed along with the CursorTab.")
+  public Tab stream(@NonNull String source) {
+    final Connection conn = borrow(IngestionException::new);
+    // the connection of a transaction is not released when the cursor is closed
+    final AtomicBoolean released = new AtomicBoolean(conn == transaction);
+    Statement stmt = null;
+    try {
+      stmt = createStatement(conn);
+      final Statement st = stmt;
+      ResultSet rs = stmt.executeQuery(createQuery(source));
+      IngestionProtocol<ResultSet> protocol = Ingestion.getInstance()
+          .protocolFor((Class<ResultSet>) rs.getClass());
+      AutoCloseable resources = () -> {
+        try (Statement s = st) {
+          rs.close();
+        } finally {
+          releaseOnce(conn, released);
+        }
+      };
+      if (protocol instanceof ResultSetProtocol) {
+        return ((ResultSetProtocol<ResultSet>) protocol).stream(rs, resources);
+      }
+      try (AutoCloseable ignored = resources) {
+        return protocol.ingest(rs);
+      }
+    } catch (Exception e) {
+      if (stmt != null) {
+        try {
+          stmt.close();
+        } catch (SQLException se) {
+          e.addSuppressed(se);
+        }
+      }
+      releaseOnce(conn, released);
+      throw new IngestionException(e);
     }
   }
 
+  @Override
+  public void cleanUp(@NonNull String name, @NonNull CleanUpAction cleanUpAction) {
+    withConnection(conn -> Feed.getInstance()
+        .protocolFor(conn.getClass(), Connection.class)
+        .cleanUp(name, cleanUpAction, schemaCache)
+        .accept(conn));
+  }
+
+  @Override
+  public void snapshot(@NonNull String name) {
+    withConnection(conn -> Feed.getInstance()
+        .protocolFor(conn.getClass(), Connection.class)
+        .snapshot(name, schemaCache)
+        .accept(conn));
+  }
+
+  @Override
+  public void restore(@NonNull String name) {
+    withConnection(conn -> Feed.getInstance()
+        .protocolFor(conn.getClass(), Connection.class)
+        .restore(name, schemaCache)
+        .accept(conn));
+  }
+
+  @Override
+  public void dropSnapshot(@NonNull String name) {
+    withConnection(conn -> Feed.getInstance()
+        .protocolFor(conn.getClass(), Connection.class)
+        .dropSnapshot(name, schemaCache)
+        .accept(conn));
+  }
+
   @NonNull
   @Override
   @SuppressWarnings("unchecked")
   public Settings defaultSettings() {
-    try (Connection conn = getOrReopenConnection()) {
+    Connection conn = borrow(IllegalStateException::new);
+    try {
       return Configuration.getInstance()
           .protocolFor((Class<? super Connection>) conn.getClass())
           .settings(conn);
     } catch (Exception se) {
       throw new IllegalStateException(se);
+    } finally {
+      release(conn);
+    }
+  }
+
+  /**
+   * Borrows a connection and turns off its auto-commit mode. The feeds, ingestions and clean-ups
+   * use this connection until {@link #rollbackTransaction()}. The feed protocols do not commit
+   * the transactions of such connections.
+   *
+   * @throws IllegalStateException if a transaction has already been started
+   */
+  @Override
+  public void beginTransaction() {
+    if (transaction != null) {
+      throw new IllegalStateException("A transaction has already been started");
+    }
+    Connection conn = borrow(FeedException::new);
+    try {
+      conn.setAutoCommit(false);
+    } catch (SQLException se) {
+      pool.release(conn);
+      throw new FeedException(se);
+    }
+    transaction = conn;
+  }
+
+  /**
+   * Rolls back the transaction started with {@link #beginTransaction()} and gives
+   * the connection back to the pool. Does nothing if no transaction has been started.
+   */
+  @Override
+  public void rollbackTransaction() {
+    Connection conn = transaction;
+    if (conn == null) {
+      return;
     }
+    transaction = null;
+    // the tables created or dropped in the transaction may have been rolled back
+    schemaCache.invalidateAll();
+    try {
+      conn.rollback();
+    } catch (SQLException se) {
+      throw new FeedException(se);
+    } finally {
+      pool.release(conn);
+    }
+  }
+
+  /**
+   * @return the connection of the transaction started with {@link #beginTransaction()}
+   * @throws IllegalStateException if no transaction has been started
+   */
+  @NonNull
+  public Connection getTransactionConnection() {
+    Connection conn = transaction;
+    if (conn == null) {
+      throw new IllegalStateException("No transaction has been started");
+    }
+    return conn;
+  }
+
+  /**
+   * Makes the row store query the data dictionary again to find out which tables exist.
+   */
+  public void invalidateSchemaCache() {
+    schemaCache.invalidateAll();
+  }
+
+  /**
+   * Makes the row store query the data dictionary again to find out whether the table exists.
+   */
+  public void invalidateSchemaCache(@NonNull String name) {
+    schemaCache.invalidate(name);
+  }
+
+  /**
+   * Closes the idle connections. The row store remains usable.
+   */
+  @Override
+  public void close() {
+    pool.closeIdle();
+  }
+
+  @NonNull
+  protected Statement createStatement(@NonNull Connection conn) throws SQLException {
+    Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    stmt.setFetchSize(fetchSize);
+    return stmt;
   }
 
   protected String createQuery(String source) {
@@ -97,43 +304,45 @@ public class JdbcRowStore implements RowStore {
     return sb.toString();
   }
 
-  @NonNull
-  private Connection getOrCreateConnection() {
-    if (connection == null) {
-      if (createConnectionLock.isHeldByCurrentThread()) {
-        throw new UnsupportedOperationException();
-      }
-      try {
-        createConnectionLock.lock();
-        Connection conn = connectionSupplier.get();
-        Objects.requireNonNull(conn, "connection is null");
-        connection = conn;
-      } catch (Exception e) {
-        throw new IllegalStateException("Connection could not be initialized", e);
-      } finally {
-        createConnectionLock.unlock();
-      }
+  private void withConnection(@NonNull FeedProtocol.ThrowingConsumer<Connection> action) {
+    Connection conn = borrow(FeedException::new);
+    try {
+      action.accept(conn);
+    } catch (FeedException fe) {
+      throw fe;
+    } catch (Exception e) {
+      throw new FeedException(e);
+    } finally {
+      release(conn);
     }
-    return connection;
   }
 
-  private void clearConnection() {
-    connection = null;
+  private void releaseOnce(@NonNull Connection conn, @NonNull AtomicBoolean released) {
+    if (released.compareAndSet(false, true)) {
+      pool.release(conn);
+    }
   }
 
+  /**
+   * @return the connection of the current transaction or a connection from the pool
+   */
   @NonNull
-  private Connection getOrReopenConnection() throws SQLException {
-    reopenConnectionLock.lock();
-    try {
-      Connection conn = getOrCreateConnection();
-      if (conn.isClosed()) {
-        clearConnection();
-        conn = getOrCreateConnection();
-      }
-      connection = conn;
+  private <E extends RuntimeException> Connection borrow(
+      @NonNull Function<? super SQLException, E> exceptionFactory) {
+    Connection conn = transaction;
+    if (conn != null) {
       return conn;
-    } finally {
-      reopenConnectionLock.unlock();
+    }
+    try {
+      return pool.borrow();
+    } catch (SQLException se) {
+      throw exceptionFactory.apply(se);
+    }
+  }
+
+  private void release(@NonNull Connection conn) {
+    if (conn != transaction) {
+      pool.release(conn);
     }
   }
 }
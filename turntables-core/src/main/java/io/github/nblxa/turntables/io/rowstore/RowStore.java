@@ -5,16 +5,85 @@ import io.github.nblxa.turntables.Settings;
 import io.github.nblxa.turntables.Tab;
 import io.github.nblxa.turntables.Turntables;
 
-public interface RowStore {
+public interface RowStore extends AutoCloseable {
   void feed(@NonNull String name, @NonNull Tab tab);
 
   @NonNull
   Tab ingest(@NonNull String name);
 
+  /**
+   * Like {@link #ingest}, but the row store may return a
+   * {@link io.github.nblxa.turntables.CursorTab} reading the rows lazily.
+   * A {@link io.github.nblxa.turntables.CursorTab} holds on to its resources, such as
+   * a connection, until its rows are consumed, so close it if they are not.
+   *
+   * @param name the table name or query
+   * @return the tab
+   */
+  @NonNull
+  default Tab stream(@NonNull String name) {
+    return ingest(name);
+  }
+
   void cleanUp(@NonNull String name, @NonNull CleanUpAction cleanUpAction);
 
+  /**
+   * Copies the table into a snapshot, see {@link CleanUpAction#SNAPSHOT}.
+   *
+   * @param name the table name
+   */
+  default void snapshot(@NonNull String name) {
+    throw new UnsupportedOperationException("Snapshots are not supported by "
+        + getClass().getCanonicalName());
+  }
+
+  /**
+   * Restores the table from its snapshot, see {@link CleanUpAction#SNAPSHOT}.
+   *
+   * @param name the table name
+   */
+  default void restore(@NonNull String name) {
+    throw new UnsupportedOperationException("Snapshots are not supported by "
+        + getClass().getCanonicalName());
+  }
+
+  /**
+   * Drops the snapshot of the table, if any, see {@link CleanUpAction#SNAPSHOT}.
+   *
+   * @param name the table name
+   */
+  default void dropSnapshot(@NonNull String name) {
+    throw new UnsupportedOperationException("Snapshots are not supported by "
+        + getClass().getCanonicalName());
+  }
+
   @NonNull
   default Settings defaultSettings() {
     return Turntables.getSettings();
   }
+
+  /**
+   * Starts a transaction that the following calls take part in, so that their changes
+   * can be undone with {@link #rollbackTransaction()}.
+   */
+  default void beginTransaction() {
+    throw new UnsupportedOperationException("Transactions are not supported by "
+        + getClass().getCanonicalName());
+  }
+
+  /**
+   * Rolls back the transaction started with {@link #beginTransaction()}, if any.
+   */
+  default void rollbackTransaction() {
+    throw new UnsupportedOperationException("Transactions are not supported by "
+        + getClass().getCanonicalName());
+  }
+
+  /**
+   * Releases the resources kept between calls, such as idle connections.
+   * The row store remains usable afterwards.
+   */
+  @Override
+  default void close() {
+  }
 }
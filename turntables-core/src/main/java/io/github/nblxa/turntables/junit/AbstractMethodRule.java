@@ -34,7 +34,9 @@ public abstract class AbstractMethodRule implements MethodRule {
     };
   }
 
-  protected abstract void setUp(@NonNull FrameworkMethod method, @NonNull Object target);
+  protected abstract void setUp(@NonNull FrameworkMethod method, @NonNull Object target)
+      throws Exception;
 
-  protected abstract void tearDown(@NonNull FrameworkMethod method, @NonNull Object target);
+  protected abstract void tearDown(@NonNull FrameworkMethod method, @NonNull Object target)
+      throws Exception;
 }
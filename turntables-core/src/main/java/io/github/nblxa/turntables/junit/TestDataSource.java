@@ -1,22 +1,50 @@
 package io.github.nblxa.turntables.junit;
 
 import edu.umd.cs.findbugs.annotations.NonNull;
+import io.github.nblxa.turntables.AbstractTab;
+import io.github.nblxa.turntables.CursorTab;
 import io.github.nblxa.turntables.Settings;
 import io.github.nblxa.turntables.Tab;
 import io.github.nblxa.turntables.TestTable;
 import io.github.nblxa.turntables.Turntables;
+import io.github.nblxa.turntables.exception.FeedException;
 import io.github.nblxa.turntables.io.rowstore.CleanUpAction;
+import io.github.nblxa.turntables.io.rowstore.JdbcRowStore;
 import io.github.nblxa.turntables.io.rowstore.RowStore;
 import java.lang.reflect.Field;
+import java.sql.Connection;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.MultipleFailureException;
 
+/**
+ * Feeds the test tables before each test and cleans them up afterwards.
+ *
+ * <p>The row store is not closed after the tests, so that its connections can be reused
+ * by the following tests. Close it when it is no longer needed, for example
+ * in an {@code @AfterClass} method.
+ */
 public class TestDataSource extends AbstractMethodRule {
+  /**
+   * The data of the snapshots taken in this JVM by row store and table name,
+   * see {@link CleanUpAction#SNAPSHOT}. The row stores are referenced weakly.
+   */
+  private static final Map<RowStore, Map<String, Tab>> SNAPSHOTS = new WeakHashMap<>();
+
   @NonNull
   private final RowStore rowStore;
   @NonNull
@@ -24,17 +52,32 @@ public class TestDataSource extends AbstractMethodRule {
   @NonNull
   private final List<TestTableDetail> tablesFromMethods;
   @NonNull
+  private final List<CursorTab> streamedTabs;
+  @NonNull
   private final Settings settings;
+  private final int parallelism;
+  private final boolean rollbackAfterTest;
 
   public TestDataSource(@NonNull RowStore rowStore) {
     this(Objects.requireNonNull(rowStore, "rowStore is null"), rowStore.defaultSettings());
   }
 
   public TestDataSource(@NonNull RowStore rowStore, @NonNull Settings settings) {
+    this(rowStore, settings, 1, false);
+  }
+
+  private TestDataSource(@NonNull RowStore rowStore, @NonNull Settings settings,
+                         int parallelism, boolean rollbackAfterTest) {
     this.rowStore = Objects.requireNonNull(rowStore, "rowStore is null");
     this.tablesFromAnnotations = new LinkedHashMap<>();
     this.tablesFromMethods = new ArrayList<>();
+    this.streamedTabs = new ArrayList<>();
     this.settings = Objects.requireNonNull(settings, "settings is null");
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("parallelism must be > 0");
+    }
+    this.parallelism = parallelism;
+    this.rollbackAfterTest = rollbackAfterTest;
   }
 
   public void feed(@NonNull String tableName, @NonNull Tab data) {
@@ -43,7 +86,12 @@ public class TestDataSource extends AbstractMethodRule {
     final TestTableDetail testTableDetail;
     if (tablesFromAnnotations.containsKey(tableName)) {
       testTableDetail = tablesFromAnnotations.get(tableName);
-      rowStore.cleanUp(testTableDetail.getName(), CleanUpAction.TRUNCATE);
+      rowStore.cleanUp(testTableDetail.getName(),
+          rollbackAfterTest ? CleanUpAction.DELETE : CleanUpAction.TRUNCATE);
+    } else if (rollbackAfterTest) {
+      throw new IllegalStateException("Table " + tableName + " is not defined with @TestTable. "
+          + "Only the tables defined with @TestTable can be fed in a transaction, "
+          + "since they are created before it starts.");
     } else {
       // ensure the table is cleaned up after the test
       testTableDetail = new TestTableDetail(data, tableName, CleanUpAction.DROP);
@@ -59,6 +107,21 @@ public class TestDataSource extends AbstractMethodRule {
     return Objects.requireNonNull(tab, "tab is null");
   }
 
+  /**
+   * Like {@link #ingest}, but the rows may be read lazily, see {@link RowStore#stream}.
+   * A {@link CursorTab} whose rows have not been consumed is closed after the test.
+   */
+  @NonNull
+  public Tab stream(@NonNull String tableName) {
+    Objects.requireNonNull(tableName, "tableName is null");
+    Tab tab = rowStore.stream(tableName);
+    Objects.requireNonNull(tab, "tab is null");
+    if (tab instanceof CursorTab) {
+      streamedTabs.add((CursorTab) tab);
+    }
+    return tab;
+  }
+
   public void cleanUp(@NonNull String tableName, @NonNull CleanUpAction cleanUpAction) {
     Objects.requireNonNull(tableName, "tableName is null");
     Objects.requireNonNull(cleanUpAction, "cleanUpAction is null");
@@ -67,7 +130,47 @@ public class TestDataSource extends AbstractMethodRule {
 
   @NonNull
   public TestDataSource settings(@NonNull Settings settings) {
-    return new TestDataSource(rowStore, settings);
+    return new TestDataSource(rowStore, settings, parallelism, rollbackAfterTest);
+  }
+
+  /**
+   * Returns a data source feeding and cleaning up the test tables concurrently,
+   * each on its own connection. The failures of all tables are reported together.
+   *
+   * @param parallelism the maximum number of tables fed or cleaned up at the same time;
+   *     1 processes them one after another and stops at the first failure
+   */
+  @NonNull
+  public TestDataSource parallelism(int parallelism) {
+    return new TestDataSource(rowStore, settings, parallelism, rollbackAfterTest);
+  }
+
+  /**
+   * Returns a data source feeding the test tables in a transaction that is rolled back
+   * after the test instead of cleaning up the tables. The test must use the connection
+   * of the transaction, see {@link #getConnection()}, to see the data.
+   *
+   * <p>Since creating a table commits the transaction in some databases, the tables that
+   * do not exist yet are created before the transaction starts and are kept afterwards.
+   * Tables with {@link CleanUpAction#SNAPSHOT} are restored before the transaction starts.
+   * The rows are then fed one after another on the connection of the transaction.
+   * Only tables defined with {@link TestTable} can be fed with {@link #feed}.
+   */
+  @NonNull
+  public TestDataSource rollbackAfterTest() {
+    return new TestDataSource(rowStore, settings, parallelism, true);
+  }
+
+  /**
+   * @return the connection of the transaction of the test, see {@link #rollbackAfterTest()}
+   * @throws IllegalStateException if the test is not run in a transaction
+   */
+  @NonNull
+  public Connection getConnection() {
+    if (!(rowStore instanceof JdbcRowStore)) {
+      throw new UnsupportedOperationException("The row store is not a JdbcRowStore");
+    }
+    return ((JdbcRowStore) rowStore).getTransactionConnection();
   }
 
   void addTableFromAnnotations(@NonNull TestTableDetail testTable) {
@@ -80,33 +183,165 @@ public class TestDataSource extends AbstractMethodRule {
   }
 
   @Override
-  protected void setUp(@NonNull FrameworkMethod method, @NonNull Object target) {
+  protected void setUp(@NonNull FrameworkMethod method, @NonNull Object target)
+      throws Exception {
     Turntables.setSettings(settings);
     addTablesFromFields(target);
-    for (TestTableDetail testTableDetail: tablesFromAnnotations.values()) {
-      rowStore.feed(testTableDetail.getName(), testTableDetail.getTab());
+    if (rollbackAfterTest) {
+      // creating a table commits the transaction in some databases, so only rows are fed in it
+      forEachTestTable(this::prepareTestTable);
+      rowStore.beginTransaction();
+      for (TestTableDetail testTableDetail: tablesFromAnnotations.values()) {
+        if (testTableDetail.getCleanUpAction() != CleanUpAction.SNAPSHOT) {
+          rowStore.feed(testTableDetail.getName(), testTableDetail.getTab());
+        }
+      }
+    } else {
+      forEachTestTable(this::feedTestTable);
     }
     tablesFromMethods.clear();
   }
 
   @Override
-  protected void tearDown(@NonNull FrameworkMethod method, @NonNull Object target) {
-    Iterator<TestTableDetail> iter = tablesFromMethods.iterator();
-    while (iter.hasNext()) {
-      TestTableDetail testTableDetail = iter.next();
-      cleanUp(testTableDetail.getName(), testTableDetail.getCleanUpAction());
-      iter.remove();
-    }
-    Iterator<Map.Entry<String, TestTableDetail>> entryIter = tablesFromAnnotations.entrySet()
-        .iterator();
-    while (entryIter.hasNext()) {
-      TestTableDetail testTableDetail = entryIter.next().getValue();
-      cleanUp(testTableDetail.getName(), testTableDetail.getCleanUpAction());
-      entryIter.remove();
+  protected void tearDown(@NonNull FrameworkMethod method, @NonNull Object target)
+      throws Exception {
+    closeStreamedTabs();
+    if (rollbackAfterTest) {
+      tablesFromAnnotations.clear();
+      rowStore.rollbackTransaction();
+    }
+    if (parallelism == 1) {
+      Iterator<TestTableDetail> iter = tablesFromMethods.iterator();
+      while (iter.hasNext()) {
+        TestTableDetail testTableDetail = iter.next();
+        cleanUp(testTableDetail.getName(), testTableDetail.getCleanUpAction());
+        iter.remove();
+      }
+      Iterator<Map.Entry<String, TestTableDetail>> entryIter = tablesFromAnnotations.entrySet()
+          .iterator();
+      while (entryIter.hasNext()) {
+        TestTableDetail testTableDetail = entryIter.next().getValue();
+        cleanUp(testTableDetail.getName(), testTableDetail.getCleanUpAction());
+        entryIter.remove();
+      }
+    } else {
+      List<TestTableDetail> tables = new ArrayList<>(tablesFromMethods);
+      tables.addAll(tablesFromAnnotations.values());
+      tablesFromMethods.clear();
+      tablesFromAnnotations.clear();
+      inParallel(tables, testTableDetail ->
+          cleanUp(testTableDetail.getName(), testTableDetail.getCleanUpAction()));
     }
     Turntables.rollbackSettings();
   }
 
+  /**
+   * Gives the connections of the streamed tabs back, since the tables cannot be cleaned up
+   * while they are read.
+   */
+  private void closeStreamedTabs() {
+    for (CursorTab tab: streamedTabs) {
+      tab.close();
+    }
+    streamedTabs.clear();
+  }
+
+  private void forEachTestTable(@NonNull Consumer<TestTableDetail> action) throws Exception {
+    if (parallelism == 1) {
+      for (TestTableDetail testTableDetail: tablesFromAnnotations.values()) {
+        action.accept(testTableDetail);
+      }
+    } else {
+      inParallel(tablesFromAnnotations.values(), action);
+    }
+  }
+
+  /**
+   * Creates the table before the transaction of {@link #rollbackAfterTest()} if it does not
+   * exist yet. Tables with snapshots are fed completely, as restoring them may recreate them.
+   */
+  private void prepareTestTable(@NonNull TestTableDetail testTableDetail) {
+    if (testTableDetail.getCleanUpAction() == CleanUpAction.SNAPSHOT) {
+      feedTestTable(testTableDetail);
+    } else {
+      rowStore.feed(testTableDetail.getName(), new EmptyTab(testTableDetail.getTab()));
+    }
+  }
+
+  private void feedTestTable(@NonNull TestTableDetail testTableDetail) {
+    String name = testTableDetail.getName();
+    Tab tab = testTableDetail.getTab();
+    if (testTableDetail.getCleanUpAction() != CleanUpAction.SNAPSHOT) {
+      rowStore.feed(name, tab);
+      return;
+    }
+    Map<String, Tab> snapshots = snapshots();
+    if (tab.equals(snapshots.get(name))) {
+      try {
+        rowStore.restore(name);
+        return;
+      } catch (FeedException fe) {
+        // the snapshot has been dropped by other means, so it is taken again
+      }
+    }
+    snapshots.remove(name);
+    rowStore.cleanUp(name, CleanUpAction.DROP);
+    rowStore.feed(name, tab);
+    rowStore.snapshot(name);
+    snapshots.put(name, tab);
+  }
+
+  /**
+   * Drops the snapshots of the tables with {@link CleanUpAction#SNAPSHOT} taken through
+   * the row store in this JVM. The tables themselves are kept.
+   */
+  public void dropSnapshots() {
+    Map<String, Tab> snapshots = snapshots();
+    for (String name: new ArrayList<>(snapshots.keySet())) {
+      rowStore.dropSnapshot(name);
+      snapshots.remove(name);
+    }
+  }
+
+  @NonNull
+  private Map<String, Tab> snapshots() {
+    synchronized (SNAPSHOTS) {
+      return SNAPSHOTS.computeIfAbsent(rowStore, r -> new ConcurrentHashMap<>());
+    }
+  }
+
+  /**
+   * Applies the action to all tables, even if it fails for some of them.
+   * The threads are started by the calling thread and inherit its settings.
+   *
+   * @throws MultipleFailureException if the action fails for more than one table
+   */
+  private void inParallel(@NonNull Collection<TestTableDetail> tables,
+                          @NonNull Consumer<TestTableDetail> action) throws Exception {
+    if (tables.isEmpty()) {
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(parallelism, tables.size()));
+    List<Throwable> errors = new ArrayList<>();
+    try {
+      List<Future<?>> futures = new ArrayList<>(tables.size());
+      for (TestTableDetail testTableDetail: tables) {
+        futures.add(executor.submit(() -> action.accept(testTableDetail)));
+      }
+      for (Future<?> future: futures) {
+        try {
+          future.get();
+        } catch (ExecutionException ee) {
+          errors.add(ee.getCause());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    MultipleFailureException.assertEmpty(errors);
+  }
+
   private void addTablesFromFields(@NonNull Object target) {
     for (Field f : target.getClass().getFields()) {
       for (TestTable testTable: f.getAnnotationsByType(TestTable.class)) {
@@ -134,4 +369,29 @@ public class TestDataSource extends AbstractMethodRule {
       return testData.value();
     }
   }
+
+  /**
+   * The columns of a test table without its rows.
+   */
+  private static final class EmptyTab extends AbstractTab {
+    private EmptyTab(@NonNull Tab tab) {
+      super(tab.cols());
+    }
+
+    @NonNull
+    @Override
+    public List<Row> rows() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public boolean equals(Object that) {
+      return super.equals(that);
+    }
+
+    @Override
+    public int hashCode() {
+      return super.hashCode();
+    }
+  }
 }
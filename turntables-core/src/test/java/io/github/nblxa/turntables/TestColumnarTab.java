@@ -0,0 +1,111 @@
+package io.github.nblxa.turntables;
+
+import io.github.nblxa.turntables.exception.StructureException;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class TestColumnarTab {
+  private static final LocalDateTime NANOS = LocalDateTime.of(1960, 3, 4, 5, 6, 7, 123456789);
+  private static final LocalDateTime MICROS = LocalDateTime.of(2020, 3, 4, 5, 6, 7, 1000);
+
+  @Test
+  public void equalsTableOfRows() {
+    Tab expected = Turntables.tab()
+        .key("id", Typ.INTEGER).col("l", Typ.LONG).col("d", Typ.DOUBLE).col("b", Typ.BOOLEAN)
+        .col("s", Typ.STRING).col("dt", Typ.DATE).col("ts", Typ.DATETIME)
+        .col("dec", Typ.DECIMAL).col("any", Typ.ANY)
+        .row(1, 2L, 1.5d, true, "a", LocalDate.of(1900, 1, 1), NANOS, new BigDecimal("1.10"), "y")
+        .row(2, null, null, false, "a", null, MICROS, new BigDecimal("3"), null)
+        .row(null, 5L, -0.0d, null, null, LocalDate.of(2020, 2, 29), null, null, "x")
+        .tab();
+
+    ColumnarTab actual = ColumnarTab.builder()
+        .key("id", Typ.INTEGER).col("l", Typ.LONG).col("d", Typ.DOUBLE).col("b", Typ.BOOLEAN)
+        .col("s", Typ.STRING).col("dt", Typ.DATE).col("ts", Typ.DATETIME)
+        .col("dec", Typ.DECIMAL).col("any", Typ.ANY)
+        .row(1, 2L, 1.5d, true, new StringBuilder("a"),
+            java.sql.Date.valueOf(LocalDate.of(1900, 1, 1)), Timestamp.valueOf(NANOS),
+            new BigDecimal("1.10"), "y")
+        .row(2, null, null, false, "a", null, MICROS, new BigDecimal("3"), null)
+        .row(null, 5L, -0.0d, null, null, LocalDate.of(2020, 2, 29), null, null, "x")
+        .build();
+
+    assertThat(actual).isEqualTo(expected);
+    assertThat(expected).isEqualTo(actual);
+    assertThat(actual).hasSameHashCodeAs(expected);
+    assertThat(actual.cols()).isEqualTo(expected.cols());
+    assertThat(actual.rows()).containsExactlyElementsOf(expected.rows());
+    assertThat(actual.toString()).isEqualTo(expected.toString());
+  }
+
+  @Test
+  public void valsAreCreatedOnAccess() {
+    ColumnarTab tab = ColumnarTab.builder()
+        .col("s", Typ.STRING).col("ts", Typ.DATETIME)
+        .row("abc", NANOS)
+        .row(null, MICROS)
+        .build();
+
+    Tab.Row first = tab.rows().get(0);
+    assertThat(first.vals().get(0).evaluate()).isEqualTo("abc");
+    assertThat(first.vals().get(1).evaluate()).isEqualTo(NANOS);
+    Tab.Row second = tab.rows().get(1);
+    assertThat(second.vals().get(0)).isSameAs(Typ.STRING.nullVal());
+    assertThat(second.vals().get(1).evaluate()).isEqualTo(MICROS);
+  }
+
+  @Test
+  public void anyColumn_takesTypOfFirstValue() {
+    ColumnarTab tab = ColumnarTab.builder()
+        .col("a", Typ.ANY)
+        .row(10)
+        .row(20)
+        .build();
+
+    assertThat(tab.cols().get(0).typ()).isEqualTo(Typ.INTEGER);
+  }
+
+  @Test
+  public void incompatibleValue_throws() {
+    ColumnarTab.Builder builder = ColumnarTab.builder()
+        .col("a", Typ.INTEGER).col("b", Typ.DATE);
+    Throwable t = catchThrowable(() -> builder.row(1, "text"));
+    assertThat(t)
+        .isExactlyInstanceOf(StructureException.class)
+        .hasMessage("Error at position #2");
+  }
+
+  @Test
+  public void incompleteRow_throws() {
+    ColumnarTab.Builder builder = ColumnarTab.builder()
+        .col("a", Typ.INTEGER).col("b", Typ.INTEGER)
+        .value(1);
+    Throwable t = catchThrowable(builder::build);
+    assertThat(t)
+        .isExactlyInstanceOf(StructureException.class)
+        .hasMessage("Missing value at position #2");
+  }
+
+  @Test
+  public void manyRows_matchTableOfRows() {
+    TableUtils.RowAdderTable expected = Turntables.tab()
+        .key("k", Typ.INTEGER).col("v", Typ.STRING).col("f", Typ.BOOLEAN)
+        .rowAdder();
+    ColumnarTab.Builder actual = ColumnarTab.builder()
+        .key("k", Typ.INTEGER).col("v", Typ.STRING).col("f", Typ.BOOLEAN);
+    for (int i = 0; i < 1000; i++) {
+      String v = i % 7 == 0 ? null : "v" + (i % 10);
+      expected.row(i, v, i % 3 == 0);
+      actual.row(i, v, i % 3 == 0);
+    }
+
+    Turntables.assertThat(actual.build())
+        .matchesExpected(expected.tab());
+  }
+}
@@ -0,0 +1,81 @@
+package io.github.nblxa.turntables;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class TestCursorTab {
+  static CursorTab cursorTab(List<Object[]> rows, AtomicInteger closed) {
+    Iterator<Object[]> iter = rows.iterator();
+    return CursorTab.builder()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.STRING)
+        .build(new CursorTab.Cursor() {
+          @Override
+          public boolean next(Object[] values) {
+            if (!iter.hasNext()) {
+              return false;
+            }
+            Object[] row = iter.next();
+            System.arraycopy(row, 0, values, 0, values.length);
+            return true;
+          }
+
+          @Override
+          public void close() {
+            closed.incrementAndGet();
+          }
+        });
+  }
+
+  @Test
+  public void rows_equalTableOfRows() {
+    AtomicInteger closed = new AtomicInteger();
+    CursorTab tab = cursorTab(Arrays.asList(new Object[] {1, "a"}, new Object[] {2, null}),
+        closed);
+    Tab expected = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.STRING)
+        .row(1, "a")
+        .row(2, (Object) null)
+        .tab();
+
+    assertThat(tab.rows()).containsExactlyElementsOf(expected.rows());
+    assertThat(tab).isEqualTo(expected);
+    assertThat(closed.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void rowIterator_consumesRowsOnce() {
+    AtomicInteger closed = new AtomicInteger();
+    CursorTab tab = cursorTab(Arrays.asList(new Object[] {1, "a"}, new Object[] {2, "b"}),
+        closed);
+
+    Iterator<Tab.Row> iter = tab.rowIterator();
+    assertThat(iter.next().vals().get(1).evaluate()).isEqualTo("a");
+    assertThat(closed.get()).isZero();
+    assertThat(iter.next().vals().get(1).evaluate()).isEqualTo("b");
+    assertThat(iter.hasNext()).isFalse();
+    assertThat(closed.get()).isEqualTo(1);
+
+    Throwable t = catchThrowable(tab::rows);
+    assertThat(t)
+        .isExactlyInstanceOf(IllegalStateException.class)
+        .hasMessage("The rows of the cursor have already been consumed");
+  }
+
+  @Test
+  public void toString_doesNotConsumeRows() {
+    CursorTab tab = cursorTab(Collections.singletonList(new Object[] {1, "a"}),
+        new AtomicInteger());
+
+    assertThat(tab.toString()).isEqualTo("CursorTab[cols=[[K KEY integer], [V string]]]");
+    assertThat(tab.rowIterator().hasNext()).isTrue();
+  }
+}
@@ -2,6 +2,8 @@ package io.github.nblxa.turntables;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import org.junit.Test;
 
 public class TestYamlRenderer {
@@ -80,4 +82,67 @@ public class TestYamlRenderer {
         .toString();
     assertThat(yml).isEqualTo(expected);
   }
+
+  @Test
+  public void testWriter() throws IOException {
+    Tab tab = Turntables.tab()
+        .key("weather", Typ.STRING)
+        .col("mood", Typ.INTEGER)
+        .row("breeze", 8)
+        .row("storm", 1);
+    StringWriter writer = new StringWriter();
+    YamlRenderer.DEFAULT_EXTENDED.renderTab(tab, 2, writer);
+    String expected = new StringBuilder()
+        .append("Table:").append(LS)
+        .append("    cols:").append(LS)
+        .append("        - name : weather").append(LS)
+        .append("          type : string").append(LS)
+        .append("          key  : true").append(LS)
+        .append("        - name : mood").append(LS)
+        .append("          type : integer").append(LS)
+        .append("          key  : false").append(LS)
+        .append("    rows:").append(LS)
+        .append("        - weather : breeze").append(LS)
+        .append("          mood    : 8").append(LS)
+        .append("        - weather : storm").append(LS)
+        .append("          mood    : 1")
+        .toString();
+    assertThat(writer.toString()).isEqualTo(expected);
+  }
+
+  @Test
+  public void testComments() {
+    Tab tab = Turntables.tab()
+        .col("a", Typ.INTEGER)
+        .row(1)
+        .row(2)
+        .row(3);
+    String yml = renderer.renderTab(tab, 0, i -> i == 1 ? "one\ntwo" : i == 3 ? "end" : null,
+        Integer.MAX_VALUE);
+    String expected = new StringBuilder()
+        .append("Table:").append(LS)
+        .append("    - a : 1").append(LS)
+        .append("    # one").append(LS)
+        .append("    # two").append(LS)
+        .append("    - a : 2").append(LS)
+        .append("    - a : 3").append(LS)
+        .append("    # end")
+        .toString();
+    assertThat(yml).isEqualTo(expected);
+  }
+
+  @Test
+  public void testMaxLength() {
+    Tab tab = Turntables.tab()
+        .col("a", Typ.INTEGER)
+        .row(1)
+        .row(2)
+        .row(3);
+    String yml = renderer.renderTab(tab, 0, i -> null, 1);
+    String expected = new StringBuilder()
+        .append("Table:").append(LS)
+        .append("    # 3 more rows not shown")
+        .toString();
+    assertThat(yml).isEqualTo(expected);
+  }
 }
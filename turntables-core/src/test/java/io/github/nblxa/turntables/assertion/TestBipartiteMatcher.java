@@ -0,0 +1,77 @@
+package io.github.nblxa.turntables.assertion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.github.nblxa.turntables.exception.TooManyPermutationsException;
+import org.junit.Test;
+
+public class TestBipartiteMatcher {
+
+  private static BitMatrix matrix(int cols, int[]... rows) {
+    BitMatrix matrix = new BitMatrix(rows.length, cols);
+    for (int row = 0; row < rows.length; row++) {
+      for (int col : rows[row]) {
+        matrix.set(row, col);
+      }
+    }
+    return matrix;
+  }
+
+  private static int[] bits(int... bits) {
+    return bits;
+  }
+
+  @Test
+  public void test_empty() {
+    int[] res = new BipartiteMatcher(new BitMatrix(0, 0), () -> { }).match();
+
+    assertThat(res).isEmpty();
+  }
+
+  @Test
+  public void test_perfectMatchingNeedsAugmentation() {
+    BitMatrix matchMatrix = matrix(4, bits(0), bits(1, 2), bits(0, 1), bits(2, 3));
+
+    int[] res = new BipartiteMatcher(matchMatrix, () -> { }).match();
+
+    assertThat(res).containsExactly(0, 2, 1, 3);
+  }
+
+  @Test
+  public void test_maximumMatching_leavesUnmatchable() {
+    BitMatrix matchMatrix = matrix(3, bits(0), bits(0), bits(1, 2));
+
+    int[] res = new BipartiteMatcher(matchMatrix, () -> { }).match();
+
+    assertThat(res[0] == -1 || res[1] == -1).isTrue();
+    assertThat(res[0] + res[1]).isEqualTo(-1);
+    assertThat(res[2]).isIn(1, 2);
+  }
+
+  @Test
+  public void test_longAugmentingPath() {
+    int n = 1_000;
+    BitMatrix matchMatrix = new BitMatrix(n, n);
+    for (int i = 0; i < n; i++) {
+      for (int j = Math.max(0, i - 1); j <= Math.min(n - 1, i + 1); j++) {
+        matchMatrix.set(i, j);
+      }
+    }
+
+    int[] res = new BipartiteMatcher(matchMatrix, () -> { }).match();
+
+    assertThat(res).doesNotContain(-1);
+    assertThat(res).doesNotHaveDuplicates();
+  }
+
+  @Test
+  public void test_onPhaseCanAbort() {
+    BitMatrix matchMatrix = matrix(4, bits(0), bits(1, 2), bits(0, 1), bits(2, 3));
+
+    assertThatThrownBy(() -> new BipartiteMatcher(matchMatrix, () -> {
+      throw new TooManyPermutationsException("limit");
+    }).match())
+        .isInstanceOf(TooManyPermutationsException.class);
+  }
+}
@@ -0,0 +1,71 @@
+package io.github.nblxa.turntables.assertion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+
+public class TestBitMatrix {
+
+  @Test
+  public void test_empty() {
+    BitMatrix matrix = new BitMatrix(0, 0);
+
+    assertThat(matrix.rows()).isZero();
+    assertThat(matrix.cols()).isZero();
+    assertThat(matrix).hasToString("{}");
+  }
+
+  @Test
+  public void test_setAndClear_updateCardinalities() {
+    BitMatrix matrix = new BitMatrix(2, 3);
+
+    assertThat(matrix.set(0, 1)).isTrue();
+    assertThat(matrix.set(0, 1)).isFalse();
+    assertThat(matrix.set(1, 1)).isTrue();
+    assertThat(matrix.set(1, 2)).isTrue();
+
+    assertThat(matrix.get(0, 1)).isTrue();
+    assertThat(matrix.get(0, 2)).isFalse();
+    assertThat(matrix.rowCardinality(0)).isEqualTo(1);
+    assertThat(matrix.rowCardinality(1)).isEqualTo(2);
+    assertThat(matrix.colCardinality(0)).isZero();
+    assertThat(matrix.colCardinality(1)).isEqualTo(2);
+    assertThat(matrix).hasToString("{0=[1], 1=[1, 2]}");
+
+    assertThat(matrix.clear(1, 1)).isTrue();
+    assertThat(matrix.clear(1, 1)).isFalse();
+
+    assertThat(matrix.get(1, 1)).isFalse();
+    assertThat(matrix.rowCardinality(1)).isEqualTo(1);
+    assertThat(matrix.colCardinality(1)).isEqualTo(1);
+    assertThat(matrix).hasToString("{0=[1], 1=[2]}");
+  }
+
+  @Test
+  public void test_nextSetBit_acrossWords() {
+    BitMatrix matrix = new BitMatrix(3, 130);
+    matrix.set(1, 0);
+    matrix.set(1, 63);
+    matrix.set(1, 64);
+    matrix.set(1, 129);
+    matrix.set(2, 0);
+
+    assertThat(matrix.nextSetBit(0, 0)).isEqualTo(-1);
+    assertThat(matrix.nextSetBit(1, 0)).isZero();
+    assertThat(matrix.nextSetBit(1, 1)).isEqualTo(63);
+    assertThat(matrix.nextSetBit(1, 64)).isEqualTo(64);
+    assertThat(matrix.nextSetBit(1, 65)).isEqualTo(129);
+    assertThat(matrix.nextSetBit(1, 130)).isEqualTo(-1);
+  }
+
+  @Test
+  public void test_outOfBounds() {
+    BitMatrix matrix = new BitMatrix(2, 2);
+
+    assertThatThrownBy(() -> matrix.set(2, 0))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+    assertThatThrownBy(() -> matrix.get(0, -1))
+        .isInstanceOf(IndexOutOfBoundsException.class);
+  }
+}
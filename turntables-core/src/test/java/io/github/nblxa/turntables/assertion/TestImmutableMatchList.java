@@ -136,4 +136,70 @@ public class TestImmutableMatchList {
         .isExactlyInstanceOf(UnsupportedOperationException.class)
         .hasNoCause();
   }
+
+  @Test
+  public void size2_lookups_yieldPairedIndexes() {
+    ImmutableMatchList size2 = ImmutableMatchList.EMPTY.add(42, 15)
+        .add(0, 1);
+
+    assertThat(size2.getActual(42)).isEqualTo(15);
+    assertThat(size2.getActual(0)).isEqualTo(1);
+    assertThat(size2.getActual(1)).isEqualTo(ImmutableMatchList.NONE);
+    assertThat(size2.getActual(100)).isEqualTo(ImmutableMatchList.NONE);
+    assertThat(size2.getExpected(15)).isEqualTo(42);
+    assertThat(size2.getExpected(1)).isZero();
+    assertThat(size2.containsActual(1)).isTrue();
+    assertThat(size2.containsActual(0)).isFalse();
+  }
+
+  @Test
+  public void size2_concatSize2_yieldsOtherFirst() {
+    ImmutableMatchList a = ImmutableMatchList.EMPTY.add(1, 1).add(2, 2);
+    ImmutableMatchList b = ImmutableMatchList.EMPTY.add(3, 3).add(4, 4);
+
+    ImmutableMatchList actual = a.concat(b);
+
+    assertThat(actual).hasToString("{4=4, 3=3, 2=2, 1=1}");
+    assertThat(actual).isEqualTo(a.add(3, 3).add(4, 4));
+  }
+
+  @Test
+  public void size2_swapped_keepsOrder() {
+    ImmutableMatchList size2 = ImmutableMatchList.EMPTY.add(42, 15)
+        .add(0, 1);
+
+    ImmutableMatchList actual = size2.swapped();
+
+    assertThat(actual).hasToString("{1=0, 15=42}");
+    assertThat(actual.getActual(15)).isEqualTo(42);
+  }
+
+  @Test
+  public void builder_add_yieldsSameAsAdd() {
+    ImmutableMatchList.Builder builder = new ImmutableMatchList.Builder(2, 2);
+    for (int i = 0; i < 100; i++) {
+      builder.add(i, 99 - i);
+    }
+    ImmutableMatchList built = builder.build();
+
+    ImmutableMatchList added = ImmutableMatchList.EMPTY;
+    for (int i = 0; i < 100; i++) {
+      added = added.add(i, 99 - i);
+    }
+    assertThat(built).isEqualTo(added);
+    assertThat(built).hasSameHashCodeAs(added);
+    assertThat(built.size()).isEqualTo(100);
+    assertThat(built.getExpected(0)).isEqualTo(99);
+  }
+
+  @Test
+  public void builder_addMatchingActual_yieldsException() {
+    ImmutableMatchList.Builder builder = new ImmutableMatchList.Builder(10, 10)
+        .add(1, 2);
+
+    Throwable throwable = catchThrowable(() -> builder.add(3, 2));
+    assertThat(throwable)
+        .isExactlyInstanceOf(UnsupportedOperationException.class)
+        .hasNoCause();
+  }
 }
@@ -0,0 +1,40 @@
+package io.github.nblxa.turntables.assertion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class TestLongIntHashMap {
+
+  @Test
+  public void empty_get_yieldsNoValue() {
+    LongIntHashMap map = new LongIntHashMap();
+
+    assertThat(map.get(0L)).isEqualTo(LongIntHashMap.NO_VALUE);
+    assertThat(map.size()).isZero();
+  }
+
+  @Test
+  public void putIfAbsent_keepsFirstValue() {
+    LongIntHashMap map = new LongIntHashMap();
+
+    assertThat(map.putIfAbsent(Long.MIN_VALUE, 0)).isEqualTo(LongIntHashMap.NO_VALUE);
+    assertThat(map.putIfAbsent(Long.MIN_VALUE, 1)).isZero();
+    assertThat(map.get(Long.MIN_VALUE)).isZero();
+    assertThat(map.size()).isEqualTo(1);
+  }
+
+  @Test
+  public void manyKeys_survivesRehash() {
+    LongIntHashMap map = new LongIntHashMap();
+    for (int i = 0; i < 10_000; i++) {
+      map.putIfAbsent(i * 1024L, i);
+    }
+
+    assertThat(map.size()).isEqualTo(10_000);
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(map.get(i * 1024L)).isEqualTo(i);
+    }
+    assertThat(map.get(1L)).isEqualTo(LongIntHashMap.NO_VALUE);
+  }
+}
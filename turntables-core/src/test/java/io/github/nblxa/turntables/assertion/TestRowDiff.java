@@ -0,0 +1,127 @@
+package io.github.nblxa.turntables.assertion;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.github.nblxa.turntables.Settings;
+import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.TableUtils;
+import io.github.nblxa.turntables.Turntables;
+import io.github.nblxa.turntables.Typ;
+import org.junit.Test;
+
+public class TestRowDiff {
+  private static final String LS = System.lineSeparator();
+
+  /**
+   * Keys 1 to 10, key 4 missing in actual and key 8 with a different value.
+   */
+  private AssertionProxy.Builder matchByKey() {
+    TableUtils.RowAdderTable expected = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.STRING)
+        .rowAdder();
+    TableUtils.RowAdderTable actual = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.STRING)
+        .rowAdder();
+    for (int i = 1; i <= 10; i++) {
+      expected.row(i, "v" + i);
+      if (i != 4) {
+        actual.row(i, i == 8 ? "x" : "v" + i);
+      }
+    }
+    return AssertionProxy.builder()
+        .expected(expected)
+        .actual(actual)
+        .rowMode(Settings.RowMode.MATCH_BY_KEY);
+  }
+
+  @Test
+  public void showsMismatchesWithContext() {
+    AssertionProxy.Builder builder = matchByKey()
+        .diff(1);
+    assertThat(builder.buildOrGetActualProxy().matchesExpected()).isFalse();
+
+    String expectedStringRepresentation = new StringBuilder()
+        .append("Table:").append(LS)
+        .append("    # 10 row pairs: 8 matching, 1 differing, 1 missing, 0 extra").append(LS)
+        .append("    # 2 matching rows not shown").append(LS)
+        .append("    - K : 3").append(LS)
+        .append("      V : v3").append(LS)
+        .append("    - K : 4").append(LS)
+        .append("      V : v4").append(LS)
+        .append("    - K : 5").append(LS)
+        .append("      V : v5").append(LS)
+        .append("    # 1 matching row not shown").append(LS)
+        .append("    - K : 7").append(LS)
+        .append("      V : v7").append(LS)
+        .append("    - K : 8").append(LS)
+        .append("      V : v8").append(LS)
+        .append("    - K : 9").append(LS)
+        .append("      V : v9").append(LS)
+        .append("    # 1 matching row not shown")
+        .toString();
+    String actualStringRepresentation = new StringBuilder()
+        .append("Table:").append(LS)
+        .append("    # 10 row pairs: 8 matching, 1 differing, 1 missing, 0 extra").append(LS)
+        .append("    # 2 matching rows not shown").append(LS)
+        .append("    - K : 3").append(LS)
+        .append("      V : v3").append(LS)
+        .append("    - K : 5").append(LS)
+        .append("      V : v5").append(LS)
+        .append("    # 1 matching row not shown").append(LS)
+        .append("    - K : 7").append(LS)
+        .append("      V : v7").append(LS)
+        .append("    - K : 8").append(LS)
+        .append("      V : x").append(LS)
+        .append("    - K : 9").append(LS)
+        .append("      V : v9").append(LS)
+        .append("    # 1 matching row not shown")
+        .toString();
+    assertThat(builder.buildOrGetExpectedProxy().representation())
+        .isEqualTo(expectedStringRepresentation);
+    assertThat(builder.buildOrGetActualProxy().representation())
+        .isEqualTo(actualStringRepresentation);
+  }
+
+  @Test
+  public void stopsAtMaxRows() {
+    AssertionProxy.Builder builder = matchByKey()
+        .diff(0)
+        .diffLimits(1, Turntables.DIFF_MAX_CHARS);
+
+    String expectedStringRepresentation = new StringBuilder()
+        .append("Table:").append(LS)
+        .append("    # 10 row pairs: 8 matching, 1 differing, 1 missing, 0 extra").append(LS)
+        .append("    # 3 matching rows not shown").append(LS)
+        .append("    - K : 4").append(LS)
+        .append("      V : v4").append(LS)
+        .append("    # 6 more row pairs not shown, 1 of them mismatching")
+        .toString();
+    String actualStringRepresentation = new StringBuilder()
+        .append("Table: null").append(LS)
+        .append("    # 10 row pairs: 8 matching, 1 differing, 1 missing, 0 extra").append(LS)
+        .append("    # 3 matching rows not shown").append(LS)
+        .append("    # 6 more row pairs not shown, 1 of them mismatching")
+        .toString();
+    assertThat(builder.buildOrGetExpectedProxy().representation())
+        .isEqualTo(expectedStringRepresentation);
+    assertThat(builder.buildOrGetActualProxy().representation())
+        .isEqualTo(actualStringRepresentation);
+  }
+
+  @Test
+  public void diffIsNotRenderedByDefault() {
+    Tab tab = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .row(1)
+        .row(2);
+    AssertionProxy.Builder builder = AssertionProxy.builder()
+        .expected(tab)
+        .actual(tab)
+        .rowMode(Settings.RowMode.MATCH_BY_KEY);
+
+    assertThat(builder.buildOrGetActualProxy().representation())
+        .isEqualTo("Table:" + LS + "    - K : 1" + LS + "    - K : 2");
+  }
+}
@@ -4,11 +4,18 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import io.github.nblxa.turntables.Settings;
 import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.TableUtils;
 import io.github.nblxa.turntables.Turntables;
 import io.github.nblxa.turntables.Typ;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 
 public class TestRowsMatchByKey {
+  private static final String LS = System.lineSeparator();
 
   private AssertionProxy.Builder matchByKey(Tab expected, Tab actual) {
     return AssertionProxy.builder()
@@ -354,4 +361,229 @@ public class TestRowsMatchByKey {
         .matchesExpected();
     assertThat(res).isTrue();
   }
+
+  @Test
+  public void longKeyMatchesInDifferentOrder() {
+    Tab expected = Turntables.tab()
+        .key("K", Typ.LONG)
+        .col("V", Typ.STRING)
+        .row(5_000_000_000L, "a").row(-1L, "b").row(0L, "c");
+    Tab actual = Turntables.tab()
+        .key("K", Typ.LONG)
+        .col("V", Typ.STRING)
+        .row(0L, "c").row(5_000_000_000L, "a").row(-1L, "b");
+
+    boolean res = matchByKey(expected, actual)
+        .buildOrGetActualProxy()
+        .matchesExpected();
+    assertThat(res).isTrue();
+  }
+
+  @Test
+  public void longKeyMismatchInValue() {
+    Tab expected = Turntables.tab()
+        .key("K", Typ.LONG)
+        .col("V", Typ.STRING)
+        .row(5_000_000_000L, "a").row(1L, "b");
+    Tab actual = Turntables.tab()
+        .key("K", Typ.LONG)
+        .col("V", Typ.STRING)
+        .row(1L, "b").row(5_000_000_000L, "b");
+
+    boolean res = matchByKey(expected, actual)
+        .buildOrGetActualProxy()
+        .matchesExpected();
+    assertThat(res).isFalse();
+  }
+
+  @Test
+  public void compositeKeyMatchesWithDuplicates() {
+    Tab expected = Turntables.tab()
+        .key("K1", Typ.STRING)
+        .key("K2", Typ.INTEGER)
+        .col("V", Typ.INTEGER)
+        .row("a", 1, 1).row("a", 2, 2).row("b", 1, 3).row("a", 1, 4);
+    Tab actual = Turntables.tab()
+        .key("K1", Typ.STRING)
+        .key("K2", Typ.INTEGER)
+        .col("V", Typ.INTEGER)
+        .row("a", 1, 4).row("b", 1, 3).row("a", 2, 2).row("a", 1, 1);
+
+    boolean res = matchByKey(expected, actual)
+        .buildOrGetActualProxy()
+        .matchesExpected();
+    assertThat(res).isTrue();
+  }
+
+  @Test
+  public void manyIntegerKeysMatchInReverseOrder() {
+    TableUtils.RowAdderTable expected = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.INTEGER)
+        .row(0, 0);
+    TableUtils.RowAdderTable actual = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.INTEGER)
+        .row(999, 1998);
+    for (int i = 1; i < 1_000; i++) {
+      expected = expected.row(i, i * 2);
+      actual = actual.row(999 - i, (999 - i) * 2);
+    }
+
+    boolean res = matchByKey(expected, actual)
+        .buildOrGetActualProxy()
+        .matchesExpected();
+    assertThat(res).isTrue();
+  }
+
+  @Test
+  public void match_stopsAtFirstMismatchingActualRow() {
+    Tab expected = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.STRING)
+        .row(1, "a").row(2, "b").row(3, "c");
+    Tab actual = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.STRING)
+        .row(3, "c").row(2, "x").row(1, "a");
+    AtomicInteger consumed = new AtomicInteger();
+    Iterable<Tab.Row> actualRows = () -> actual.rows().stream()
+        .peek(r -> consumed.incrementAndGet())
+        .iterator();
+
+    KeyBasedRowAsserter asserter = new KeyBasedRowAsserter(expected.rows(), actualRows,
+        expected.cols(), actual.cols(), Turntables.ROW_PERMUTATION_LIMIT, 0,
+        new OrderedValAsserter());
+
+    assertThat(asserter.match()).isFalse();
+    assertThat(consumed).hasValue(2);
+    assertThat(asserter.getRowPairs()).hasSize(3);
+    assertThat(consumed).hasValue(3);
+  }
+
+  @Test
+  public void mismatchingKeyLimit_representsOnlyMismatchingKeys() {
+    Tab expected = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.STRING)
+        .row(1, "a").row(2, "b").row(3, "c").row(4, "d");
+    Tab actual = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.STRING)
+        .row(4, "d").row(3, "x").row(2, "b").row(5, "e").row(1, "y");
+
+    AssertionProxy.Builder builder = matchByKey(expected, actual)
+        .mismatchingKeyLimit(2);
+    boolean res = builder.buildOrGetActualProxy()
+        .matchesExpected();
+    assertThat(res).isFalse();
+
+    String actualStringRepresentation = new StringBuilder()
+        .append("Table:").append(LS)
+        .append("    - K : 1").append(LS)
+        .append("      V : y").append(LS)
+        .append("    - K : 3").append(LS)
+        .append("      V : x")
+        .toString();
+    String expectedStringRepresentation = new StringBuilder()
+        .append("Table:").append(LS)
+        .append("    - K : 1").append(LS)
+        .append("      V : a").append(LS)
+        .append("    - K : 3").append(LS)
+        .append("      V : c")
+        .toString();
+    assertThat(builder.buildOrGetActualProxy().representation())
+        .isEqualTo(actualStringRepresentation);
+    assertThat(builder.buildOrGetExpectedProxy().representation())
+        .isEqualTo(expectedStringRepresentation);
+  }
+
+  @Test
+  public void parallel_matchesDuplicateKeysInReverseOrder() {
+    int size = 2 * KeyBasedRowAsserter.MIN_PARALLEL_KEYS;
+    TableUtils.RowAdderTable expected = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.INTEGER)
+        .row(0, 0);
+    TableUtils.RowAdderTable actual = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.INTEGER)
+        .row((size - 1) / 2, size - 1);
+    for (int i = 1; i < size; i++) {
+      expected = expected.row(i / 2, i);
+      actual = actual.row((size - 1 - i) / 2, size - 1 - i);
+    }
+
+    boolean res = matchByKey(expected, actual)
+        .parallel()
+        .buildOrGetActualProxy()
+        .matchesExpected();
+    assertThat(res).isTrue();
+  }
+
+  @Test
+  public void parallel_pairsRowsInKeyOrder() {
+    TableUtils.RowAdderTable expected = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.STRING)
+        .row(0, "v0");
+    TableUtils.RowAdderTable actual = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.STRING)
+        .row(0, "v0");
+    for (int i = 1; i < 2 * KeyBasedRowAsserter.MIN_PARALLEL_KEYS; i++) {
+      int key = i % 3 == 0 ? i - 1 : i;
+      expected = expected.row(key, "v" + i);
+      actual = actual.row(key, i % 101 == 0 ? "x" : "v" + i);
+    }
+    Tab exp = expected;
+    Tab act = actual;
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      for (int limit : new int[] {0, 1, 5}) {
+        KeyBasedRowAsserter sequential = new KeyBasedRowAsserter(exp.rows(), act.rows(),
+            exp.cols(), act.cols(), Turntables.ROW_PERMUTATION_LIMIT, limit,
+            new OrderedValAsserter());
+        KeyBasedRowAsserter parallel = new KeyBasedRowAsserter(exp.rows(), act.rows(),
+            exp.cols(), act.cols(), Turntables.ROW_PERMUTATION_LIMIT, limit,
+            new OrderedValAsserter(), executor);
+        assertThat(parallel.match()).isFalse();
+        assertThat(parallel.getRowPairs()).isEqualTo(sequential.getRowPairs());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void parallel_matchesSingleRowsInTasks() {
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    TableUtils.RowAdderTable expected = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.INTEGER)
+        .rowAdder();
+    TableUtils.RowAdderTable actual = Turntables.tab()
+        .key("K", Typ.INTEGER)
+        .col("V", Typ.INTEGER)
+        .rowAdder();
+    for (int i = 0; i < KeyBasedRowAsserter.MIN_PARALLEL_KEYS; i++) {
+      int value = i;
+      expected.row(i, Turntables.testInt(v -> {
+        threads.add(Thread.currentThread());
+        return v == value;
+      }));
+      actual.row(KeyBasedRowAsserter.MIN_PARALLEL_KEYS - 1 - i,
+          i == 100 ? -1 : KeyBasedRowAsserter.MIN_PARALLEL_KEYS - 1 - i);
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      KeyBasedRowAsserter asserter = new KeyBasedRowAsserter(expected.rows(), actual.rows(),
+          expected.cols(), actual.cols(), Turntables.ROW_PERMUTATION_LIMIT, 0,
+          new OrderedValAsserter(), executor);
+      assertThat(asserter.match()).isFalse();
+      assertThat(threads).isNotEmpty().doesNotContain(Thread.currentThread());
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
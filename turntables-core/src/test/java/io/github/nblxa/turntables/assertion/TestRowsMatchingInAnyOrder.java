@@ -4,11 +4,16 @@ import static io.github.nblxa.turntables.Turntables.test;
 import static io.github.nblxa.turntables.Turntables.testInt;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import io.github.nblxa.turntables.DequeThreadLocal;
 import io.github.nblxa.turntables.Settings;
 import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.TableUtils;
 import io.github.nblxa.turntables.Turntables;
+import io.github.nblxa.turntables.Typ;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.IntPredicate;
 import java.util.function.Predicate;
 import org.junit.Test;
@@ -34,6 +39,61 @@ public class TestRowsMatchingInAnyOrder {
     assertThat(res).isTrue();
   }
 
+  @Test
+  public void matchesInParallel() {
+    TableUtils.RowAdderTable expected = Turntables.tab()
+        .col("a", Typ.INTEGER).col("b", Typ.INTEGER).rowAdder();
+    TableUtils.RowAdderTable actual = Turntables.tab()
+        .col("a", Typ.INTEGER).col("b", Typ.INTEGER).rowAdder();
+    for (int i = 0; i < UnorderedRowAsserter.MIN_PARALLEL_ROWS; i++) {
+      int j = UnorderedRowAsserter.MIN_PARALLEL_ROWS - 1 - i;
+      expected.row(i, i % 7);
+      actual.row(j, j % 7);
+    }
+
+    boolean res = matchInAnyOrder(expected, actual)
+        .parallel()
+        .buildOrGetActualProxy()
+        .matchesExpected();
+    assertThat(res).isTrue();
+  }
+
+  @Test
+  public void parallel_keepsSettingsOfCaller() throws Exception {
+    TableUtils.RowAdderTable expected = Turntables.tab()
+        .col("a", Typ.INTEGER).col("b", Typ.INTEGER).rowAdder();
+    TableUtils.RowAdderTable actual = Turntables.tab()
+        .col("a", Typ.INTEGER).col("b", Typ.INTEGER).rowAdder();
+    for (int i = 0; i < UnorderedRowAsserter.MIN_PARALLEL_ROWS; i++) {
+      expected.row(i, i % 7);
+      actual.row(i, i % 7);
+    }
+    Settings defaultSettings = Turntables.getSettings();
+    Settings settings = Settings.builder()
+        .decimalMode(Settings.DecimalMode.CONVERT)
+        .build();
+
+    try (DequeThreadLocal.Transaction ignored = Turntables.setSettings(settings)) {
+      // the threads of the executor are created by and inherit the settings of this thread
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+        for (int i = 0; i < 10; i++) {
+          boolean res = matchInAnyOrder(expected, actual)
+              .parallel(executor)
+              .buildOrGetActualProxy()
+              .matchesExpected();
+          assertThat(res).isTrue();
+          assertThat(Turntables.getSettings()).isSameAs(settings);
+        }
+        executor.submit(() -> Turntables.setSettings(defaultSettings)).get();
+        assertThat(Turntables.getSettings()).isSameAs(settings);
+      } finally {
+        executor.shutdown();
+      }
+    }
+    assertThat(Turntables.getSettings()).isSameAs(defaultSettings);
+  }
+
   @Test
   public void matchesInSameOrder() {
     Tab expected = Turntables.tab().row(1, 2).row(5, 6);
@@ -297,9 +357,27 @@ public class TestRowsMatchingInAnyOrder {
     assertThat(res).isFalse();
   }
 
+  @Test
+  public void assertionsWithLongAugmentingPaths_match() {
+    int n = 500;
+    TableUtils.RowAdderTable expected = Turntables.tab().row(testInt(i -> i == 0 || i == 1));
+    TableUtils.RowAdderTable actual = Turntables.tab().row(n - 1);
+    for (int k = 1; k < n; k++) {
+      final int prev = k - 1;
+      expected = expected.row(testInt(i -> i >= prev && i <= prev + 2));
+      actual = actual.row(prev);
+    }
+
+    boolean res = matchInAnyOrder(expected, actual)
+        .rowPermutationLimit(100L)
+        .buildOrGetActualProxy()
+        .matchesExpected();
+    assertThat(res).isTrue();
+  }
+
   @Test
   public void actualRepresentation_whenAssertionRowsMismatch_valueRowsFollowTheExpectedOrder() {
-    // matching assertion rows follow the expected order only if all assertion rows match
+    // matching rows follow the expected order even if other rows do not match
 
     Tab expected = Turntables.tab()
         .row(testInt(i -> i == 1), 2)
@@ -320,14 +398,14 @@ public class TestRowsMatchingInAnyOrder {
 
     String actualStringRepresentation = new StringBuilder()
         .append("Table:").append(LS)
+        .append("    - col1 : 1").append(LS)
+        .append("      col2 : 2").append(LS)
         .append("    - col1 : 5").append(LS)
         .append("      col2 : 6").append(LS)
         .append("    - col1 : 2").append(LS)
         .append("      col2 : 20").append(LS)
         .append("    - col1 : 3").append(LS)
-        .append("      col2 : 5").append(LS)
-        .append("    - col1 : 1").append(LS)
-        .append("      col2 : 2")
+        .append("      col2 : 5")
         .toString();
 
     assertThat(actualProxy.representation())
@@ -336,7 +414,7 @@ public class TestRowsMatchingInAnyOrder {
 
   @Test
   public void actualRepresentation_whenValueRowsMismatch_matchingValueRowsFollowTheExpectedOrder() {
-    // matching assertion rows follow the expected order only if all assertion rows match
+    // matching rows follow the expected order even if other rows do not match
 
     Tab expected = Turntables.tab()
         .row(testInt(i -> i == 1), 2)
@@ -357,12 +435,12 @@ public class TestRowsMatchingInAnyOrder {
 
     String actualStringRepresentation = new StringBuilder()
         .append("Table:").append(LS)
-        .append("    - col1 : 2").append(LS)
-        .append("      col2 : 20").append(LS)
-        .append("    - col1 : 3").append(LS)
-        .append("      col2 : 4").append(LS)
         .append("    - col1 : 1").append(LS)
         .append("      col2 : 2").append(LS)
+        .append("    - col1 : 3").append(LS)
+        .append("      col2 : 4").append(LS)
+        .append("    - col1 : 2").append(LS)
+        .append("      col2 : 20").append(LS)
         .append("    - col1 : 6").append(LS)
         .append("      col2 : 6")
         .toString();
@@ -2,12 +2,17 @@ package io.github.nblxa.turntables.assertion;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import io.github.nblxa.turntables.CursorTab;
 import io.github.nblxa.turntables.Settings;
 import io.github.nblxa.turntables.Tab;
 import io.github.nblxa.turntables.Turntables;
+import io.github.nblxa.turntables.Typ;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 
 public class TestRowsMatchingInGivenOrder {
+  private static final String LS = System.lineSeparator();
+
   private AssertionProxy.Builder matchInAnyOrder(Tab expected, Tab actual) {
     return AssertionProxy.builder()
         .expected(expected)
@@ -47,4 +52,43 @@ public class TestRowsMatchingInGivenOrder {
         .matchesExpected();
     assertThat(res).isFalse();
   }
+
+  @Test
+  public void cursorTab_stopsAtFirstMismatchingRow() {
+    Tab expected = Turntables.tab()
+        .col("A", Typ.INTEGER)
+        .row(0).row(1).row(2);
+    AtomicInteger read = new AtomicInteger();
+    Tab actual = CursorTab.builder()
+        .col("A", Typ.INTEGER)
+        .build(new CursorTab.Cursor() {
+          @Override
+          public boolean next(Object[] values) {
+            int i = read.getAndIncrement();
+            values[0] = i == 1 ? -1 : i;
+            return i < 5;
+          }
+
+          @Override
+          public void close() {
+          }
+        });
+
+    AssertionProxy.Builder builder = matchInAnyOrder(expected, actual);
+    boolean res = builder.buildOrGetActualProxy()
+        .matchesExpected();
+    assertThat(res).isFalse();
+    assertThat(read.get()).isEqualTo(2);
+
+    String actualStringRepresentation = new StringBuilder()
+        .append("Table:").append(LS)
+        .append("    - A : 0").append(LS)
+        .append("    - A : -1").append(LS)
+        .append("    - A : 2").append(LS)
+        .append("    - A : 3").append(LS)
+        .append("    - A : 4")
+        .toString();
+    assertThat(builder.buildOrGetActualProxy().representation())
+        .isEqualTo(actualStringRepresentation);
+  }
 }
@@ -3,9 +3,19 @@ package io.github.nblxa.turntables.assertion;
 import static io.github.dimpon.testprivate.API.lookupPrivatesIn;
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import org.junit.Test;
+import io.github.nblxa.turntables.DequeThreadLocal;
+import io.github.nblxa.turntables.Settings;
 import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.TableUtils;
 import io.github.nblxa.turntables.Turntables;
+import io.github.nblxa.turntables.Typ;
 import io.github.nblxa.turntables.Utils;
 
 public class TestUnorderedRowAsserter {
@@ -47,4 +57,148 @@ public class TestUnorderedRowAsserter {
     assertThat(ml)
         .containsExactlyInAnyOrder(Utils.entry(1, 0), Utils.entry(2, 1));
   }
+
+  @Test
+  public void testAssertionRowMatches_pairsAllButTheUnmatchedRow() {
+    Tab exp = Turntables.tab()
+        .row(Turntables.testInt(i -> i < 10), "a")
+        .row(Turntables.testInt(i -> i >= 10), "b")
+        .row(Turntables.test(o -> true), "c");
+    Tab act = Turntables.tab()
+        .row(20, "b")
+        .row(5, "a");
+    ValAsserter va = new OrderedValAsserter();
+    UnorderedRowAsserter ora = new UnorderedRowAsserter(exp.rows(), act.rows(),
+        Turntables.ROW_PERMUTATION_LIMIT, va);
+    TestCreateMatchList cml = lookupPrivatesIn(ora).usingInterface(TestCreateMatchList.class);
+    ImmutableMatchList ml = cml.createMatchList();
+    assertThat(ml)
+        .containsExactlyInAnyOrder(Utils.entry(0, 1), Utils.entry(1, 0));
+    assertThat(ora.match()).isFalse();
+    assertThat(ora.getRowPairs())
+        .containsExactly(
+            Utils.entry(Optional.of(exp.rows().get(0)), Optional.of(act.rows().get(1))),
+            Utils.entry(Optional.of(exp.rows().get(1)), Optional.of(act.rows().get(0))),
+            Utils.entry(Optional.of(exp.rows().get(2)), Optional.empty()));
+  }
+
+  @Test
+  public void testValueRowMatches_decimalsWithDifferentScale() {
+    Tab exp = Turntables.tab()
+        .col(Typ.DECIMAL).col(Typ.STRING)
+        .row(new BigDecimal("1.50"), "a")
+        .row(new BigDecimal("2"), "b");
+    Tab act = Turntables.tab()
+        .col(Typ.DECIMAL).col(Typ.STRING)
+        .row(new BigDecimal("2.000"), "b")
+        .row(new BigDecimal("1.5"), "a");
+    ValAsserter va = new OrderedValAsserter();
+    UnorderedRowAsserter ora = new UnorderedRowAsserter(exp.rows(), act.rows(), 1, va);
+    TestCreateMatchList cml = lookupPrivatesIn(ora).usingInterface(TestCreateMatchList.class);
+    ImmutableMatchList ml = cml.createMatchList();
+    assertThat(ml)
+        .containsExactlyInAnyOrder(Utils.entry(0, 1), Utils.entry(1, 0));
+  }
+
+  @Test
+  public void testValueRowMatches_decimalModeConvert() {
+    Tab exp = Turntables.tab()
+        .col(Typ.DECIMAL).col(Typ.DECIMAL)
+        .row(new BigDecimal("7.0"), new BigDecimal("0"))
+        .row(new BigDecimal("5.00"), new BigDecimal("0.1"));
+    Tab act = Turntables.tab()
+        .col(Typ.INTEGER).col(Typ.DOUBLE)
+        .row(5, 0.1d)
+        .row(7, -0.0d);
+    Settings settings = Settings.builder()
+        .decimalMode(Settings.DecimalMode.CONVERT)
+        .build();
+    try (DequeThreadLocal.Transaction ignored = Turntables.setSettings(settings)) {
+      ValAsserter va = new OrderedValAsserter();
+      UnorderedRowAsserter ora = new UnorderedRowAsserter(exp.rows(), act.rows(), 1, va);
+      TestCreateMatchList cml = lookupPrivatesIn(ora).usingInterface(TestCreateMatchList.class);
+      ImmutableMatchList ml = cml.createMatchList();
+      assertThat(ml)
+          .containsExactlyInAnyOrder(Utils.entry(0, 1), Utils.entry(1, 0));
+    }
+  }
+
+  @Test
+  public void testValueRowMatches_duplicatesFollowTheExpectedOrder() {
+    Tab exp = Turntables.tab()
+        .row("a", 1)
+        .row("b", 2)
+        .row("a", 1);
+    Tab act = Turntables.tab()
+        .row("a", 1)
+        .row("a", 1)
+        .row("b", 2);
+    ValAsserter va = new OrderedValAsserter();
+    UnorderedRowAsserter ora = new UnorderedRowAsserter(exp.rows(), act.rows(), 1, va);
+    TestCreateMatchList cml = lookupPrivatesIn(ora).usingInterface(TestCreateMatchList.class);
+    ImmutableMatchList ml = cml.createMatchList();
+    assertThat(ml)
+        .containsExactlyInAnyOrder(Utils.entry(0, 0), Utils.entry(1, 2), Utils.entry(2, 1));
+  }
+
+  @Test
+  public void testValueRowMatches_parallelSameAsSequential() {
+    int size = 2 * UnorderedRowAsserter.MIN_PARALLEL_ROWS;
+    Random random = new Random(42L);
+    TableUtils.RowAdderTable exp = Turntables.tab().col(Typ.INTEGER).col(Typ.STRING).rowAdder();
+    TableUtils.RowAdderTable act = Turntables.tab().col(Typ.INTEGER).col(Typ.STRING).rowAdder();
+    for (int i = 0; i < size; i++) {
+      int n = random.nextInt(size / 3);
+      String s = "s" + random.nextInt(3);
+      if (random.nextInt(50) == 0) {
+        exp.row(Turntables.test(o -> true), s);
+      } else {
+        exp.row(n, s);
+      }
+      if (random.nextInt(10) > 0) {
+        act.row(random.nextBoolean() ? n : random.nextInt(size / 3), s);
+      }
+    }
+    ValAsserter va = new OrderedValAsserter();
+    ImmutableMatchList sequential = lookupPrivatesIn(
+        new UnorderedRowAsserter(exp.rows(), act.rows(), 1, va))
+        .usingInterface(TestCreateMatchList.class)
+        .createMatchList();
+    ImmutableMatchList forkJoin = lookupPrivatesIn(
+        new UnorderedRowAsserter(exp.rows(), act.rows(), 1, va, ForkJoinPool.commonPool()))
+        .usingInterface(TestCreateMatchList.class)
+        .createMatchList();
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      ImmutableMatchList fixed = lookupPrivatesIn(
+          new UnorderedRowAsserter(exp.rows(), act.rows(), 1, va, executor))
+          .usingInterface(TestCreateMatchList.class)
+          .createMatchList();
+      assertThat(forkJoin).isEqualTo(sequential);
+      assertThat(fixed).isEqualTo(sequential);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testValueRowMatches_parallelDecimalModeConvert() {
+    TableUtils.RowAdderTable exp = Turntables.tab().col(Typ.DECIMAL).rowAdder();
+    TableUtils.RowAdderTable act = Turntables.tab().col(Typ.INTEGER).rowAdder();
+    for (int i = 0; i < UnorderedRowAsserter.MIN_PARALLEL_ROWS; i++) {
+      exp.row(new BigDecimal(i).setScale(2));
+      act.row(UnorderedRowAsserter.MIN_PARALLEL_ROWS - 1 - i);
+    }
+    Settings settings = Settings.builder()
+        .decimalMode(Settings.DecimalMode.CONVERT)
+        .build();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (DequeThreadLocal.Transaction ignored = Turntables.setSettings(settings)) {
+      UnorderedRowAsserter ora = new UnorderedRowAsserter(exp.rows(), act.rows(), 1,
+          new OrderedValAsserter(), executor);
+      assertThat(ora.match()).isTrue();
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
@@ -0,0 +1,300 @@
+package io.github.nblxa.turntables.io.feed;
+
+import static io.github.nblxa.turntables.assertj.assertj.AssertAssertJ.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.TableUtils;
+import io.github.nblxa.turntables.Turntables;
+import io.github.nblxa.turntables.Typ;
+import io.github.nblxa.turntables.exception.FeedException;
+import io.github.nblxa.turntables.io.ingestion.DerbyRule;
+import io.github.nblxa.turntables.io.rowstore.CleanUpAction;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class ITDerbyFeed {
+  @ClassRule
+  public static final DerbyRule DERBY = new DerbyRule();
+
+  private Connection connection;
+
+  @Before
+  public void connect() throws SQLException {
+    connection = DriverManager.getConnection(DERBY.getJdbcUrl());
+  }
+
+  @After
+  public void dropTable() throws SQLException {
+    connection.setAutoCommit(true);
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute("DROP TABLE feedtab");
+    } finally {
+      connection.close();
+    }
+  }
+
+  @Test
+  public void testFeedInBatches() throws Exception {
+    TableUtils.RowAdderTable tab = Turntables.tab()
+        .col("A", Typ.INTEGER)
+        .col("B", Typ.STRING)
+        .rowAdder();
+    for (int i = 0; i < 2500; i++) {
+      tab.row(i, i % 3 == 0 ? null : "row" + i);
+    }
+
+    new DerbyFeedProtocol(1000).feed("feedtab", tab).accept(connection);
+
+    try (Statement stmt = connection.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT * FROM feedtab ORDER BY A")) {
+      Turntables.assertThat(Turntables.from(rs))
+          .matchesExpected(tab);
+    }
+  }
+
+  @Test
+  public void testFeedReportsFailingRow() throws Exception {
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute("CREATE TABLE feedtab (A INTEGER, B VARCHAR(5))");
+    }
+    TableUtils.RowAdderTable tab = Turntables.tab()
+        .col("A", Typ.INTEGER)
+        .col("B", Typ.STRING)
+        .rowAdder();
+    for (int i = 0; i < 2500; i++) {
+      tab.row(i, i == 1500 ? "too long" : "ok");
+    }
+
+    Throwable t = catchThrowable(() ->
+        new DerbyFeedProtocol(1000).feed("feedtab", tab).accept(connection));
+
+    assertThat(t)
+        .isExactlyInstanceOf(FeedException.class)
+        .hasMessage("Error feeding the row at index 1500");
+    Assertions.assertThat(((FeedException) t).getRowIndex()).isEqualTo(1500);
+  }
+
+  @Test
+  public void testFeedMultiRow() throws Exception {
+    TableUtils.RowAdderTable tab = Turntables.tab()
+        .col("A", Typ.INTEGER)
+        .col("B", Typ.STRING)
+        .col("C", Typ.DATETIME)
+        .rowAdder();
+    for (int i = 0; i < 1001; i++) {
+      tab.row(i, i % 3 == 0 ? null : "row" + i, LocalDateTime.of(2020, 8, 2, 10, 11, i % 60));
+    }
+
+    new DerbyFeedProtocol(1000, 300).feed("feedtab", tab).accept(connection);
+
+    try (Statement stmt = connection.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT * FROM feedtab ORDER BY A")) {
+      Turntables.assertThat(Turntables.from(rs))
+          .matchesExpected(tab);
+    }
+  }
+
+  @Test
+  public void testFeedMultiRowReportsFailingChunk() throws Exception {
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute("CREATE TABLE feedtab (A INTEGER, B VARCHAR(5) NOT NULL)");
+    }
+    TableUtils.RowAdderTable tab = Turntables.tab()
+        .col("A", Typ.INTEGER)
+        .col("B", Typ.STRING)
+        .rowAdder();
+    for (int i = 0; i < 250; i++) {
+      tab.row(i, i == 150 ? null : "ok");
+    }
+
+    Throwable t = catchThrowable(() ->
+        new DerbyFeedProtocol(1000, 200).feed("feedtab", tab).accept(connection));
+
+    assertThat(t)
+        .isExactlyInstanceOf(FeedException.class)
+        .hasMessage("Error feeding the row at index 100");
+  }
+
+  @Test
+  public void testSnapshotRestore() throws Exception {
+    Tab tab = Turntables.tab()
+        .col("A", Typ.INTEGER)
+        .col("B", Typ.STRING)
+        .row(1, "one")
+        .row(2, "two");
+    DerbyFeedProtocol protocol = new DerbyFeedProtocol(1000);
+    protocol.feed("feedtab", tab).accept(connection);
+    protocol.snapshot("feedtab").accept(connection);
+    try {
+      try (Statement stmt = connection.createStatement()) {
+        stmt.execute("UPDATE feedtab SET B = 'three' WHERE A = 1");
+      }
+      protocol.restore("feedtab").accept(connection);
+      assertFeedTab(tab);
+
+      connection.setAutoCommit(true);
+      try (Statement stmt = connection.createStatement()) {
+        stmt.execute("DROP TABLE feedtab");
+      }
+      protocol.restore("feedtab").accept(connection);
+      assertFeedTab(tab);
+    } finally {
+      connection.setAutoCommit(true);
+      protocol.dropSnapshot("feedtab").accept(connection);
+    }
+  }
+
+  @Test
+  public void testSchemaCache() throws Exception {
+    Tab tab = Turntables.tab()
+        .col("A", Typ.INTEGER)
+        .row(1);
+    AtomicInteger lookups = new AtomicInteger();
+    DerbyFeedProtocol protocol = new DerbyFeedProtocol(1000) {
+      @Override
+      protected boolean tableExists(@NonNull Connection connection,
+                                    @NonNull String tableName) throws SQLException {
+        lookups.incrementAndGet();
+        return super.tableExists(connection, tableName);
+      }
+    };
+    SchemaCache schemaCache = new SchemaCache();
+
+    protocol.feed("feedtab", tab, schemaCache).accept(connection);
+    protocol.cleanUp("feedtab", CleanUpAction.DROP, schemaCache).accept(connection);
+    protocol.feed("feedtab", tab, schemaCache).accept(connection);
+    protocol.cleanUp("feedtab", CleanUpAction.TRUNCATE, schemaCache).accept(connection);
+    Assertions.assertThat(lookups).hasValue(1);
+
+    schemaCache.invalidate("feedtab");
+    protocol.feed("feedtab", tab, schemaCache).accept(connection);
+    Assertions.assertThat(lookups).hasValue(2);
+    assertFeedTab(tab);
+  }
+
+  @Test
+  public void testStatementCache() throws Exception {
+    try (Statement stmt = connection.createStatement()) {
+      stmt.execute("CREATE TABLE feedtab (A INTEGER, B VARCHAR(5))");
+    }
+    Tab tab = Turntables.tab()
+        .col("A", Typ.INTEGER)
+        .col("B", Typ.STRING)
+        .row(1, "one");
+    DerbyFeedProtocol protocol = new DerbyFeedProtocol(1000);
+    try (StatementCache statementCache = new StatementCache(connection)) {
+      protocol.feed("feedtab", tab, new SchemaCache(), statementCache).accept(connection);
+      PreparedStatement cached = statementCache.prepare("INSERT INTO feedtab (A, B) VALUES (?, ?)");
+      protocol.feed("feedtab", tab, new SchemaCache(), statementCache).accept(connection);
+
+      Assertions.assertThat(statementCache.size()).isEqualTo(1);
+      Assertions.assertThat(cached.isClosed()).isFalse();
+      try (Statement stmt = connection.createStatement();
+           ResultSet rs = stmt.executeQuery("SELECT * FROM feedtab")) {
+        Turntables.assertThat(Turntables.from(rs))
+            .matches()
+            .row(1, "one")
+            .row(1, "one")
+            .asExpected();
+      }
+
+      Tab tooLong = Turntables.tab()
+          .col("A", Typ.INTEGER)
+          .col("B", Typ.STRING)
+          .row(2, "too long");
+      Throwable t = catchThrowable(() ->
+          protocol.feed("feedtab", tooLong, new SchemaCache(), statementCache).accept(connection));
+
+      assertThat(t).isInstanceOf(FeedException.class);
+      Assertions.assertThat(statementCache.size()).isEqualTo(0);
+      Assertions.assertThat(cached.isClosed()).isTrue();
+    }
+  }
+
+  private void assertFeedTab(Tab expected) throws SQLException {
+    try (Statement stmt = connection.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT * FROM feedtab ORDER BY A")) {
+      Turntables.assertThat(Turntables.from(rs))
+          .matchesExpected(expected);
+    }
+  }
+
+  static class DerbyFeedProtocol extends AbstractJdbcProtocol<Connection> {
+    private static final Map<Typ, String> SQL_TYPES;
+    static {
+      Map<Typ, String> m = new EnumMap<>(Typ.class);
+      m.put(Typ.BOOLEAN, "BOOLEAN");
+      m.put(Typ.DATE, "DATE");
+      m.put(Typ.DATETIME, "TIMESTAMP");
+      m.put(Typ.DECIMAL, "DECIMAL(31,10)");
+      m.put(Typ.DOUBLE, "DOUBLE");
+      m.put(Typ.INTEGER, "INTEGER");
+      m.put(Typ.LONG, "BIGINT");
+      m.put(Typ.STRING, "VARCHAR(255)");
+      SQL_TYPES = Collections.unmodifiableMap(m);
+    }
+
+    private final int maxBindParameters;
+
+    DerbyFeedProtocol(int batchSize) {
+      this(batchSize, 0);
+    }
+
+    DerbyFeedProtocol(int batchSize, int maxBindParameters) {
+      super(batchSize);
+      this.maxBindParameters = maxBindParameters;
+    }
+
+    @Override
+    protected int getMaxBindParameters() {
+      return maxBindParameters;
+    }
+
+    @NonNull
+    @Override
+    protected Map<Typ, String> getSqlTypes() {
+      return SQL_TYPES;
+    }
+
+    @NonNull
+    @Override
+    protected Snapshot newSnapshot(@NonNull Connection connection, @NonNull String name,
+                                   @NonNull SchemaCache schemaCache) {
+      return new Snapshot(connection, name, schemaCache) {
+        @Override
+        protected void copyTable(@NonNull String source, @NonNull String target)
+            throws SQLException {
+          execute("CREATE TABLE " + target + " AS SELECT * FROM " + source + " WITH NO DATA");
+          execute("INSERT INTO " + target + " SELECT * FROM " + source);
+        }
+      };
+    }
+
+    @Override
+    protected boolean tableExists(@NonNull Connection connection,
+                                  @NonNull String tableName) throws SQLException {
+      String name = tableName.toUpperCase(Locale.ENGLISH);
+      try (ResultSet rs = connection.getMetaData()
+          .getTables(null, null, name, new String[] {"TABLE"})) {
+        return rs.next();
+      }
+    }
+  }
+}
@@ -10,7 +10,7 @@ public class DerbyRule extends AbstractTestRule {
 
   private Connection connection;
 
-  String getJdbcUrl() {
+  public String getJdbcUrl() {
     return "jdbc:derby:memory:testdb";
   }
 
@@ -39,7 +39,7 @@ public class DerbyRule extends AbstractTestRule {
     }
   }
 
-  Connection getConnection() {
+  public Connection getConnection() {
     return connection;
   }
 }
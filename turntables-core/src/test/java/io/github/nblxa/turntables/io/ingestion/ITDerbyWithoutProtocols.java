@@ -3,16 +3,21 @@ package io.github.nblxa.turntables.io.ingestion;
 import static io.github.nblxa.turntables.assertj.assertj.AssertAssertJ.assertThat;
 import static org.assertj.core.api.Assertions.catchThrowable;
 
+import io.github.nblxa.turntables.CursorTab;
 import io.github.nblxa.turntables.Tab;
 import io.github.nblxa.turntables.Turntables;
+import io.github.nblxa.turntables.Typ;
 import io.github.nblxa.turntables.exception.FeedException;
 import io.github.nblxa.turntables.junit.TestDataFactory;
 import io.github.nblxa.turntables.junit.TestDataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.assertj.core.api.Assertions;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.ClassRule;
@@ -84,14 +89,73 @@ public class ITDerbyWithoutProtocols {
   @Test
   public void testFromResultSet() throws Exception {
     Connection c = DERBY.getConnection();
-    ResultSet rs = c.prepareStatement("select * from testtab").executeQuery();
+    Tab actual;
+    try (PreparedStatement ps = c.prepareStatement("select * from testtab");
+         ResultSet rs = ps.executeQuery()) {
+      actual = Turntables.from(rs);
+    }
+
+    Turntables.assertThat(actual)
+        .matches()
+        .row(10, "qwerty", LocalDate.of(2019, 1, 9))
+        .row(20, "text", null)
+        .asExpected();
+  }
 
-    Tab actual = Turntables.from(rs);
+  @Test
+  public void testStreamResultSetProtocol() {
+    Tab actual = DATA.stream("testtab");
 
+    Assertions.assertThat(actual).isInstanceOf(CursorTab.class);
     Turntables.assertThat(actual)
         .matches()
         .row(10, "qwerty", LocalDate.of(2019, 1, 9))
         .row(20, "text", null)
         .asExpected();
   }
+
+  @Test
+  public void testIngestResolvesTypsOncePerColumn() throws Exception {
+    AtomicInteger getTypCalls = new AtomicInteger();
+    ResultSetProtocol<ResultSet> protocol = new ResultSetProtocol<ResultSet>() {
+      @Override
+      protected Typ getTyp(ResultSetMetaData md, int jdbcIndex) throws SQLException {
+        getTypCalls.incrementAndGet();
+        return super.getTyp(md, jdbcIndex);
+      }
+    };
+    Connection c = DERBY.getConnection();
+    Tab actual;
+    try (PreparedStatement ps = c.prepareStatement("select * from testtab");
+         ResultSet rs = ps.executeQuery()) {
+      actual = protocol.ingest(rs);
+    }
+
+    Assertions.assertThat(actual.rows()).hasSize(2);
+    Assertions.assertThat(getTypCalls.get()).isEqualTo(3);
+  }
+
+  @Test
+  public void testIngestCallsOverriddenGetValue() throws Exception {
+    ResultSetProtocol<ResultSet> protocol = new ResultSetProtocol<ResultSet>() {
+      @Override
+      protected Object getValue(ResultSet rs, ResultSetMetaData md, int jdbcIndex)
+          throws SQLException {
+        Object value = super.getValue(rs, md, jdbcIndex);
+        return value instanceof String ? ((String) value).toUpperCase() : value;
+      }
+    };
+    Connection c = DERBY.getConnection();
+    Tab actual;
+    try (PreparedStatement ps = c.prepareStatement("select * from testtab");
+         ResultSet rs = ps.executeQuery()) {
+      actual = protocol.ingest(rs);
+    }
+
+    Turntables.assertThat(actual)
+        .matches()
+        .row(10, "QWERTY", LocalDate.of(2019, 1, 9))
+        .row(20, "TEXT", null)
+        .asExpected();
+  }
 }
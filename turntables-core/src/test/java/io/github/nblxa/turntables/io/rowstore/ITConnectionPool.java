@@ -0,0 +1,152 @@
+package io.github.nblxa.turntables.io.rowstore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import io.github.nblxa.turntables.Turntables;
+import io.github.nblxa.turntables.io.ingestion.DerbyRule;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class ITConnectionPool {
+  @ClassRule
+  public static final DerbyRule DERBY = new DerbyRule();
+
+  private final AtomicInteger opened = new AtomicInteger();
+
+  private Connection open() throws SQLException {
+    opened.incrementAndGet();
+    return DriverManager.getConnection(DERBY.getJdbcUrl());
+  }
+
+  @Test
+  public void reusesReleasedConnection() throws SQLException {
+    ConnectionPool pool = new ConnectionPool(this::open, 2, 60_000L, 1_000L);
+    Connection first = pool.borrow();
+    pool.release(first);
+    Connection second = pool.borrow();
+    pool.release(second);
+
+    assertThat(second).isSameAs(first);
+    assertThat(opened).hasValue(1);
+    pool.closeIdle();
+    assertThat(first.isClosed()).isTrue();
+  }
+
+  @Test
+  public void borrowBlocksWhenAllConnectionsAreInUse() throws SQLException {
+    ConnectionPool pool = new ConnectionPool(this::open, 1, 60_000L, 100L);
+    Connection conn = pool.borrow();
+
+    Throwable t = catchThrowable(pool::borrow);
+
+    assertThat(t)
+        .isExactlyInstanceOf(SQLException.class)
+        .hasMessage("Timed out waiting for a connection from the pool");
+    pool.release(conn);
+    assertThat(pool.borrow()).isSameAs(conn);
+    pool.release(conn);
+    pool.closeIdle();
+  }
+
+  @Test
+  public void discardsClosedConnection() throws SQLException {
+    ConnectionPool pool = new ConnectionPool(this::open, 1, 60_000L, 1_000L);
+    Connection first = pool.borrow();
+    first.close();
+    pool.release(first);
+
+    Connection second = pool.borrow();
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(second.isClosed()).isFalse();
+    pool.release(second);
+    pool.closeIdle();
+  }
+
+  @Test
+  public void evictsIdleConnection() throws SQLException {
+    ConnectionPool pool = new ConnectionPool(this::open, 2, 0L, 1_000L);
+    Connection first = pool.borrow();
+    pool.release(first);
+
+    Connection second = pool.borrow();
+
+    assertThat(second).isNotSameAs(first);
+    assertThat(first.isClosed()).isTrue();
+    pool.release(second);
+    pool.closeIdle();
+  }
+
+  @Test
+  public void resetsAutoCommit() throws SQLException {
+    ConnectionPool pool = new ConnectionPool(this::open, 1, 60_000L, 1_000L);
+    Connection conn = pool.borrow();
+    conn.setAutoCommit(false);
+    pool.release(conn);
+
+    assertThat(pool.borrow().getAutoCommit()).isTrue();
+    pool.release(conn);
+    pool.closeIdle();
+  }
+
+  @Test
+  public void closesStatementCacheWithConnection() throws SQLException {
+    ConnectionPool pool = new ConnectionPool(this::open, 1, 60_000L, 1_000L);
+    Connection conn = pool.borrow();
+    PreparedStatement stmt = pool.statementCache(conn).prepare("VALUES 1");
+    pool.release(conn);
+    assertThat(pool.statementCache(pool.borrow()).prepare("VALUES 1")).isSameAs(stmt);
+    pool.release(conn);
+
+    pool.closeIdle();
+
+    assertThat(stmt.isClosed()).isTrue();
+  }
+
+  @Test
+  public void rowStoreReusesConnection() {
+    JdbcRowStore rowStore = new JdbcRowStore(this::open);
+    rowStore.defaultSettings();
+    rowStore.ingest("SYS.SYSTABLES");
+    rowStore.ingest("select * from SYS.SYSSCHEMAS");
+    rowStore.close();
+
+    assertThat(opened).hasValue(1);
+  }
+
+  @Test
+  public void rowStoreRollsBackTransaction() throws SQLException {
+    try (Connection conn = open(); Statement stmt = conn.createStatement()) {
+      stmt.execute("CREATE TABLE txtab (A INTEGER)");
+    }
+    JdbcRowStore rowStore = new JdbcRowStore(this::open);
+    try {
+      rowStore.beginTransaction();
+      Connection conn = rowStore.getTransactionConnection();
+      try (Statement stmt = conn.createStatement()) {
+        stmt.execute("INSERT INTO txtab VALUES (1)");
+      }
+      Turntables.assertThat(rowStore.ingest("txtab"))
+          .matches()
+          .row(1)
+          .asExpected();
+
+      rowStore.rollbackTransaction();
+
+      assertThat(rowStore.ingest("txtab").rows()).isEmpty();
+      assertThat(conn.getAutoCommit()).isTrue();
+    } finally {
+      rowStore.close();
+      try (Connection conn = open(); Statement stmt = conn.createStatement()) {
+        stmt.execute("DROP TABLE txtab");
+      }
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package io.github.nblxa.turntables.junit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.TestTable;
+import io.github.nblxa.turntables.Turntables;
+import io.github.nblxa.turntables.io.rowstore.CleanUpAction;
+import io.github.nblxa.turntables.io.rowstore.RowStore;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.MultipleFailureException;
+import org.junit.runners.model.Statement;
+
+public class TestParallelTestDataSource {
+  public static class Fixtures {
+    @TestTable("a")
+    public final Tab a = Turntables.tab().row(1);
+
+    @TestTable("b")
+    public final Tab b = Turntables.tab().row(2);
+
+    @TestTable("c")
+    public final Tab c = Turntables.tab().row(3);
+  }
+
+  @Test
+  public void feedsAndCleansUpConcurrently() throws Throwable {
+    CyclicBarrier barrier = new CyclicBarrier(3);
+    Set<String> cleanedUp = Collections.synchronizedSet(new HashSet<>());
+    RowStore rowStore = new FakeRowStore() {
+      @Override
+      public void feed(@NonNull String name, @NonNull Tab tab) {
+        await(barrier);
+      }
+
+      @Override
+      public void cleanUp(@NonNull String name, @NonNull CleanUpAction cleanUpAction) {
+        await(barrier);
+        cleanedUp.add(name);
+      }
+    };
+
+    run(new TestDataSource(rowStore).parallelism(3));
+
+    assertThat(cleanedUp).containsExactlyInAnyOrder("a", "b", "c");
+  }
+
+  @Test
+  public void reportsAllFailures() {
+    Set<String> cleanedUp = Collections.synchronizedSet(new HashSet<>());
+    RowStore rowStore = new FakeRowStore() {
+      @Override
+      public void feed(@NonNull String name, @NonNull Tab tab) {
+        if (!name.equals("b")) {
+          throw new IllegalStateException(name);
+        }
+      }
+
+      @Override
+      public void cleanUp(@NonNull String name, @NonNull CleanUpAction cleanUpAction) {
+        cleanedUp.add(name);
+      }
+    };
+
+    Throwable t = catchThrowable(() -> run(new TestDataSource(rowStore).parallelism(2)));
+
+    assertThat(t).isInstanceOf(MultipleFailureException.class);
+    assertThat(((MultipleFailureException) t).getFailures())
+        .extracting(Throwable::getMessage)
+        .containsExactlyInAnyOrder("a", "c");
+    assertThat(cleanedUp).containsExactlyInAnyOrder("a", "b", "c");
+  }
+
+  private static void run(TestDataSource testDataSource) throws Throwable {
+    FrameworkMethod method = new FrameworkMethod(
+        TestParallelTestDataSource.class.getMethod("feedsAndCleansUpConcurrently"));
+    testDataSource.apply(new Statement() {
+      @Override
+      public void evaluate() {
+      }
+    }, method, new Fixtures()).evaluate();
+  }
+
+  private static void await(CyclicBarrier barrier) {
+    try {
+      barrier.await(10, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      throw new IllegalStateException("The tables were not processed concurrently", e);
+    }
+  }
+
+  private static class FakeRowStore implements RowStore {
+    @Override
+    public void feed(@NonNull String name, @NonNull Tab tab) {
+    }
+
+    @NonNull
+    @Override
+    public Tab ingest(@NonNull String name) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void cleanUp(@NonNull String name, @NonNull CleanUpAction cleanUpAction) {
+    }
+  }
+}
@@ -0,0 +1,127 @@
+package io.github.nblxa.turntables.junit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.TestTable;
+import io.github.nblxa.turntables.Turntables;
+import io.github.nblxa.turntables.io.rowstore.CleanUpAction;
+import io.github.nblxa.turntables.io.rowstore.RowStore;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+
+public class TestRollbackTestDataSource {
+  public static class Fixtures {
+    @TestTable("rollback_test")
+    public final Tab tab = Turntables.tab().row(1).row(2);
+  }
+
+  public static class SnapshotFixtures {
+    @TestTable(name = "rollback_snapshot_test", cleanUpAction = CleanUpAction.SNAPSHOT)
+    public final Tab tab = Turntables.tab().row(1);
+  }
+
+  @Test
+  public void createsTablesBeforeTransaction() throws Throwable {
+    List<String> calls = new ArrayList<>();
+
+    run(new TestDataSource(new RecordingRowStore(calls)).rollbackAfterTest(), new Fixtures(),
+        testDataSource -> { });
+
+    assertThat(calls).containsExactly(
+        "feed rollback_test 0", "beginTransaction", "feed rollback_test 2",
+        "rollbackTransaction");
+  }
+
+  @Test
+  public void restoresSnapshotsBeforeTransaction() throws Throwable {
+    List<String> calls = new ArrayList<>();
+
+    run(new TestDataSource(new RecordingRowStore(calls)).rollbackAfterTest(),
+        new SnapshotFixtures(), testDataSource -> { });
+
+    assertThat(calls).containsExactly(
+        "cleanUp rollback_snapshot_test DROP", "feed rollback_snapshot_test 1",
+        "snapshot rollback_snapshot_test", "beginTransaction", "rollbackTransaction");
+  }
+
+  @Test
+  public void feedFailsForTableCreatedInTransaction() {
+    List<String> calls = new ArrayList<>();
+
+    Throwable t = catchThrowable(() ->
+        run(new TestDataSource(new RecordingRowStore(calls)).rollbackAfterTest(),
+            new Fixtures(), testDataSource -> testDataSource.feed("other",
+                Turntables.tab().row(3))));
+
+    assertThat(t)
+        .isExactlyInstanceOf(IllegalStateException.class)
+        .hasMessageStartingWith("Table other is not defined with @TestTable.");
+    assertThat(calls).doesNotContain("feed other 1");
+  }
+
+  private static void run(TestDataSource testDataSource, Object fixtures,
+                          TestBody body) throws Throwable {
+    FrameworkMethod method = new FrameworkMethod(
+        TestRollbackTestDataSource.class.getMethod("createsTablesBeforeTransaction"));
+    testDataSource.apply(new Statement() {
+      @Override
+      public void evaluate() {
+        body.run(testDataSource);
+      }
+    }, method, fixtures).evaluate();
+  }
+
+  private interface TestBody {
+    void run(TestDataSource testDataSource);
+  }
+
+  private static class RecordingRowStore implements RowStore {
+    private final List<String> calls;
+
+    private RecordingRowStore(List<String> calls) {
+      this.calls = calls;
+    }
+
+    @Override
+    public void feed(@NonNull String name, @NonNull Tab tab) {
+      calls.add("feed " + name + " " + tab.rows().size());
+    }
+
+    @NonNull
+    @Override
+    public Tab ingest(@NonNull String name) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void cleanUp(@NonNull String name, @NonNull CleanUpAction cleanUpAction) {
+      calls.add("cleanUp " + name + " " + cleanUpAction);
+    }
+
+    @Override
+    public void snapshot(@NonNull String name) {
+      calls.add("snapshot " + name);
+    }
+
+    @Override
+    public void restore(@NonNull String name) {
+      calls.add("restore " + name);
+    }
+
+    @Override
+    public void beginTransaction() {
+      calls.add("beginTransaction");
+    }
+
+    @Override
+    public void rollbackTransaction() {
+      calls.add("rollbackTransaction");
+    }
+  }
+}
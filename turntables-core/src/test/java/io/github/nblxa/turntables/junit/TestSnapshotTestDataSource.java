@@ -0,0 +1,143 @@
+package io.github.nblxa.turntables.junit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.TestTable;
+import io.github.nblxa.turntables.Turntables;
+import io.github.nblxa.turntables.exception.FeedException;
+import io.github.nblxa.turntables.io.rowstore.CleanUpAction;
+import io.github.nblxa.turntables.io.rowstore.RowStore;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+
+public class TestSnapshotTestDataSource {
+  public static class Fixtures {
+    @TestTable(name = "snapshot_test", cleanUpAction = CleanUpAction.SNAPSHOT)
+    public final Tab tab;
+
+    Fixtures(int value) {
+      tab = Turntables.tab().row(value);
+    }
+  }
+
+  @Test
+  public void restoresTableFedWithSameData() throws Throwable {
+    List<String> calls = new ArrayList<>();
+    RowStore rowStore = new RecordingRowStore(calls);
+
+    run(new TestDataSource(rowStore), new Fixtures(1));
+    run(new TestDataSource(rowStore), new Fixtures(1));
+    run(new TestDataSource(rowStore), new Fixtures(2));
+
+    assertThat(calls).containsExactly(
+        "cleanUp DROP", "feed", "snapshot", "cleanUp SNAPSHOT",
+        "restore", "cleanUp SNAPSHOT",
+        "cleanUp DROP", "feed", "snapshot", "cleanUp SNAPSHOT");
+  }
+
+  @Test
+  public void keepsSnapshotsPerRowStore() throws Throwable {
+    List<String> calls1 = new ArrayList<>();
+    List<String> calls2 = new ArrayList<>();
+
+    run(new TestDataSource(new RecordingRowStore(calls1)), new Fixtures(1));
+    run(new TestDataSource(new RecordingRowStore(calls2)), new Fixtures(1));
+
+    assertThat(calls1).containsExactly("cleanUp DROP", "feed", "snapshot", "cleanUp SNAPSHOT");
+    assertThat(calls2).containsExactly("cleanUp DROP", "feed", "snapshot", "cleanUp SNAPSHOT");
+  }
+
+  @Test
+  public void takesSnapshotAgainIfRestoreFails() throws Throwable {
+    List<String> calls = new ArrayList<>();
+    RowStore rowStore = new RecordingRowStore(calls) {
+      @Override
+      public void restore(@NonNull String name) {
+        super.restore(name);
+        throw new FeedException(new IllegalStateException("Snapshot does not exist"));
+      }
+    };
+
+    run(new TestDataSource(rowStore), new Fixtures(1));
+    run(new TestDataSource(rowStore), new Fixtures(1));
+
+    assertThat(calls).containsExactly(
+        "cleanUp DROP", "feed", "snapshot", "cleanUp SNAPSHOT",
+        "restore", "cleanUp DROP", "feed", "snapshot", "cleanUp SNAPSHOT");
+  }
+
+  @Test
+  public void dropsSnapshots() throws Throwable {
+    List<String> calls = new ArrayList<>();
+    TestDataSource testDataSource = new TestDataSource(new RecordingRowStore(calls));
+
+    run(testDataSource, new Fixtures(1));
+    testDataSource.dropSnapshots();
+    testDataSource.dropSnapshots();
+    run(testDataSource, new Fixtures(1));
+
+    assertThat(calls).containsExactly(
+        "cleanUp DROP", "feed", "snapshot", "cleanUp SNAPSHOT",
+        "dropSnapshot",
+        "cleanUp DROP", "feed", "snapshot", "cleanUp SNAPSHOT");
+  }
+
+  private static void run(TestDataSource testDataSource, Fixtures fixtures) throws Throwable {
+    FrameworkMethod method = new FrameworkMethod(
+        TestSnapshotTestDataSource.class.getMethod("restoresTableFedWithSameData"));
+    testDataSource.apply(new Statement() {
+      @Override
+      public void evaluate() {
+      }
+    }, method, fixtures).evaluate();
+  }
+
+  private static class RecordingRowStore implements RowStore {
+    private final List<String> calls;
+
+    private RecordingRowStore(List<String> calls) {
+      this.calls = calls;
+    }
+
+    @Override
+    public void feed(@NonNull String name, @NonNull Tab tab) {
+      calls.add("feed");
+    }
+
+    @NonNull
+    @Override
+    public Tab ingest(@NonNull String name) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void cleanUp(@NonNull String name, @NonNull CleanUpAction cleanUpAction) {
+      calls.add("cleanUp " + cleanUpAction);
+    }
+
+    @Override
+    public void snapshot(@NonNull String name) {
+      calls.add("snapshot");
+    }
+
+    @Override
+    public void restore(@NonNull String name) {
+      calls.add("restore");
+    }
+
+    @Override
+    public void dropSnapshot(@NonNull String name) {
+      calls.add("dropSnapshot");
+    }
+
+    @Override
+    public void close() {
+      calls.add("close");
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package io.github.nblxa.turntables.junit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import io.github.nblxa.turntables.CursorTab;
+import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.Typ;
+import io.github.nblxa.turntables.io.rowstore.CleanUpAction;
+import io.github.nblxa.turntables.io.rowstore.RowStore;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runners.model.FrameworkMethod;
+import org.junit.runners.model.Statement;
+
+public class TestStreamTestDataSource {
+  @Test
+  public void closesStreamedTabsAfterTest() throws Throwable {
+    List<String> calls = new ArrayList<>();
+    TestDataSource testDataSource = new TestDataSource(new StreamingRowStore(calls));
+    FrameworkMethod method = new FrameworkMethod(
+        TestStreamTestDataSource.class.getMethod("closesStreamedTabsAfterTest"));
+
+    testDataSource.apply(new Statement() {
+      @Override
+      public void evaluate() {
+        testDataSource.stream("a");
+        testDataSource.stream("b").rows();
+        assertThat(calls).containsExactly("close b");
+      }
+    }, method, new Object()).evaluate();
+
+    assertThat(calls).containsExactly("close b", "close a", "close b");
+  }
+
+  private static class StreamingRowStore implements RowStore {
+    private final List<String> calls;
+
+    private StreamingRowStore(List<String> calls) {
+      this.calls = calls;
+    }
+
+    @Override
+    public void feed(@NonNull String name, @NonNull Tab tab) {
+    }
+
+    @NonNull
+    @Override
+    public Tab ingest(@NonNull String name) {
+      throw new UnsupportedOperationException();
+    }
+
+    @NonNull
+    @Override
+    public Tab stream(@NonNull String name) {
+      return CursorTab.builder()
+          .col("A", Typ.INTEGER)
+          .build(new CursorTab.Cursor() {
+            @Override
+            public boolean next(@NonNull Object[] values) {
+              return false;
+            }
+
+            @Override
+            public void close() {
+              calls.add("close " + name);
+            }
+          });
+    }
+
+    @Override
+    public void cleanUp(@NonNull String name, @NonNull CleanUpAction cleanUpAction) {
+    }
+  }
+}
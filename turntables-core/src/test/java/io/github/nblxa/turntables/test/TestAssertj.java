@@ -8,12 +8,22 @@ import io.github.nblxa.turntables.Tab;
 import io.github.nblxa.turntables.Turntables;
 import io.github.nblxa.turntables.Typ;
 import io.github.nblxa.turntables.assertj.assertj.AssertAssertJ;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class TestAssertj {
   private static final String LS = System.lineSeparator();
   private static final Object SOME_RANDOM_OBJECT = new Object();
 
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
   @Test
   public void mismatchMatcher_colByOrder_bothUnnamed() {
     Tab exp = Turntables.tab()
@@ -564,4 +574,74 @@ public class TestAssertj {
         .asExpected()
         .isNotEqualTo(SOME_RANDOM_OBJECT);
   }
+
+  @Test
+  public void mismatch_reportDir_writesFiles() throws IOException {
+    Tab exp = Turntables.tab()
+        .col("a", Typ.INTEGER).col("b", Typ.INTEGER)
+        .row(1, 2)
+        .row(3, 4);
+    Tab act = Turntables.tab()
+        .col("a", Typ.INTEGER).col("b", Typ.INTEGER)
+        .row(1, 2)
+        .row(3, 5);
+    Path reportDir = tempFolder.getRoot().toPath().resolve("reports");
+
+    Throwable t = catchThrowable(() ->
+        assertThat(act)
+            .rowMode(Settings.RowMode.MATCH_IN_GIVEN_ORDER)
+            .reportDir(reportDir)
+            .matchesExpected(exp));
+
+    File[] dirs = reportDir.toFile().listFiles();
+    assertThat(dirs).hasSize(1);
+    Path expFile = dirs[0].toPath().resolve("expected.yml").toAbsolutePath();
+    Path actFile = dirs[0].toPath().resolve("actual.yml").toAbsolutePath();
+    assertThat(new String(Files.readAllBytes(expFile), StandardCharsets.UTF_8))
+        .isEqualTo(exp.toString());
+    assertThat(new String(Files.readAllBytes(actFile), StandardCharsets.UTF_8))
+        .isEqualTo(act.toString());
+    assertThat(t)
+        .isInstanceOf(AssertionError.class)
+        .hasMessageContaining(expFile.toString())
+        .hasMessageContaining(actFile.toString())
+        .hasMessageNotContaining("EXPECTED:");
+  }
+
+  @Test
+  public void mismatch_reportDirWithDiff_showsDiffAndWritesAllRows() throws IOException {
+    Tab exp = Turntables.tab()
+        .col("a", Typ.INTEGER)
+        .row(1)
+        .row(2)
+        .row(3);
+    Tab act = Turntables.tab()
+        .col("a", Typ.INTEGER)
+        .row(1)
+        .row(2)
+        .row(4);
+    Path reportDir = tempFolder.getRoot().toPath();
+
+    Throwable t = catchThrowable(() ->
+        assertThat(act)
+            .rowMode(Settings.RowMode.MATCH_IN_GIVEN_ORDER)
+            .diff(0)
+            .reportDir(reportDir)
+            .matchesExpected(exp));
+
+    File[] dirs = reportDir.toFile().listFiles();
+    assertThat(dirs).hasSize(1);
+    Path actFile = dirs[0].toPath().resolve("actual.yml").toAbsolutePath();
+    assertThat(new String(Files.readAllBytes(actFile), StandardCharsets.UTF_8))
+        .isEqualTo(act.toString());
+    assertThat(t)
+        .isInstanceOf(AssertionError.class)
+        .hasMessageContaining(actFile.toString())
+        .hasMessageContaining(new StringBuilder()
+            .append("BUT: WAS Table:").append(LS)
+            .append("    # 3 row pairs: 2 matching, 1 differing, 0 missing, 0 extra").append(LS)
+            .append("    # 2 matching rows not shown").append(LS)
+            .append("    - a : 4")
+            .toString());
+  }
 }
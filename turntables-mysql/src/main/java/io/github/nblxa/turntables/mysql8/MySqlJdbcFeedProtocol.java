@@ -1,18 +1,39 @@
 package io.github.nblxa.turntables.mysql8;
 
+import com.mysql.cj.conf.PropertyKey;
+import com.mysql.cj.jdbc.JdbcConnection;
+import com.mysql.cj.jdbc.JdbcStatement;
 import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.TableUtils;
 import io.github.nblxa.turntables.Typ;
+import io.github.nblxa.turntables.exception.FeedException;
 import io.github.nblxa.turntables.io.feed.AbstractJdbcProtocol;
+import io.github.nblxa.turntables.io.feed.SchemaCache;
+import io.github.nblxa.turntables.io.feed.StatementCache;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * Feeds the rows with {@code LOAD DATA LOCAL INFILE}, streaming them from memory, if local infile
+ * is enabled both in the driver ({@code allowLoadLocalInfile=true}) and on the server
+ * ({@code local_infile=ON}). Otherwise, the rows are inserted with multi-row statements.
+ */
 public class MySqlJdbcFeedProtocol<T extends Connection> extends AbstractJdbcProtocol<T> {
   static final String[] TABLE_TYPES = new String[]{"TABLE"};
+  private static final int MAX_BIND_PARAMETERS = 65_535;
+  private static final Pattern WARNING_ROW = Pattern.compile(" at row (\\d+)");
   private static final Map<Typ, String> SQL_TYPES;
   static {
     Map<Typ, String> m = new EnumMap<>(Typ.class);
@@ -27,12 +48,32 @@ public class MySqlJdbcFeedProtocol<T extends Connection> extends AbstractJdbcPro
     SQL_TYPES = Collections.unmodifiableMap(m);
   }
 
+  /**
+   * Whether local infile is enabled, by connection. The connections are referenced weakly.
+   */
+  @NonNull
+  private final Map<Connection, Boolean> localInfileEnabled =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
   @NonNull
   @Override
   protected Map<Typ, String> getSqlTypes() {
     return SQL_TYPES;
   }
 
+  @Override
+  protected int getMaxBindParameters() {
+    return MAX_BIND_PARAMETERS;
+  }
+
+  @NonNull
+  @Override
+  protected Feed newFeed(@NonNull T connection, @NonNull String name, @NonNull Tab tab,
+                         @NonNull SchemaCache schemaCache,
+                         @NonNull StatementCache statementCache) {
+    return new LoadDataFeed(connection, name, tab, schemaCache, statementCache);
+  }
+
   @Override
   protected boolean tableExists(@NonNull Connection connection,
                                 @NonNull String tableName) throws SQLException {
@@ -41,4 +82,104 @@ public class MySqlJdbcFeedProtocol<T extends Connection> extends AbstractJdbcPro
       return rs.next();
     }
   }
+
+  /**
+   * Like {@link #queryLocalInfileEnabled}, but queries the server only once per connection.
+   */
+  protected boolean isLocalInfileEnabled(@NonNull Connection connection) throws SQLException {
+    Boolean enabled = localInfileEnabled.get(connection);
+    if (enabled == null) {
+      enabled = queryLocalInfileEnabled(connection);
+      localInfileEnabled.put(connection, enabled);
+    }
+    return enabled;
+  }
+
+  /**
+   * Checks the driver property {@code allowLoadLocalInfile} and the server variable
+   * {@code local_infile}.
+   */
+  protected boolean queryLocalInfileEnabled(@NonNull Connection connection)
+      throws SQLException {
+    if (!connection.isWrapperFor(JdbcConnection.class)) {
+      return false;
+    }
+    boolean allowed = connection.unwrap(JdbcConnection.class).getPropertySet()
+        .getBooleanProperty(PropertyKey.allowLoadLocalInfile).getValue();
+    if (!allowed) {
+      return false;
+    }
+    try (Statement stmt = connection.createStatement();
+         ResultSet rs = stmt.executeQuery("SELECT @@local_infile")) {
+      return rs.next() && rs.getBoolean(1);
+    }
+  }
+
+  protected class LoadDataFeed extends Feed {
+    public LoadDataFeed(@NonNull Connection connection, @NonNull String name, @NonNull Tab tab,
+                        @NonNull SchemaCache schemaCache, @NonNull StatementCache statementCache) {
+      super(connection, name, tab, schemaCache, statementCache);
+    }
+
+    /**
+     * Since the server cannot interrupt the transfer of a local file, it reports
+     * the rows that could not be loaded as warnings.
+     *
+     * @throws FeedException with the index of the row of the first warning
+     */
+    @SuppressFBWarnings(value = "SQL_NONCONSTANT_STRING_PASSED_TO_EXECUTE",
+        justification = "This library is for use in tests only, not productively.")
+    @Override
+    protected void insertIntoTable() throws SQLException {
+      if (!isLocalInfileEnabled(connection)) {
+        super.insertIntoTable();
+        return;
+      }
+      String loadSql = buildLoadDataSql();
+      try (Statement stmt = connection.createStatement()) {
+        stmt.unwrap(JdbcStatement.class)
+            .setLocalInfileInputStream(new TsvInputStream(tab.rows().iterator()));
+        stmt.executeUpdate(loadSql);
+        SQLWarning warning = stmt.getWarnings();
+        if (warning != null) {
+          throw new FeedException(warningRow(warning), warning);
+        }
+      }
+    }
+
+    @NonNull
+    protected String buildLoadDataSql() {
+      StringBuilder sb = new StringBuilder("LOAD DATA LOCAL INFILE 'turntables.tsv' INTO TABLE ");
+      sb.append(name);
+      sb.append(" CHARACTER SET utf8mb4");
+      sb.append(" FIELDS TERMINATED BY '\\t' ESCAPED BY '\\\\'");
+      sb.append(" LINES TERMINATED BY '\\n'");
+      if (TableUtils.hasNamedCols(tab)) {
+        sb.append(" (");
+        for (int i = 0; i < colNames.size(); i++) {
+          if (i > 0) {
+            sb.append(", ");
+          }
+          sb.append(colNames.get(i));
+        }
+        sb.append(')');
+      }
+      return sb.toString();
+    }
+  }
+
+  /**
+   * @return the index of the row mentioned in the warning, such as
+   *     "Data truncated for column 'x' at row 3", or {@link FeedException#UNKNOWN_ROW}
+   */
+  static int warningRow(@NonNull SQLWarning warning) {
+    String message = warning.getMessage();
+    if (message != null) {
+      Matcher matcher = WARNING_ROW.matcher(message);
+      if (matcher.find()) {
+        return Integer.parseInt(matcher.group(1)) - 1;
+      }
+    }
+    return FeedException.UNKNOWN_ROW;
+  }
 }
@@ -0,0 +1,145 @@
+package io.github.nblxa.turntables.mysql8;
+
+import edu.umd.cs.findbugs.annotations.NonNull;
+import edu.umd.cs.findbugs.annotations.Nullable;
+import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.Typ;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+import java.util.Objects;
+
+/**
+ * Serializes rows to the text format read by {@code LOAD DATA} with the default field
+ * and line options: values separated by tabs, rows terminated by newlines, special characters
+ * escaped with a backslash and {@code \N} for {@code NULL}.
+ *
+ * <p>The rows are serialized one at a time as the stream is read, encoded in UTF-8.
+ */
+final class TsvInputStream extends InputStream {
+  private static final byte[] EMPTY = new byte[0];
+  private static final DateTimeFormatter DATETIME_FORMAT =
+      DateTimeFormatter.ofPattern("uuuu-MM-dd HH:mm:ss.SSSSSS");
+
+  @NonNull
+  private final Iterator<Tab.Row> rows;
+  @NonNull
+  private final StringBuilder line = new StringBuilder();
+  @NonNull
+  private byte[] buf = EMPTY;
+  private int pos;
+
+  TsvInputStream(@NonNull Iterator<Tab.Row> rows) {
+    this.rows = Objects.requireNonNull(rows, "rows");
+  }
+
+  @Override
+  public int read() {
+    if (!fill()) {
+      return -1;
+    }
+    return buf[pos++] & 0xFF;
+  }
+
+  @Override
+  public int read(@NonNull byte[] b, int off, int len) {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    int n = 0;
+    while (n < len && fill()) {
+      int count = Math.min(len - n, buf.length - pos);
+      System.arraycopy(buf, pos, b, off + n, count);
+      pos += count;
+      n += count;
+    }
+    return n == 0 ? -1 : n;
+  }
+
+  @Override
+  public int available() {
+    return buf.length - pos;
+  }
+
+  /**
+   * @return false if all rows have been read
+   */
+  private boolean fill() {
+    while (pos == buf.length) {
+      if (!rows.hasNext()) {
+        return false;
+      }
+      line.setLength(0);
+      appendRow(rows.next());
+      buf = line.toString().getBytes(StandardCharsets.UTF_8);
+      pos = 0;
+    }
+    return true;
+  }
+
+  private void appendRow(@NonNull Tab.Row row) {
+    boolean first = true;
+    for (Tab.Val val: row.vals()) {
+      if (first) {
+        first = false;
+      } else {
+        line.append('\t');
+      }
+      appendValue(val.evaluate(), val.typ());
+    }
+    line.append('\n');
+  }
+
+  private void appendValue(@Nullable Object value, @NonNull Typ typ) {
+    if (value == null) {
+      line.append("\\N");
+    } else if (typ == Typ.BOOLEAN && value instanceof Boolean) {
+      line.append((Boolean) value ? '1' : '0');
+    } else if (typ == Typ.DECIMAL && value instanceof BigDecimal) {
+      line.append(((BigDecimal) value).toPlainString());
+    } else if (typ == Typ.DATE && value instanceof java.sql.Date) {
+      line.append(((java.sql.Date) value).toLocalDate());
+    } else if (typ == Typ.DATE && value instanceof LocalDate) {
+      line.append(value);
+    } else if (typ == Typ.DATETIME && value instanceof Timestamp) {
+      DATETIME_FORMAT.formatTo(((Timestamp) value).toLocalDateTime(), line);
+    } else if (typ == Typ.DATETIME && value instanceof LocalDateTime) {
+      DATETIME_FORMAT.formatTo((LocalDateTime) value, line);
+    } else {
+      appendEscaped(value.toString());
+    }
+  }
+
+  private void appendEscaped(@NonNull String s) {
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '\\':
+          line.append("\\\\");
+          break;
+        case '\t':
+          line.append("\\t");
+          break;
+        case '\n':
+          line.append("\\n");
+          break;
+        case '\r':
+          line.append("\\r");
+          break;
+        case '\0':
+          line.append("\\0");
+          break;
+        default:
+          line.append(c);
+      }
+    }
+  }
+}
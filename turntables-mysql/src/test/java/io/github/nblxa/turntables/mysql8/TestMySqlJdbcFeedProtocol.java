@@ -0,0 +1,43 @@
+package io.github.nblxa.turntables.mysql8;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestMySqlJdbcFeedProtocol {
+  @Test
+  public void isLocalInfileEnabled_checksOncePerConnection() throws SQLException {
+    AtomicInteger checks = new AtomicInteger();
+    MySqlJdbcFeedProtocol<Connection> protocol = new MySqlJdbcFeedProtocol<>();
+    Connection connection1 = connection(checks);
+    Connection connection2 = connection(checks);
+
+    assertThat(protocol.isLocalInfileEnabled(connection1)).isFalse();
+    assertThat(protocol.isLocalInfileEnabled(connection1)).isFalse();
+    assertThat(checks).hasValue(1);
+
+    assertThat(protocol.isLocalInfileEnabled(connection2)).isFalse();
+    assertThat(checks).hasValue(2);
+  }
+
+  private static Connection connection(AtomicInteger checks) {
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+        new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "isWrapperFor":
+              checks.incrementAndGet();
+              return false;
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+  }
+}
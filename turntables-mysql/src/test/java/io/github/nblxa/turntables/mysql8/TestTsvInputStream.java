@@ -0,0 +1,76 @@
+package io.github.nblxa.turntables.mysql8;
+
+import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.Turntables;
+import io.github.nblxa.turntables.Typ;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLWarning;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TestTsvInputStream {
+  @Test
+  public void serializesValues() throws IOException {
+    Tab tab = Turntables.tab()
+        .col("i", Typ.INTEGER).col("b", Typ.BOOLEAN).col("dec", Typ.DECIMAL)
+        .col("dt", Typ.DATE).col("ts", Typ.DATETIME)
+        .row(1, true, new BigDecimal("1E+3"), LocalDate.of(2020, 2, 29),
+            LocalDateTime.of(2020, 3, 4, 5, 6, 7, 123456789))
+        .row(null, false, null, null, LocalDateTime.of(2020, 3, 4, 5, 6))
+        .tab();
+
+    assertThat(read(new TsvInputStream(tab.rows().iterator()), 7))
+        .isEqualTo("1\t1\t1000\t2020-02-29\t2020-03-04 05:06:07.123456\n"
+            + "\\N\t0\t\\N\t\\N\t2020-03-04 05:06:00.000000\n");
+  }
+
+  @Test
+  public void escapesSpecialCharacters() throws IOException {
+    Tab tab = Turntables.tab()
+        .col("s", Typ.STRING)
+        .row("a\tb\nc\rd\\e\0f")
+        .row("\u00e4\u20ac")
+        .row("\\N")
+        .tab();
+
+    assertThat(read(new TsvInputStream(tab.rows().iterator()), 1))
+        .isEqualTo("a\\tb\\nc\\rd\\\\e\\0f\n\u00e4\u20ac\n\\\\N\n");
+  }
+
+  @Test
+  public void emptyTable() throws IOException {
+    Tab tab = Turntables.tab()
+        .col("s", Typ.STRING)
+        .tab();
+
+    InputStream in = new TsvInputStream(tab.rows().iterator());
+    assertThat(in.read()).isEqualTo(-1);
+    assertThat(in.read(new byte[8], 0, 8)).isEqualTo(-1);
+  }
+
+  @Test
+  public void warningRow() {
+    assertThat(MySqlJdbcFeedProtocol.warningRow(
+        new SQLWarning("Data truncated for column 's' at row 1501")))
+        .isEqualTo(1500);
+    assertThat(MySqlJdbcFeedProtocol.warningRow(new SQLWarning("Something else")))
+        .isEqualTo(-1);
+  }
+
+  private static String read(InputStream in, int chunkSize) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[chunkSize];
+    int n;
+    while ((n = in.read(buf, 0, chunkSize)) != -1) {
+      out.write(buf, 0, n);
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
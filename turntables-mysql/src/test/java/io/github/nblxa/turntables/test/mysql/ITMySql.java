@@ -2,6 +2,7 @@ package io.github.nblxa.turntables.test.mysql;
 
 import io.github.nblxa.turntables.Settings;
 import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.TableUtils;
 import io.github.nblxa.turntables.TestTable;
 import io.github.nblxa.turntables.Turntables;
 import io.github.nblxa.turntables.Typ;
@@ -9,6 +10,7 @@ import io.github.nblxa.turntables.assertj.assertj.AssertAssertJ;
 import io.github.nblxa.turntables.io.rowstore.CleanUpAction;
 import io.github.nblxa.turntables.junit.TestDataSource;
 import io.github.nblxa.turntables.junit.TestDataFactory;
+import io.github.nblxa.turntables.mysql8.MySqlJdbcFeedProtocol;
 import org.assertj.core.api.Assertions;
 import org.junit.ClassRule;
 import org.junit.FixMethodOrder;
@@ -17,6 +19,7 @@ import org.junit.Test;
 import org.junit.runners.MethodSorters;
 import java.math.BigDecimal;
 import java.sql.Connection;
+import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.time.LocalDate;
@@ -368,6 +371,36 @@ public class ITMySql {
         .asExpected();
   }
 
+  @Test
+  public void testLoadDataLocalInfile() throws Exception {
+    TableUtils.RowAdderTable initialData = Turntables.tab()
+        .key("id", Typ.INTEGER)
+        .col("name", Typ.STRING)
+        .col("active", Typ.BOOLEAN)
+        .col("created_ts", Typ.DATETIME)
+        .rowAdder();
+    for (int i = 0; i < 5000; i++) {
+      initialData.row(i, i % 10 == 0 ? null : "tab\tnew line\nbackslash\\" + i,
+          i % 2 == 0, LocalDateTime.of(2020, 8, 2, 10, 11, 15, i * 1_000));
+    }
+
+    try (Connection conn = MYSQL.getConnection();
+         PreparedStatement s = conn.prepareStatement("set global local_infile = 1")) {
+      s.execute();
+    }
+    try (Connection conn = DriverManager.getConnection(
+        MYSQL.getJdbcUrl() + "?allowLoadLocalInfile=true", MYSQL.getUser(), MYSQL.getPassword())) {
+      new MySqlJdbcFeedProtocol<>().feed("loaded_rows", initialData.tab()).accept(conn);
+    }
+
+    Tab actualData = testDataSource.ingest("loaded_rows");
+
+    Turntables.assertThat(actualData)
+        .matchesExpected(initialData.tab());
+
+    testDataSource.cleanUp("loaded_rows", CleanUpAction.DROP);
+  }
+
   @TestTable(name = "table_to_drop", cleanUpAction = CleanUpAction.DROP)
   public final Tab tableToDrop = Turntables.tab().row(42);
 
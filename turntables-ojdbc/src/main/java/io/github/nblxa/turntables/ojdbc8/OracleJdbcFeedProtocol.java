@@ -10,13 +10,25 @@ import java.util.Locale;
 import java.util.Map;
 import edu.umd.cs.findbugs.annotations.NonNull;
 import io.github.nblxa.turntables.Settings;
+import io.github.nblxa.turntables.Tab;
 import io.github.nblxa.turntables.Turntables;
 import io.github.nblxa.turntables.Typ;
 import io.github.nblxa.turntables.io.feed.AbstractJdbcProtocol;
+import io.github.nblxa.turntables.io.feed.SchemaCache;
+import io.github.nblxa.turntables.io.feed.StatementCache;
 import oracle.jdbc.OracleConnection;
 
+/**
+ * Feeds the rows in JDBC batches, which the driver sends to the server as arrays of bind values.
+ *
+ * <p>Optionally, the rows are inserted with the {@code APPEND_VALUES} hint, bypassing
+ * the buffer cache. Since Oracle does not allow modifying a table again in the transaction
+ * of a direct-path insert, each batch is then committed separately. For the same reason,
+ * the hint is not used when feeding in the transaction of the caller.
+ */
 public class OracleJdbcFeedProtocol<T extends OracleConnection> extends AbstractJdbcProtocol<T> {
   private static final String TABLE_EXISTS_SQL = "SELECT NULL FROM USER_TABLES WHERE TABLE_NAME = ?";
+  private static final String APPEND_VALUES_HINT = "/*+ APPEND_VALUES */";
   private static final Map<Typ, String> SQL_TYPES;
   static {
     Map<Typ, String> m = new EnumMap<>(Typ.class);
@@ -30,6 +42,33 @@ public class OracleJdbcFeedProtocol<T extends OracleConnection> extends Abstract
     SQL_TYPES = Collections.unmodifiableMap(m);
   }
 
+  private final boolean appendValues;
+
+  public OracleJdbcFeedProtocol() {
+    this(DEFAULT_BATCH_SIZE, false);
+  }
+
+  /**
+   * @param batchSize the number of rows to insert in one JDBC batch
+   * @param appendValues whether to use direct-path inserts with the {@code APPEND_VALUES} hint
+   */
+  public OracleJdbcFeedProtocol(int batchSize, boolean appendValues) {
+    super(batchSize);
+    this.appendValues = appendValues;
+  }
+
+  public boolean isAppendValues() {
+    return appendValues;
+  }
+
+  @NonNull
+  @Override
+  protected Feed newFeed(@NonNull T connection, @NonNull String name, @NonNull Tab tab,
+                         @NonNull SchemaCache schemaCache,
+                         @NonNull StatementCache statementCache) {
+    return new OracleFeed(connection, name, tab, schemaCache, statementCache);
+  }
+
   @NonNull
   @Override
   protected Map<Typ, String> getSqlTypes() {
@@ -48,4 +87,34 @@ public class OracleJdbcFeedProtocol<T extends OracleConnection> extends Abstract
       }
     }
   }
+
+  protected class OracleFeed extends Feed {
+    public OracleFeed(@NonNull Connection connection, @NonNull String name, @NonNull Tab tab,
+                      @NonNull SchemaCache schemaCache, @NonNull StatementCache statementCache) {
+      super(connection, name, tab, schemaCache, statementCache);
+    }
+
+    @NonNull
+    @Override
+    protected String buildInsertSql() {
+      String insertSql = super.buildInsertSql();
+      if (!isDirectPath()) {
+        return insertSql;
+      }
+      return "INSERT " + APPEND_VALUES_HINT + insertSql.substring("INSERT".length());
+    }
+
+    @Override
+    protected void executeBatch(@NonNull PreparedStatement stmt, int batchStart)
+        throws SQLException {
+      super.executeBatch(stmt, batchStart);
+      if (isDirectPath()) {
+        connection.commit();
+      }
+    }
+
+    protected boolean isDirectPath() {
+      return appendValues && !inCallerTransaction;
+    }
+  }
 }
@@ -4,6 +4,7 @@ import static org.assertj.core.api.Assertions.catchThrowable;
 
 import io.github.nblxa.turntables.Settings;
 import io.github.nblxa.turntables.Tab;
+import io.github.nblxa.turntables.TableUtils;
 import io.github.nblxa.turntables.TestTable;
 import io.github.nblxa.turntables.Turntables;
 
@@ -13,6 +14,7 @@ import io.github.nblxa.turntables.exception.FeedException;
 import io.github.nblxa.turntables.io.rowstore.CleanUpAction;
 import io.github.nblxa.turntables.junit.TestDataSource;
 import io.github.nblxa.turntables.junit.TestDataFactory;
+import io.github.nblxa.turntables.ojdbc8.OracleJdbcFeedProtocol;
 import org.assertj.core.api.Assertions;
 import org.junit.ClassRule;
 import org.junit.FixMethodOrder;
@@ -29,6 +31,7 @@ import java.util.function.DoubleSupplier;
 import java.util.function.IntSupplier;
 import java.util.function.LongSupplier;
 import java.util.regex.Pattern;
+import oracle.jdbc.OracleConnection;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class ITOracle {
@@ -358,6 +361,31 @@ public class ITOracle {
         .asExpected();
   }
 
+  @Test
+  public void testFeedAppendValues() throws Exception {
+    TableUtils.RowAdderTable initialData = Turntables.tab()
+        .key("id", Typ.INTEGER)
+        .col("name", Typ.STRING)
+        .col("created_ts", Typ.DATETIME)
+        .rowAdder();
+    for (int i = 0; i < 100_000; i++) {
+      initialData.row(i, "name" + i, LocalDateTime.of(2020, 8, 2, 10, 11, 15, i * 1_000));
+    }
+
+    try (Connection conn = ORACLE.getConnection()) {
+      new OracleJdbcFeedProtocol<>(10_000, true)
+          .feed("appended_rows", initialData.tab())
+          .accept(conn.unwrap(OracleConnection.class));
+    }
+
+    Tab actualData = testDataSource.ingest("appended_rows");
+
+    Turntables.assertThat(actualData)
+        .matchesExpected(initialData.tab());
+
+    testDataSource.cleanUp("appended_rows", CleanUpAction.DROP);
+  }
+
   @TestTable(name = "table_to_drop", cleanUpAction = CleanUpAction.DROP)
   public final Tab tableToDrop = Turntables.tab().row(42);
 